@@ -0,0 +1,92 @@
+package com.tenniscourts;
+
+import com.tenniscourts.guests.Guest;
+import com.tenniscourts.reservations.Reservation;
+import com.tenniscourts.reservations.ReservationDTO;
+import com.tenniscourts.reservations.ReservationMapper;
+import com.tenniscourts.reservations.ReservationStatus;
+import com.tenniscourts.schedules.Schedule;
+import com.tenniscourts.schedules.ScheduleDTO;
+import com.tenniscourts.schedules.ScheduleMapper;
+import com.tenniscourts.tenniscourts.TennisCourt;
+import org.mapstruct.factory.Mappers;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Times the MapStruct mappers on detached entity graphs, without Spring or a database.
+ */
+@BenchmarkMode( Mode.AverageTime )
+@OutputTimeUnit( TimeUnit.MICROSECONDS )
+@State( Scope.Benchmark )
+public class MapperBenchmark
+{
+    @Param( { "1000" } )
+    public int schedules;
+
+    private final ReservationMapper reservationMapper = Mappers.getMapper( ReservationMapper.class );
+
+    private final ScheduleMapper scheduleMapper = Mappers.getMapper( ScheduleMapper.class );
+
+    private Reservation reservation;
+
+    private ReservationDTO reservationDTO;
+
+    private List<Schedule> scheduleList;
+
+    @Setup
+    public void setUp( )
+    {
+	TennisCourt tennisCourt = new TennisCourt( );
+	tennisCourt.setId( 1L );
+	tennisCourt.setName( "Court" );
+
+	LocalDateTime firstSlot = LocalDateTime.now( ).plusDays( 1 ).withMinute( 0 ).withSecond( 0 ).withNano( 0 );
+	scheduleList = new ArrayList<>( );
+	for( long id = 1; id <= schedules; id++ )
+	{
+	    Schedule schedule = Schedule.builder( ).tennisCourt( tennisCourt ).startDateTime( firstSlot.plusHours( id ) )
+			    .endDateTime( firstSlot.plusHours( id + 1 ) ).build( );
+	    schedule.setId( id );
+	    scheduleList.add( schedule );
+	}
+
+	Guest guest = Guest.builder( ).name( "Guest" ).build( );
+	guest.setId( 1L );
+
+	reservation = Reservation.builder( ).guest( guest ).schedule( scheduleList.get( 0 ) )
+			.reservationStatus( ReservationStatus.READY_TO_PLAY ).value( new BigDecimal( "10.00" ) ).build( );
+	reservation.setId( 1L );
+	reservationDTO = reservationMapper.map( reservation );
+    }
+
+    @Benchmark
+    public ReservationDTO mapReservationToDTO( )
+    {
+	return reservationMapper.map( reservation );
+    }
+
+    @Benchmark
+    public Reservation mapReservationFromDTO( )
+    {
+	return reservationMapper.map( reservationDTO );
+    }
+
+    @Benchmark
+    public List<ScheduleDTO> mapSchedules( )
+    {
+	return scheduleMapper.map( scheduleList );
+    }
+}
@@ -0,0 +1,149 @@
+package com.tenniscourts;
+
+import com.tenniscourts.guests.Guest;
+import com.tenniscourts.guests.GuestRepository;
+import com.tenniscourts.schedules.AvailabilityEngine;
+import com.tenniscourts.schedules.CourtSlotViewService;
+import com.tenniscourts.schedules.Schedule;
+import com.tenniscourts.schedules.ScheduleJdbcRepository;
+import com.tenniscourts.tenniscourts.TennisCourt;
+import com.tenniscourts.tenniscourts.TennisCourtRepository;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Boots the application against an in-memory H2 database seeded with {@link #courts} courts, each with
+ * {@link #days} days of hourly slots from {@link #FIRST_HOUR} to {@link #LAST_HOUR}, and {@link #guests} guests.
+ * The defaults give 2,000 courts and 2,000,000 schedules; override them with {@code -p courts=100 -p days=10}.
+ */
+@State( Scope.Benchmark )
+public class SeededApplicationState
+{
+    public static final int FIRST_HOUR = 8;
+    public static final int LAST_HOUR  = 18;
+
+    /**
+     * Leaves room between now and the first slot, so bookings never hit the past date treatment.
+     */
+    public static final LocalDate FIRST_DAY = LocalDate.now( ).plusDays( 30 );
+
+    @Param( "2000" )
+    public int courts;
+
+    @Param( "100" )
+    public int days;
+
+    @Param( "10000" )
+    public int guests;
+
+    public ConfigurableApplicationContext applicationContext;
+
+    private long firstGuestId;
+
+    private long firstScheduleId;
+
+    private long lastScheduleId;
+
+    private final AtomicLong freeScheduleCursor = new AtomicLong( );
+
+    private final AtomicLong guestCursor = new AtomicLong( );
+
+    @Setup( Level.Trial )
+    public void setUp( ) throws IOException
+    {
+	// Arguments rather than default properties, so they win over application.properties
+	applicationContext = new SpringApplicationBuilder( TennisCourtApplication.class )
+			.web( WebApplicationType.NONE )
+			.run( "--spring.datasource.url=jdbc:h2:mem:benchmarks;DB_CLOSE_DELAY=-1",
+					"--tenniscourts.journal.directory=" + Files.createTempDirectory( "benchmark-journal" ),
+					"--spring.flyway.locations=classpath:db/migration",
+					"--spring.jpa.show-sql=false",
+					"--logging.level.root=warn",
+					"--logging.level.org.hibernate.type=warn" );
+
+	seed( );
+
+	// The seed bypasses the services, and the availability engine was warmed up on an empty database
+	getBean( CourtSlotViewService.class ).rebuild( );
+	getBean( AvailabilityEngine.class ).warmUp( );
+    }
+
+    @TearDown( Level.Trial )
+    public void tearDown( )
+    {
+	applicationContext.close( );
+    }
+
+    public <T> T getBean( Class<T> type )
+    {
+	return applicationContext.getBean( type );
+    }
+
+    /**
+     * Hands out every seeded slot once, in id order; none of them is booked by the seed.
+     */
+    public Long nextFreeScheduleId( )
+    {
+	long scheduleId = firstScheduleId + freeScheduleCursor.getAndIncrement( );
+	if( scheduleId > lastScheduleId )
+	    throw new IllegalStateException( "Ran out of free slots, raise the courts or days parameter" );
+
+	return scheduleId;
+    }
+
+    public Long nextGuestId( )
+    {
+	return firstGuestId + guestCursor.getAndIncrement( ) % guests;
+    }
+
+    private void seed( )
+    {
+	GuestRepository       guestRepository        = getBean( GuestRepository.class );
+	TennisCourtRepository tennisCourtRepository  = getBean( TennisCourtRepository.class );
+	ScheduleJdbcRepository scheduleJdbcRepository = getBean( ScheduleJdbcRepository.class );
+	JdbcTemplate          jdbcTemplate           = getBean( JdbcTemplate.class );
+
+	List<Guest> newGuests = new ArrayList<>( );
+	for( int guest = 0; guest < guests; guest++ )
+	    newGuests.add( Guest.builder( ).name( "Guest " + guest ).build( ) );
+	firstGuestId = guestRepository.saveAll( newGuests ).get( 0 ).getId( );
+
+	for( int court = 0; court < courts; court++ )
+	{
+	    TennisCourt tennisCourt = new TennisCourt( );
+	    tennisCourt.setName( "Court " + court );
+	    tennisCourt = tennisCourtRepository.save( tennisCourt );
+
+	    List<Schedule> schedules = new ArrayList<>( );
+	    for( int day = 0; day < days; day++ )
+	    {
+		for( int hour = FIRST_HOUR; hour < LAST_HOUR; hour++ )
+		{
+		    LocalDateTime startDateTime = FIRST_DAY.plusDays( day ).atTime( hour, 0 );
+		    schedules.add( Schedule.builder( ).tennisCourt( tennisCourt ).startDateTime( startDateTime )
+				    .endDateTime( startDateTime.plusHours( 1L ) ).build( ) );
+		}
+	    }
+	    scheduleJdbcRepository.insertAll( schedules );
+	}
+
+	firstScheduleId = jdbcTemplate.queryForObject( "select min( id ) from schedule", Long.class );
+	lastScheduleId = jdbcTemplate.queryForObject( "select max( id ) from schedule", Long.class );
+    }
+}
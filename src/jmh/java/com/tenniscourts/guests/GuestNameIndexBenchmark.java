@@ -0,0 +1,58 @@
+package com.tenniscourts.guests;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Indexes 300,000 guests named after random syllables and times one page of search results.
+ */
+@BenchmarkMode( Mode.AverageTime )
+@OutputTimeUnit( TimeUnit.MICROSECONDS )
+@State( Scope.Benchmark )
+public class GuestNameIndexBenchmark
+{
+    private static final int GUESTS = 300_000;
+
+    private static final String[] SYLLABLES = { "ro", "ger", "fe", "de", "rer", "na", "dal", "ser", "ena", "wil", "li",
+		    "ams", "an", "dy", "mur", "ray", "no", "vak", "jo", "ko", "vic", "ma", "ria", "sha", "ra", "po", "va" };
+
+    @Param( { "f", "fed", "roger fed", "federr" } )
+    public String query;
+
+    private GuestNameIndex guestNameIndex;
+
+    @Setup
+    public void setUp( )
+    {
+	Random random = new Random( 42 );
+	guestNameIndex = new GuestNameIndex( null );
+
+	for( long guestId = 1; guestId <= GUESTS; guestId++ )
+	    guestNameIndex.put( guestId, word( random ) + " " + word( random ) );
+	guestNameIndex.put( GUESTS + 1L, "Roger Federer" );
+    }
+
+    @Benchmark
+    public GuestSearchPageDTO search( )
+    {
+	return guestNameIndex.search( query, 0, 20 );
+    }
+
+    private static String word( Random random )
+    {
+	StringBuilder word = new StringBuilder( );
+	for( int syllables = 2 + random.nextInt( 3 ); syllables > 0; syllables-- )
+	    word.append( SYLLABLES[ random.nextInt( SYLLABLES.length ) ] );
+
+	return word.toString( );
+    }
+}
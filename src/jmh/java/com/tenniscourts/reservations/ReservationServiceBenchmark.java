@@ -0,0 +1,83 @@
+package com.tenniscourts.reservations;
+
+import com.tenniscourts.SeededApplicationState;
+import com.tenniscourts.schedules.Schedule;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode( Mode.AverageTime )
+@OutputTimeUnit( TimeUnit.MICROSECONDS )
+public class ReservationServiceBenchmark
+{
+    /**
+     * Keeps one live reservation per thread, which every invocation moves to the next free slot.
+     */
+    @State( Scope.Thread )
+    public static class RescheduleChain
+    {
+	Long reservationId;
+
+	@Setup( Level.Trial )
+	public void setUp( SeededApplicationState state )
+	{
+	    reservationId = book( state ).getId( );
+	}
+    }
+
+    @State( Scope.Thread )
+    public static class RefundCase
+    {
+	@Param( { "1", "6", "18", "48" } )
+	public int hoursAhead;
+
+	Reservation reservation;
+
+	@Setup( Level.Iteration )
+	public void setUp( )
+	{
+	    LocalDateTime startDateTime = LocalDateTime.now( ).plusHours( hoursAhead );
+	    reservation = Reservation.builder( ).value( new BigDecimal( "10.00" ) )
+			    .schedule( Schedule.builder( ).startDateTime( startDateTime )
+					    .endDateTime( startDateTime.plusHours( 1L ) ).build( ) ).build( );
+	}
+    }
+
+    @Benchmark
+    public ReservationDTO bookReservation( SeededApplicationState state )
+    {
+	return book( state );
+    }
+
+    @Benchmark
+    public ReservationDTO rescheduleReservation( SeededApplicationState state, RescheduleChain chain )
+    {
+	ReservationDTO reservationDTO = state.getBean( ReservationService.class )
+			.rescheduleReservation( chain.reservationId, state.nextFreeScheduleId( ) );
+	chain.reservationId = reservationDTO.getId( );
+
+	return reservationDTO;
+    }
+
+    @Benchmark
+    public BigDecimal getRefundValue( SeededApplicationState state, RefundCase refundCase )
+    {
+	return state.getBean( ReservationService.class ).getRefundValue( refundCase.reservation );
+    }
+
+    private static ReservationDTO book( SeededApplicationState state )
+    {
+	return state.getBean( ReservationService.class ).bookReservation( CreateReservationRequestDTO.builder( )
+			.guestId( state.nextGuestId( ) ).scheduleId( state.nextFreeScheduleId( ) ).build( ) );
+    }
+}
@@ -0,0 +1,76 @@
+package com.tenniscourts.schedules;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Loads 1,000 courts with a full year of hourly slots (about a third of them booked) and times free slot searches.
+ */
+@BenchmarkMode( Mode.AverageTime )
+@OutputTimeUnit( TimeUnit.MICROSECONDS )
+@State( Scope.Benchmark )
+public class AvailabilityEngineBenchmark
+{
+    private static final int COURTS     = 1_000;
+    private static final int DAYS       = 365;
+    private static final int FIRST_HOUR = 7;
+    private static final int LAST_HOUR  = 22;
+
+    private static final LocalDate FIRST_DAY = LocalDate.of( 2030, 1, 1 );
+
+    @Param( { "1", "10", "100" } )
+    public int queryCourts;
+
+    @Param( { "1", "7", "30" } )
+    public int queryDays;
+
+    private AvailabilityEngine availabilityEngine;
+
+    private final Random random = new Random( 42 );
+
+    @Setup
+    public void setUp( )
+    {
+	availabilityEngine = new AvailabilityEngine( null );
+	long scheduleId = 0;
+
+	for( long tennisCourtId = 1; tennisCourtId <= COURTS; tennisCourtId++ )
+	{
+	    for( int day = 0; day < DAYS; day++ )
+	    {
+		for( int hour = FIRST_HOUR; hour < LAST_HOUR; hour++ )
+		{
+		    LocalDateTime startDateTime = FIRST_DAY.plusDays( day ).atTime( hour, 0 );
+		    availabilityEngine.addSlot( ++scheduleId, tennisCourtId, startDateTime, startDateTime.plusHours( 1L ) );
+		    if( random.nextInt( 3 ) == 0 )
+			availabilityEngine.setBooked( tennisCourtId, startDateTime, true );
+		}
+	    }
+	}
+    }
+
+    @Benchmark
+    public List<ScheduleDTO> findFree( )
+    {
+	List<Long> tennisCourtIds = new ArrayList<>( );
+	for( int i = 0; i < queryCourts; i++ )
+	    tennisCourtIds.add( 1L + random.nextInt( COURTS ) );
+
+	LocalDateTime startDateTime = FIRST_DAY.plusDays( random.nextInt( DAYS - queryDays ) ).atStartOfDay( );
+
+	return availabilityEngine.findFree( tennisCourtIds, startDateTime, startDateTime.plusDays( queryDays ) );
+    }
+}
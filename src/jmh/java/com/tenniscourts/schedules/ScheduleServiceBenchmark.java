@@ -0,0 +1,37 @@
+package com.tenniscourts.schedules;
+
+import com.tenniscourts.SeededApplicationState;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode( Mode.AverageTime )
+@OutputTimeUnit( TimeUnit.MILLISECONDS )
+@State( Scope.Thread )
+public class ScheduleServiceBenchmark
+{
+    /**
+     * Length of the searched window; a day returns one slot per hour for every court.
+     */
+    @Param( { "1", "24" } )
+    public int windowHours;
+
+    @Benchmark
+    public List<ScheduleDTO> listByFilter( SeededApplicationState state )
+    {
+	LocalDateTime startDate = SeededApplicationState.FIRST_DAY
+			.plusDays( ThreadLocalRandom.current( ).nextInt( state.days ) )
+			.atTime( SeededApplicationState.FIRST_HOUR, 0 );
+
+	return state.getBean( ScheduleService.class ).listByFilter( startDate, startDate.plusHours( windowHours ) );
+    }
+}
@@ -0,0 +1,311 @@
+package com.tenniscourts.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.tenniscourts.TennisCourtApplication;
+import com.tenniscourts.guests.Guest;
+import com.tenniscourts.guests.GuestRepository;
+import com.tenniscourts.schedules.AvailabilityEngine;
+import com.tenniscourts.schedules.CourtSlotViewService;
+import com.tenniscourts.schedules.Schedule;
+import com.tenniscourts.schedules.ScheduleJdbcRepository;
+import com.tenniscourts.tenniscourts.TennisCourt;
+import com.tenniscourts.tenniscourts.TennisCourtRepository;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Boots the application on a random port against an in-memory H2 database, seeds it with {@code courts} courts of
+ * {@code days} days of hourly slots, and drives {@code ReservationController} and {@code ScheduleController} over HTTP
+ * with {@code clients} concurrent clients. Each client waits for its answer before the next request (a closed loop),
+ * so the latencies are those of a saturated node rather than of a given arrival rate.
+ * <p>
+ * Writes book a slot, a {@code hotRatio} of them one of the {@code hotSlots} every client races for, and cancel it
+ * again with the client's next write. Reads find a slot by id or the free slots of a court on a day.
+ * <p>
+ * Throughput, p50/p99/p999 latencies and the conflict (409) and rejection (503) rates of each kind of request, measured
+ * after the warmup, are written as JSON to {@code output}. See {@link LoadTestOptions} for the options.
+ */
+public class BookingLoadTest
+{
+    private static final int FIRST_HOUR = 8;
+    private static final int LAST_HOUR  = 18;
+
+    private static final DateTimeFormatter DATE_TIME = DateTimeFormatter.ofPattern( "yyyy-MM-dd'T'HH:mm" );
+
+    private final LoadTestOptions options;
+
+    /**
+     * Leaves room between now and the first slot, so bookings never hit the past date treatment.
+     */
+    private final LocalDate firstDay = LocalDate.now( ).plusDays( 30 );
+
+    private final OperationStats book = new OperationStats( "bookReservation" );
+
+    private final OperationStats cancel = new OperationStats( "cancelReservation" );
+
+    private final OperationStats findSchedule = new OperationStats( "findScheduleById" );
+
+    private final OperationStats findAvailable = new OperationStats( "findAvailableSlots" );
+
+    private final List<Long> tennisCourtIds = new ArrayList<>( );
+
+    private long firstGuestId;
+
+    private long firstScheduleId;
+
+    private long lastScheduleId;
+
+    private volatile boolean running = true;
+
+    public BookingLoadTest( LoadTestOptions options )
+    {
+	this.options = options;
+    }
+
+    public static void main( String[] args ) throws Exception
+    {
+	LoadTestOptions options = LoadTestOptions.parse( args );
+
+	// Every client keeps its connection alive, not just the default 5
+	System.setProperty( "http.maxConnections", Integer.toString( options.getClients( ) ) );
+
+	new BookingLoadTest( options ).run( );
+    }
+
+    public void run( ) throws Exception
+    {
+	List<String> arguments = new ArrayList<>( );
+	arguments.add( "--server.port=0" );
+	arguments.add( "--spring.datasource.url=jdbc:h2:mem:loadtest;DB_CLOSE_DELAY=-1" );
+	arguments.add( "--tenniscourts.journal.directory=" + Files.createTempDirectory( "loadtest-journal" ) );
+	arguments.add( "--spring.flyway.locations=classpath:db/migration" );
+	arguments.add( "--spring.jpa.show-sql=false" );
+	arguments.add( "--logging.level.root=warn" );
+	arguments.add( "--logging.level.org.hibernate.type=warn" );
+	// Last, so they win over the defaults above
+	arguments.addAll( options.getApplicationArguments( ) );
+
+	ConfigurableApplicationContext applicationContext = new SpringApplicationBuilder( TennisCourtApplication.class )
+			.web( WebApplicationType.SERVLET )
+			.run( arguments.toArray( new String[ 0 ] ) );
+	try
+	{
+	    seed( applicationContext );
+
+	    // The seed bypasses the services, and the availability engine was warmed up on an empty database
+	    applicationContext.getBean( CourtSlotViewService.class ).rebuild( );
+	    applicationContext.getBean( AvailabilityEngine.class ).warmUp( );
+
+	    LoadTestClient client = new LoadTestClient(
+			    "http://localhost:" + applicationContext.getEnvironment( ).getProperty( "local.server.port" ) );
+
+	    writeReport( drive( client ) );
+	}
+	finally
+	{
+	    applicationContext.close( );
+	}
+    }
+
+    private double drive( LoadTestClient client ) throws Exception
+    {
+	ExecutorService executor = Executors.newFixedThreadPool( options.getClients( ) );
+	List<Future<?>> clients = new ArrayList<>( );
+	for( int i = 0; i < options.getClients( ); i++ )
+	    clients.add( executor.submit( ( ) -> loop( client ) ) );
+
+	TimeUnit.SECONDS.sleep( options.getWarmupSeconds( ) );
+	stats( ).forEach( OperationStats::reset );
+
+	long start = System.nanoTime( );
+	TimeUnit.SECONDS.sleep( options.getDurationSeconds( ) );
+	running = false;
+	for( Future<?> future : clients )
+	    future.get( );
+	executor.shutdown( );
+
+	return ( System.nanoTime( ) - start ) / 1e9;
+    }
+
+    private Void loop( LoadTestClient client ) throws InterruptedException
+    {
+	Deque<Long> toCancel = new ArrayDeque<>( );
+	while( running )
+	{
+	    ThreadLocalRandom random = ThreadLocalRandom.current( );
+	    if( random.nextDouble( ) < options.getReadRatio( ) )
+	    {
+		if( random.nextBoolean( ) )
+		    call( findSchedule, ( ) -> client.get( "/schedules/" + randomScheduleId( random ) ) );
+		else
+		    call( findAvailable, ( ) -> client.post( "/schedules/available", availableSlotsRequest( random ) ) );
+	    }
+	    else if( !toCancel.isEmpty( ) )
+	    {
+		Long reservationId = toCancel.poll( );
+		call( cancel, ( ) -> client.delete( "/reservations/" + reservationId ) );
+	    }
+	    else
+	    {
+		LoadTestClient.Response response = call( book,
+				( ) -> client.post( "/reservations", bookingRequest( random ) ) );
+		if( response != null && response.getStatus( ) == 201 && random.nextDouble( ) < options.getCancelRatio( ) )
+		    toCancel.add( response.createdId( ) );
+	    }
+	}
+
+	return null;
+    }
+
+    private LoadTestClient.Response call( OperationStats stats, Request request )
+    {
+	long start = System.nanoTime( );
+	try
+	{
+	    LoadTestClient.Response response = request.send( );
+	    stats.record( System.nanoTime( ) - start, response.outcome( ) );
+	    return response;
+	}
+	catch( IOException e )
+	{
+	    stats.record( System.nanoTime( ) - start, OperationStats.Outcome.ERROR );
+	    return null;
+	}
+    }
+
+    private String bookingRequest( ThreadLocalRandom random )
+    {
+	long scheduleId = random.nextDouble( ) < options.getHotRatio( )
+			? firstScheduleId + random.nextInt( options.getHotSlots( ) )
+			: randomScheduleId( random );
+	long guestId = firstGuestId + random.nextInt( options.getGuests( ) );
+
+	return "{\"guestId\":" + guestId + ",\"scheduleId\":" + scheduleId + "}";
+    }
+
+    private String availableSlotsRequest( ThreadLocalRandom random )
+    {
+	LocalDateTime startDateTime = firstDay.plusDays( random.nextInt( options.getDays( ) ) ).atStartOfDay( );
+
+	return "{\"tennisCourtIds\":[" + tennisCourtIds.get( random.nextInt( tennisCourtIds.size( ) ) ) + "],"
+			+ "\"startDateTime\":\"" + DATE_TIME.format( startDateTime ) + "\","
+			+ "\"endDateTime\":\"" + DATE_TIME.format( startDateTime.plusDays( 1L ) ) + "\"}";
+    }
+
+    private long randomScheduleId( ThreadLocalRandom random )
+    {
+	return random.nextLong( firstScheduleId, lastScheduleId + 1 );
+    }
+
+    private List<OperationStats> stats( )
+    {
+	List<OperationStats> stats = new ArrayList<>( );
+	stats.add( book );
+	stats.add( cancel );
+	stats.add( findSchedule );
+	stats.add( findAvailable );
+
+	return stats;
+    }
+
+    private void writeReport( double seconds ) throws IOException
+    {
+	long bookings = book.count( OperationStats.Outcome.OK ) + book.count( OperationStats.Outcome.CONFLICT )
+			+ book.count( OperationStats.Outcome.REJECTED ) + book.count( OperationStats.Outcome.ERROR );
+
+	Map<String, Object> operations = new LinkedHashMap<>( );
+	long requests = 0;
+	for( OperationStats stats : stats( ) )
+	{
+	    Map<String, Object> report = stats.report( seconds );
+	    operations.put( stats.getName( ), report );
+	    requests += ( Long ) report.get( "count" );
+	}
+
+	Map<String, Object> bookingReport = new LinkedHashMap<>( );
+	bookingReport.put( "attempted", bookings );
+	bookingReport.put( "bookedPerSecond", book.count( OperationStats.Outcome.OK ) / seconds );
+	bookingReport.put( "conflictRate",
+			bookings == 0 ? 0 : ( double ) book.count( OperationStats.Outcome.CONFLICT ) / bookings );
+
+	Map<String, Object> report = new LinkedHashMap<>( );
+	report.put( "options", options );
+	report.put( "measuredSeconds", seconds );
+	report.put( "requests", requests );
+	report.put( "throughputPerSecond", requests / seconds );
+	report.put( "bookings", bookingReport );
+	report.put( "operations", operations );
+
+	File output = new File( options.getOutput( ) );
+	if( output.getAbsoluteFile( ).getParentFile( ) != null )
+	    output.getAbsoluteFile( ).getParentFile( ).mkdirs( );
+
+	ObjectMapper objectMapper = new ObjectMapper( ).enable( SerializationFeature.INDENT_OUTPUT );
+	objectMapper.writeValue( output, report );
+	System.out.println( objectMapper.writeValueAsString( report ) );
+	System.out.println( "Written to " + output.getAbsolutePath( ) );
+    }
+
+    private void seed( ConfigurableApplicationContext applicationContext )
+    {
+	GuestRepository        guestRepository        = applicationContext.getBean( GuestRepository.class );
+	TennisCourtRepository  tennisCourtRepository  = applicationContext.getBean( TennisCourtRepository.class );
+	ScheduleJdbcRepository scheduleJdbcRepository = applicationContext.getBean( ScheduleJdbcRepository.class );
+	JdbcTemplate           jdbcTemplate           = applicationContext.getBean( JdbcTemplate.class );
+
+	List<Guest> newGuests = new ArrayList<>( );
+	for( int guest = 0; guest < options.getGuests( ); guest++ )
+	    newGuests.add( Guest.builder( ).name( "Guest " + guest ).build( ) );
+	firstGuestId = guestRepository.saveAll( newGuests ).get( 0 ).getId( );
+
+	for( int court = 0; court < options.getCourts( ); court++ )
+	{
+	    TennisCourt tennisCourt = new TennisCourt( );
+	    tennisCourt.setName( "Court " + court );
+	    tennisCourt = tennisCourtRepository.save( tennisCourt );
+	    tennisCourtIds.add( tennisCourt.getId( ) );
+
+	    List<Schedule> schedules = new ArrayList<>( );
+	    for( int day = 0; day < options.getDays( ); day++ )
+	    {
+		for( int hour = FIRST_HOUR; hour < LAST_HOUR; hour++ )
+		{
+		    LocalDateTime startDateTime = firstDay.plusDays( day ).atTime( hour, 0 );
+		    schedules.add( Schedule.builder( ).tennisCourt( tennisCourt ).startDateTime( startDateTime )
+				    .endDateTime( startDateTime.plusHours( 1L ) ).build( ) );
+		}
+	    }
+	    scheduleJdbcRepository.insertAll( schedules );
+	}
+
+	firstScheduleId = jdbcTemplate.queryForObject( "select min( id ) from schedule", Long.class );
+	lastScheduleId = jdbcTemplate.queryForObject( "select max( id ) from schedule", Long.class );
+    }
+
+    @FunctionalInterface
+    private interface Request
+    {
+	LoadTestClient.Response send( ) throws IOException;
+    }
+}
@@ -0,0 +1,113 @@
+package com.tenniscourts.loadtest;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Plain {@link HttpURLConnection} calls, on the connections the JDK keeps alive: no client library of its own to tune
+ * or warm up.
+ */
+public class LoadTestClient
+{
+    private final String baseUrl;
+
+    public LoadTestClient( String baseUrl )
+    {
+	this.baseUrl = baseUrl;
+    }
+
+    public Response get( String path ) throws IOException
+    {
+	return exchange( "GET", path, null );
+    }
+
+    public Response post( String path, String json ) throws IOException
+    {
+	return exchange( "POST", path, json );
+    }
+
+    public Response delete( String path ) throws IOException
+    {
+	return exchange( "DELETE", path, null );
+    }
+
+    private Response exchange( String method, String path, String json ) throws IOException
+    {
+	HttpURLConnection connection = ( HttpURLConnection ) new URL( baseUrl + path ).openConnection( );
+	connection.setRequestMethod( method );
+	connection.setConnectTimeout( 5_000 );
+	connection.setReadTimeout( 60_000 );
+	connection.setRequestProperty( "Accept", "application/json" );
+
+	if( json != null )
+	{
+	    connection.setDoOutput( true );
+	    connection.setRequestProperty( "Content-Type", "application/json" );
+	    try( OutputStream body = connection.getOutputStream( ) )
+	    {
+		body.write( json.getBytes( StandardCharsets.UTF_8 ) );
+	    }
+	}
+
+	int status = connection.getResponseCode( );
+	String location = connection.getHeaderField( "Location" );
+
+	// Read to the end, so the connection goes back to the keep-alive cache
+	InputStream body = status < 400 ? connection.getInputStream( ) : connection.getErrorStream( );
+	if( body != null )
+	{
+	    try( InputStream in = body )
+	    {
+		byte[] buffer = new byte[ 8192 ];
+		while( in.read( buffer ) >= 0 )
+		{
+		    // Discarded
+		}
+	    }
+	}
+
+	return new Response( status, location );
+    }
+
+    public static class Response
+    {
+	private final int status;
+
+	private final String location;
+
+	Response( int status, String location )
+	{
+	    this.status = status;
+	    this.location = location;
+	}
+
+	public int getStatus( )
+	{
+	    return status;
+	}
+
+	/**
+	 * The id at the end of the Location header of a created resource.
+	 */
+	public Long createdId( )
+	{
+	    return location == null ? null : Long.valueOf( location.substring( location.lastIndexOf( '/' ) + 1 ) );
+	}
+
+	public OperationStats.Outcome outcome( )
+	{
+	    if( status >= 200 && status < 300 )
+		return OperationStats.Outcome.OK;
+	    if( status == 409 )
+		return OperationStats.Outcome.CONFLICT;
+	    if( status == 503 )
+		return OperationStats.Outcome.REJECTED;
+
+	    return OperationStats.Outcome.ERROR;
+	}
+    }
+}
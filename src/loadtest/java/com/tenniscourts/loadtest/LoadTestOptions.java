@@ -0,0 +1,183 @@
+package com.tenniscourts.loadtest;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Options of the {@link BookingLoadTest}, given as {@code --name=value}. Options with a dot in their name are properties
+ * of the application under load, e.g. {@code --tenniscourts.bulkhead.write.threads=8}.
+ */
+public class LoadTestOptions
+{
+    /**
+     * Concurrent clients, each sending its next request once the previous one is answered.
+     */
+    private int clients = 64;
+
+    private int warmupSeconds = 5;
+
+    private int durationSeconds = 30;
+
+    private int courts = 50;
+
+    private int days = 30;
+
+    private int guests = 1000;
+
+    /**
+     * The slots every client races for, e.g. 1 and a {@link #hotRatio} of 1 for all the clients on a single slot.
+     */
+    private int hotSlots = 1;
+
+    /**
+     * Share of the bookings aimed at the hot slots; the others pick any seeded slot.
+     */
+    private double hotRatio = 0.5;
+
+    /**
+     * Share of the requests reading schedules; the others book and cancel.
+     */
+    private double readRatio = 0.8;
+
+    /**
+     * Share of the bookings a client cancels with its next write, so the slots are freed and raced for again.
+     */
+    private double cancelRatio = 1.0;
+
+    private String output = "build/reports/loadtest/results.json";
+
+    private final List<String> applicationArguments = new ArrayList<>( );
+
+    public static LoadTestOptions parse( String... args )
+    {
+	LoadTestOptions options = new LoadTestOptions( );
+	for( String arg : args )
+	{
+	    int equals = arg.indexOf( '=' );
+	    if( !arg.startsWith( "--" ) || equals < 0 )
+		throw new IllegalArgumentException( "Expected --name=value, got " + arg );
+
+	    String name  = arg.substring( 2, equals );
+	    String value = arg.substring( equals + 1 );
+	    if( name.contains( "." ) )
+	    {
+		options.applicationArguments.add( arg );
+		continue;
+	    }
+
+	    switch( name )
+	    {
+		case "clients":
+		    options.clients = Integer.parseInt( value );
+		    break;
+		case "warmupSeconds":
+		    options.warmupSeconds = Integer.parseInt( value );
+		    break;
+		case "durationSeconds":
+		    options.durationSeconds = Integer.parseInt( value );
+		    break;
+		case "courts":
+		    options.courts = Integer.parseInt( value );
+		    break;
+		case "days":
+		    options.days = Integer.parseInt( value );
+		    break;
+		case "guests":
+		    options.guests = Integer.parseInt( value );
+		    break;
+		case "hotSlots":
+		    options.hotSlots = Integer.parseInt( value );
+		    break;
+		case "hotRatio":
+		    options.hotRatio = ratio( name, value );
+		    break;
+		case "readRatio":
+		    options.readRatio = ratio( name, value );
+		    break;
+		case "cancelRatio":
+		    options.cancelRatio = ratio( name, value );
+		    break;
+		case "output":
+		    options.output = value;
+		    break;
+		default:
+		    throw new IllegalArgumentException( "Unknown option " + name );
+	    }
+	}
+
+	if( options.clients < 1 || options.durationSeconds < 1 || options.courts < 1 || options.days < 1
+			|| options.guests < 1 || options.hotSlots < 1 )
+	    throw new IllegalArgumentException( "clients, durationSeconds, courts, days, guests and hotSlots must be positive" );
+
+	return options;
+    }
+
+    private static double ratio( String name, String value )
+    {
+	double ratio = Double.parseDouble( value );
+	if( ratio < 0 || ratio > 1 )
+	    throw new IllegalArgumentException( name + " must be between 0 and 1" );
+
+	return ratio;
+    }
+
+    public int getClients( )
+    {
+	return clients;
+    }
+
+    public int getWarmupSeconds( )
+    {
+	return warmupSeconds;
+    }
+
+    public int getDurationSeconds( )
+    {
+	return durationSeconds;
+    }
+
+    public int getCourts( )
+    {
+	return courts;
+    }
+
+    public int getDays( )
+    {
+	return days;
+    }
+
+    public int getGuests( )
+    {
+	return guests;
+    }
+
+    public int getHotSlots( )
+    {
+	return hotSlots;
+    }
+
+    public double getHotRatio( )
+    {
+	return hotRatio;
+    }
+
+    public double getReadRatio( )
+    {
+	return readRatio;
+    }
+
+    public double getCancelRatio( )
+    {
+	return cancelRatio;
+    }
+
+    public String getOutput( )
+    {
+	return output;
+    }
+
+    public List<String> getApplicationArguments( )
+    {
+	return applicationArguments;
+    }
+}
@@ -0,0 +1,96 @@
+package com.tenniscourts.loadtest;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Latencies and outcomes of one kind of request, recorded by all the clients at once.
+ */
+public class OperationStats
+{
+    public enum Outcome
+    {
+	OK, CONFLICT, REJECTED, ERROR
+    }
+
+    private final String name;
+
+    /**
+     * Microseconds, with 3 significant digits whatever the value.
+     */
+    private final Recorder recorder = new Recorder( 3 );
+
+    private final Map<Outcome, LongAdder> outcomes = new LinkedHashMap<>( );
+
+    public OperationStats( String name )
+    {
+	this.name = name;
+	for( Outcome outcome : Outcome.values( ) )
+	    outcomes.put( outcome, new LongAdder( ) );
+    }
+
+    public String getName( )
+    {
+	return name;
+    }
+
+    public void record( long nanos, Outcome outcome )
+    {
+	recorder.recordValue( Math.max( 1L, TimeUnit.NANOSECONDS.toMicros( nanos ) ) );
+	outcomes.get( outcome ).increment( );
+    }
+
+    /**
+     * Forgets what was recorded so far, e.g. during the warmup.
+     */
+    public void reset( )
+    {
+	recorder.reset( );
+	outcomes.values( ).forEach( LongAdder::reset );
+    }
+
+    /**
+     * What was recorded since the last reset, as plain values for the report.
+     */
+    public Map<String, Object> report( double seconds )
+    {
+	Histogram histogram = recorder.getIntervalHistogram( );
+	long count = histogram.getTotalCount( );
+
+	Map<String, Object> latencyMillis = new LinkedHashMap<>( );
+	latencyMillis.put( "mean", histogram.getMean( ) / 1000 );
+	latencyMillis.put( "p50", histogram.getValueAtPercentile( 50 ) / 1000.0 );
+	latencyMillis.put( "p99", histogram.getValueAtPercentile( 99 ) / 1000.0 );
+	latencyMillis.put( "p999", histogram.getValueAtPercentile( 99.9 ) / 1000.0 );
+	latencyMillis.put( "max", histogram.getMaxValue( ) / 1000.0 );
+
+	Map<String, Object> counts = new LinkedHashMap<>( );
+	outcomes.forEach( ( outcome, adder ) -> counts.put( outcome.name( ).toLowerCase( ), adder.sum( ) ) );
+
+	Map<String, Object> report = new LinkedHashMap<>( );
+	report.put( "count", count );
+	report.put( "throughputPerSecond", count / seconds );
+	report.put( "latencyMillis", latencyMillis );
+	report.put( "outcomes", counts );
+	report.put( "conflictRate", rate( Outcome.CONFLICT, count ) );
+	report.put( "rejectionRate", rate( Outcome.REJECTED, count ) );
+	report.put( "errorRate", rate( Outcome.ERROR, count ) );
+
+	return report;
+    }
+
+    public long count( Outcome outcome )
+    {
+	return outcomes.get( outcome ).sum( );
+    }
+
+    private double rate( Outcome outcome, long count )
+    {
+	return count == 0 ? 0 : ( double ) outcomes.get( outcome ).sum( ) / count;
+    }
+}
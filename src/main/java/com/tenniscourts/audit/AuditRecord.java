@@ -0,0 +1,60 @@
+package com.tenniscourts.audit;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.EnumType;
+import javax.persistence.Enumerated;
+import javax.persistence.GeneratedValue;
+import javax.persistence.GenerationType;
+import javax.persistence.Id;
+import javax.persistence.Table;
+import javax.validation.constraints.NotNull;
+import java.time.LocalDateTime;
+
+/**
+ * One committed write of an audited entity. Written in batches by {@link AuditTrailWriter}, so it is not a
+ * {@link com.tenniscourts.config.persistence.BaseEntity} and is not audited itself.
+ */
+@Data
+@Entity
+@Table
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class AuditRecord
+{
+    @Id
+    @GeneratedValue( strategy = GenerationType.IDENTITY )
+    private Long id;
+
+    @Column
+    @NotNull
+    private String entityName;
+
+    @Column
+    @NotNull
+    private String entityId;
+
+    @Column
+    @NotNull
+    @Enumerated( EnumType.STRING )
+    private AuditAction action;
+
+    @Column
+    private Long userId;
+
+    @Column
+    private String ipNumber;
+
+    @Column
+    private String node;
+
+    @Column
+    @NotNull
+    private LocalDateTime dateTime;
+}
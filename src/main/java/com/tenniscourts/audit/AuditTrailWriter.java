@@ -0,0 +1,138 @@
+package com.tenniscourts.audit;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Writes the audit trail off the request thread: records are queued once their transaction commits and a single
+ * background thread inserts them in JDBC batches. When the queue is full records are dropped and counted, so auditing
+ * never slows a booking down.
+ */
+@Slf4j
+@Component
+public class AuditTrailWriter
+{
+    private static final int QUEUE_CAPACITY = 10_000;
+
+    private static final int BATCH_SIZE = 500;
+
+    private static final String INSERT_SQL = "insert into audit_record (entity_name, entity_id, action, user_id, "
+		    + "ip_number, node, date_time) values (?, ?, ?, ?, ?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final Counter dropped;
+
+    private final BlockingQueue<AuditRecord> queue = new ArrayBlockingQueue<>( QUEUE_CAPACITY );
+
+    private final Thread writer = new Thread( this::drain, "audit-trail-writer" );
+
+    private volatile boolean running = true;
+
+    public AuditTrailWriter( JdbcTemplate jdbcTemplate, MeterRegistry meterRegistry )
+    {
+	this.jdbcTemplate = jdbcTemplate;
+	this.dropped = meterRegistry.counter( "tenniscourts.audit.dropped" );
+	this.writer.setDaemon( true );
+    }
+
+    @PostConstruct
+    public void start( )
+    {
+	writer.start( );
+    }
+
+    @PreDestroy
+    public void stop( ) throws InterruptedException
+    {
+	running = false;
+	writer.join( TimeUnit.SECONDS.toMillis( 5 ) );
+    }
+
+    /**
+     * Queues the record once the current transaction commits, or right away outside of one. Never blocks.
+     */
+    public void record( AuditRecord auditRecord )
+    {
+	if( !TransactionSynchronizationManager.isSynchronizationActive( ) )
+	{
+	    enqueue( auditRecord );
+	    return;
+	}
+
+	TransactionSynchronizationManager.registerSynchronization( new TransactionSynchronizationAdapter( )
+	{
+	    @Override
+	    public void afterCommit( )
+	    {
+		enqueue( auditRecord );
+	    }
+	} );
+    }
+
+    private void enqueue( AuditRecord auditRecord )
+    {
+	if( !queue.offer( auditRecord ) )
+	    dropped.increment( );
+    }
+
+    private void drain( )
+    {
+	List<AuditRecord> batch = new ArrayList<>( BATCH_SIZE );
+
+	// Keeps going after stop( ) until the queue is empty, so records committed before shutdown are written
+	while( running || !queue.isEmpty( ) )
+	{
+	    try
+	    {
+		AuditRecord first = queue.poll( 200, TimeUnit.MILLISECONDS );
+		if( first == null )
+		    continue;
+
+		batch.add( first );
+		queue.drainTo( batch, BATCH_SIZE - 1 );
+		write( batch );
+	    }
+	    catch( InterruptedException e )
+	    {
+		Thread.currentThread( ).interrupt( );
+		return;
+	    }
+	    catch( RuntimeException e )
+	    {
+		log.warn( "Could not write {} audit records", batch.size( ), e );
+	    }
+	    finally
+	    {
+		batch.clear( );
+	    }
+	}
+    }
+
+    private void write( List<AuditRecord> batch )
+    {
+	jdbcTemplate.batchUpdate( INSERT_SQL, batch, BATCH_SIZE, ( statement, auditRecord ) -> {
+	    statement.setString( 1, auditRecord.getEntityName( ) );
+	    statement.setString( 2, auditRecord.getEntityId( ) );
+	    statement.setString( 3, auditRecord.getAction( ).name( ) );
+	    statement.setObject( 4, auditRecord.getUserId( ) );
+	    statement.setString( 5, auditRecord.getIpNumber( ) );
+	    statement.setString( 6, auditRecord.getNode( ) );
+	    statement.setTimestamp( 7, Timestamp.valueOf( auditRecord.getDateTime( ) ) );
+	} );
+    }
+}
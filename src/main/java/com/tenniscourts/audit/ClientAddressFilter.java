@@ -0,0 +1,63 @@
+package com.tenniscourts.audit;
+
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+
+/**
+ * Captures the client address once per request for the audit columns of every entity written while serving it.
+ */
+@Component
+public class ClientAddressFilter extends OncePerRequestFilter
+{
+    private static final ThreadLocal<String> CLIENT_ADDRESS = new ThreadLocal<>( );
+
+    public static String currentClientAddress( )
+    {
+	return CLIENT_ADDRESS.get( );
+    }
+
+    /**
+     * Wraps the runnable so it sees the client address of the current request, whatever thread it runs on.
+     */
+    public static Runnable propagate( Runnable runnable )
+    {
+	String clientAddress = CLIENT_ADDRESS.get( );
+
+	return ( ) -> {
+	    String previous = CLIENT_ADDRESS.get( );
+	    CLIENT_ADDRESS.set( clientAddress );
+	    try
+	    {
+		runnable.run( );
+	    }
+	    finally
+	    {
+		if( previous == null )
+		    CLIENT_ADDRESS.remove( );
+		else
+		    CLIENT_ADDRESS.set( previous );
+	    }
+	};
+    }
+
+    @Override
+    protected void doFilterInternal( HttpServletRequest request, HttpServletResponse response, FilterChain filterChain )
+		    throws ServletException, IOException
+    {
+	CLIENT_ADDRESS.set( request.getRemoteAddr( ) );
+	try
+	{
+	    filterChain.doFilter( request, response );
+	}
+	finally
+	{
+	    CLIENT_ADDRESS.remove( );
+	}
+    }
+}
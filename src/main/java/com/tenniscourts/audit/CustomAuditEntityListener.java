@@ -1,32 +1,42 @@
 package com.tenniscourts.audit;
 
 import com.tenniscourts.config.persistence.BaseEntity;
+import lombok.RequiredArgsConstructor;
 
+import javax.persistence.PostPersist;
+import javax.persistence.PostUpdate;
 import javax.persistence.PrePersist;
 import javax.persistence.PreUpdate;
-import java.net.InetAddress;
-import java.net.UnknownHostException;
 import java.time.LocalDateTime;
 import java.util.Objects;
 
+/**
+ * Instantiated by Hibernate through Spring's bean container, so its collaborators are constructor injected.
+ */
+@RequiredArgsConstructor
 public class CustomAuditEntityListener {
 
     public final static Long USER_SYSTEM_ID = 1L;
 
+    private final NodeIdentity nodeIdentity;
+
+    private final AuditTrailWriter auditTrailWriter;
+
     @PreUpdate
-    public void preUpdate(BaseEntity baseEntity) throws UnknownHostException {
+    public void preUpdate(BaseEntity baseEntity) {
 
         baseEntity.setDateUpdate(LocalDateTime.now());
         if (Objects.isNull(baseEntity.getUserUpdate())) {
             baseEntity.setUserUpdate(USER_SYSTEM_ID);
         }
-        if (Objects.isNull(baseEntity.getIpNumberUpdate())) {
-            baseEntity.setIpNumberUpdate(InetAddress.getLocalHost().getHostAddress());
-        }
+        // Whoever made this change, not the first one to update the entity
+        baseEntity.setIpNumberUpdate(nodeIdentity.ipNumber());
     }
 
     @PrePersist
-    public void prePersist(BaseEntity baseEntity) throws UnknownHostException {
+    public void prePersist(BaseEntity baseEntity) {
+        String ipNumber = nodeIdentity.ipNumber();
+
         baseEntity.setDateUpdate(LocalDateTime.now());
         if (Objects.isNull(baseEntity.getUserUpdate())) {
             baseEntity.setUserUpdate(USER_SYSTEM_ID);
@@ -35,11 +45,33 @@ public class CustomAuditEntityListener {
         if (Objects.isNull(baseEntity.getUserCreate())) {
             baseEntity.setUserCreate(USER_SYSTEM_ID);
         }
-        if (Objects.isNull(baseEntity.getIpNumberCreate())) {
-            baseEntity.setIpNumberUpdate(InetAddress.getLocalHost().getHostAddress());
+        if (Objects.isNull(baseEntity.getIpNumberUpdate())) {
+            baseEntity.setIpNumberUpdate(ipNumber);
         }
         if (Objects.isNull(baseEntity.getIpNumberCreate())) {
-            baseEntity.setIpNumberCreate(InetAddress.getLocalHost().getHostAddress());
+            baseEntity.setIpNumberCreate(ipNumber);
         }
     }
-}
\ No newline at end of file
+
+    @PostPersist
+    public void postPersist(BaseEntity baseEntity) {
+        auditTrailWriter.record(auditRecord(baseEntity, AuditAction.CREATE));
+    }
+
+    @PostUpdate
+    public void postUpdate(BaseEntity baseEntity) {
+        auditTrailWriter.record(auditRecord(baseEntity, AuditAction.UPDATE));
+    }
+
+    private AuditRecord auditRecord(BaseEntity baseEntity, AuditAction action) {
+        return AuditRecord.builder()
+                .entityName(baseEntity.getClass().getSimpleName())
+                .entityId(String.valueOf(baseEntity.getId()))
+                .action(action)
+                .userId(baseEntity.getUserUpdate())
+                .ipNumber(nodeIdentity.ipNumber())
+                .node(nodeIdentity.getHostAddress())
+                .dateTime(baseEntity.getDateUpdate())
+                .build();
+    }
+}
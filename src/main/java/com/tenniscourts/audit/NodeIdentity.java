@@ -0,0 +1,38 @@
+package com.tenniscourts.audit;
+
+import lombok.Getter;
+import org.springframework.stereotype.Component;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.util.Optional;
+
+/**
+ * Address of this node, resolved once at startup rather than on every audited write.
+ */
+@Component
+public class NodeIdentity
+{
+    @Getter
+    private final String hostAddress = resolveHostAddress( );
+
+    /**
+     * Client address of the request being served, or this node's address outside of a request.
+     */
+    public String ipNumber( )
+    {
+	return Optional.ofNullable( ClientAddressFilter.currentClientAddress( ) ).orElse( hostAddress );
+    }
+
+    private static String resolveHostAddress( )
+    {
+	try
+	{
+	    return InetAddress.getLocalHost( ).getHostAddress( );
+	}
+	catch( UnknownHostException e )
+	{
+	    return InetAddress.getLoopbackAddress( ).getHostAddress( );
+	}
+    }
+}
@@ -0,0 +1,22 @@
+package com.tenniscourts.config.async;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.AsyncSupportConfigurer;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+/**
+ * Streamed responses read from the database while they are written: they run on the stream bulkhead.
+ */
+@Configuration
+@RequiredArgsConstructor
+public class AsyncWebConfig implements WebMvcConfigurer
+{
+    private final Bulkheads bulkheads;
+
+    @Override
+    public void configureAsyncSupport( AsyncSupportConfigurer configurer )
+    {
+	configurer.setTaskExecutor( bulkheads.getStreamExecutor( ) );
+    }
+}
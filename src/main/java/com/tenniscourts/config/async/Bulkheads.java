@@ -0,0 +1,94 @@
+package com.tenniscourts.config.async;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import lombok.Getter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.util.Collections;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Supplier;
+
+/**
+ * Bounded executors for the blocking (JDBC) work of the controllers, so Tomcat threads never wait on a connection.
+ * Reads and writes get separate pools, together smaller than the connection pool, so a spike of bookings cannot starve
+ * the read endpoints. Streamed responses hold their thread for as long as the client takes to read them, so they get a
+ * pool of their own: slow stream clients cannot starve the other reads. A full queue rejects right away with a
+ * {@link org.springframework.core.task.TaskRejectedException}, answered as 503.
+ */
+@Component
+public class Bulkheads
+{
+    public static final String REJECTED = "tenniscourts.bulkhead.rejected";
+
+    private final ThreadPoolTaskExecutor readExecutor;
+
+    private final ThreadPoolTaskExecutor writeExecutor;
+
+    @Getter
+    private final ThreadPoolTaskExecutor streamExecutor;
+
+    public Bulkheads( @Value( "${spring.datasource.hikari.maximum-pool-size:10}" ) int connections,
+		    @Value( "${tenniscourts.bulkhead.read.threads:3}" ) int readThreads,
+		    @Value( "${tenniscourts.bulkhead.read.queue:100}" ) int readQueue,
+		    @Value( "${tenniscourts.bulkhead.write.threads:6}" ) int writeThreads,
+		    @Value( "${tenniscourts.bulkhead.write.queue:20}" ) int writeQueue,
+		    @Value( "${tenniscourts.bulkhead.stream.threads:2}" ) int streamThreads,
+		    @Value( "${tenniscourts.bulkhead.stream.queue:10}" ) int streamQueue, MeterRegistry meterRegistry )
+    {
+	// At least one connection stays out of the bulkheads, for the audit trail writer
+	int threads = readThreads + writeThreads + streamThreads;
+	if( threads >= connections )
+	    throw new IllegalStateException( "The bulkheads need fewer threads (" + threads + ") than the connection pool ("
+			    + connections + ")" );
+
+	this.readExecutor = executor( "read", readThreads, readQueue, meterRegistry );
+	this.writeExecutor = executor( "write", writeThreads, writeQueue, meterRegistry );
+	this.streamExecutor = executor( "stream", streamThreads, streamQueue, meterRegistry );
+    }
+
+    public <T> CompletableFuture<T> read( Supplier<T> supplier )
+    {
+	return CompletableFuture.supplyAsync( supplier, readExecutor );
+    }
+
+    public <T> CompletableFuture<T> write( Supplier<T> supplier )
+    {
+	return CompletableFuture.supplyAsync( supplier, writeExecutor );
+    }
+
+    @PreDestroy
+    public void shutdown( )
+    {
+	readExecutor.shutdown( );
+	writeExecutor.shutdown( );
+	streamExecutor.shutdown( );
+    }
+
+    private static ThreadPoolTaskExecutor executor( String name, int threads, int queue, MeterRegistry meterRegistry )
+    {
+	Counter rejected = meterRegistry.counter( REJECTED, "bulkhead", name );
+
+	ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor( );
+	executor.setThreadNamePrefix( "bulkhead-" + name + "-" );
+	executor.setCorePoolSize( threads );
+	executor.setMaxPoolSize( threads );
+	executor.setQueueCapacity( queue );
+	executor.setTaskDecorator( new RequestContextTaskDecorator( ) );
+	executor.setRejectedExecutionHandler( ( runnable, threadPoolExecutor ) -> {
+	    rejected.increment( );
+	    throw new RejectedExecutionException( "The " + name + " bulkhead is full" );
+	} );
+	executor.initialize( );
+
+	new ExecutorServiceMetrics( executor.getThreadPoolExecutor( ), "bulkhead." + name, Collections.emptyList( ) )
+			.bindTo( meterRegistry );
+
+	return executor;
+    }
+}
@@ -0,0 +1,32 @@
+package com.tenniscourts.config.async;
+
+import com.tenniscourts.audit.ClientAddressFilter;
+import org.springframework.core.task.TaskDecorator;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+
+/**
+ * Carries the request attributes (used to build Location headers) and the client address (used by the audit columns)
+ * from the request thread over to the bulkhead thread running its work.
+ */
+public class RequestContextTaskDecorator implements TaskDecorator
+{
+    @Override
+    public Runnable decorate( Runnable runnable )
+    {
+	RequestAttributes requestAttributes = RequestContextHolder.getRequestAttributes( );
+	Runnable withClientAddress = ClientAddressFilter.propagate( runnable );
+
+	return ( ) -> {
+	    RequestContextHolder.setRequestAttributes( requestAttributes );
+	    try
+	    {
+		withClientAddress.run( );
+	    }
+	    finally
+	    {
+		RequestContextHolder.resetRequestAttributes( );
+	    }
+	};
+    }
+}
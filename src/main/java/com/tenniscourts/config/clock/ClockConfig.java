@@ -0,0 +1,16 @@
+package com.tenniscourts.config.clock;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Clock;
+
+@Configuration
+public class ClockConfig
+{
+    @Bean
+    public Clock clock( )
+    {
+	return Clock.systemDefaultZone( );
+    }
+}
@@ -0,0 +1,51 @@
+package com.tenniscourts.config.http;
+
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import java.time.temporal.ChronoUnit;
+import java.util.function.Supplier;
+
+/**
+ * Conditional GET for the polled read endpoints. The version comes from a light query on the version columns, and a
+ * client already holding it gets a 304 before the payload graph is loaded or serialized. If-None-Match wins over
+ * If-Modified-Since, as RFC 7232 asks.
+ */
+public final class ConditionalResponses
+{
+    private ConditionalResponses( )
+    {
+    }
+
+    public static <T> ResponseEntity<T> of( HttpHeaders requestHeaders, ResourceVersion version,
+		    CacheControl cacheControl, Supplier<T> body )
+    {
+	boolean notModified = isNotModified( requestHeaders, version );
+	ResponseEntity.BodyBuilder response = notModified ? ResponseEntity.status( HttpStatus.NOT_MODIFIED )
+			: ResponseEntity.ok( );
+	response.eTag( version.getETag( ) ).cacheControl( cacheControl );
+	if( version.getLastModified( ) != null )
+	    response.lastModified( version.getLastModified( ) );
+
+	return notModified ? response.build( ) : response.body( body.get( ) );
+    }
+
+    static boolean isNotModified( HttpHeaders requestHeaders, ResourceVersion version )
+    {
+	if( !requestHeaders.getIfNoneMatch( ).isEmpty( ) )
+	    return requestHeaders.getIfNoneMatch( ).stream( )
+			    .anyMatch( tag -> "*".equals( tag ) || weak( tag ).equals( weak( version.getETag( ) ) ) );
+
+	// HTTP dates only carry seconds
+	long ifModifiedSince = requestHeaders.getIfModifiedSince( );
+	return ifModifiedSince >= 0 && version.getLastModified( ) != null
+			&& version.getLastModified( ).truncatedTo( ChronoUnit.SECONDS ).toEpochMilli( ) <= ifModifiedSince;
+    }
+
+    private static String weak( String tag )
+    {
+	return tag.startsWith( "W/" ) ? tag.substring( 2 ) : tag;
+    }
+}
@@ -0,0 +1,34 @@
+package com.tenniscourts.config.http;
+
+import lombok.Value;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.stream.Collectors;
+
+/**
+ * Validators of a representation: a weak entity tag (the payload is rebuilt on every request, so it is only
+ * semantically equivalent) and the last modification date, absent for rows written without audit columns.
+ */
+@Value
+public class ResourceVersion
+{
+    String eTag;
+
+    Instant lastModified;
+
+    /**
+     * Tags the resource with its identity and counters, plus the last modification date to the millisecond.
+     */
+    public static ResourceVersion of( LocalDateTime lastModified, Object... identity )
+    {
+	Instant instant = lastModified == null ? null : lastModified.atZone( ZoneId.systemDefault( ) ).toInstant( );
+	String tag = Arrays.stream( identity ).map( Objects::toString ).collect( Collectors.joining( "-" ) ) + "-"
+			+ ( instant == null ? 0 : instant.toEpochMilli( ) );
+
+	return new ResourceVersion( "W/\"" + tag + "\"", instant );
+    }
+}
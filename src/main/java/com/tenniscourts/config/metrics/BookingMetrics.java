@@ -0,0 +1,46 @@
+package com.tenniscourts.config.metrics;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+/**
+ * Counters for requests turned down by the booking rules, tagged by the service method that rejected them, and for
+ * committed transitions the reservation journal could not take.
+ */
+@Component
+@RequiredArgsConstructor
+public class BookingMetrics
+{
+    public static final String CONFLICTS = "tenniscourts.booking.conflicts";
+
+    public static final String PAST_DATE_REJECTIONS = "tenniscourts.past.date.rejections";
+
+    public static final String JOURNAL_FAILURES = "tenniscourts.journal.failures";
+
+    private final MeterRegistry meterRegistry;
+
+    /**
+     * A slot that already holds an active reservation was booked again.
+     */
+    public void conflict( String operation )
+    {
+	meterRegistry.counter( CONFLICTS, "operation", operation ).increment( );
+    }
+
+    /**
+     * A reservation or a slot was requested on the past.
+     */
+    public void pastDateRejected( String operation )
+    {
+	meterRegistry.counter( PAST_DATE_REJECTIONS, "operation", operation ).increment( );
+    }
+
+    /**
+     * A committed reservation transition could not be appended to the journal.
+     */
+    public void journalFailed( )
+    {
+	meterRegistry.counter( JOURNAL_FAILURES ).increment( );
+    }
+}
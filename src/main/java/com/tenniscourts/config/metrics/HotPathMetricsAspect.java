@@ -0,0 +1,99 @@
+package com.tenniscourts.config.metrics;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.RequiredArgsConstructor;
+import lombok.Value;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.aop.framework.AopProxyUtils;
+import org.springframework.data.repository.Repository;
+import org.springframework.stereotype.Component;
+import org.springframework.util.ClassUtils;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Times every public method of the services and of the repositories (Spring Data and JDBC) with a latency histogram,
+ * tagged by class, method and the exception thrown, if any. The timers are registered once per tag set and then
+ * looked up, so a call only pays for a map lookup.
+ * <p>
+ * Only calls through the Spring proxy are timed: a bean calling one of its own methods is counted in the time of the
+ * outer call, not on its own.
+ */
+@Aspect
+@Component
+@RequiredArgsConstructor
+public class HotPathMetricsAspect
+{
+    public static final String SERVICE_TIMER = "tenniscourts.service";
+
+    public static final String REPOSITORY_TIMER = "tenniscourts.repository";
+
+    private final MeterRegistry meterRegistry;
+
+    private final Map<TimerKey, Timer> timers = new ConcurrentHashMap<>( );
+
+    @Around( "within(@org.springframework.stereotype.Service com.tenniscourts..*) && execution(public * *(..)) "
+		    + "&& !execution(* get*Mapper())" )
+    public Object timeService( ProceedingJoinPoint joinPoint ) throws Throwable
+    {
+	return time( SERVICE_TIMER, ClassUtils.getUserClass( joinPoint.getTarget( ) ), joinPoint );
+    }
+
+    @Around( "this(org.springframework.data.repository.Repository) "
+		    + "|| ( within(@org.springframework.stereotype.Repository com.tenniscourts..*) && execution(public * *(..)) )" )
+    public Object timeRepository( ProceedingJoinPoint joinPoint ) throws Throwable
+    {
+	// Spring Data repositories are interfaces backed by a shared implementation class
+	Class<?> repository = joinPoint.getThis( ) instanceof Repository
+			? AopProxyUtils.proxiedUserInterfaces( joinPoint.getThis( ) )[ 0 ]
+			: ClassUtils.getUserClass( joinPoint.getTarget( ) );
+
+	return time( REPOSITORY_TIMER, repository, joinPoint );
+    }
+
+    private Object time( String name, Class<?> type, ProceedingJoinPoint joinPoint ) throws Throwable
+    {
+	Timer.Sample sample    = Timer.start( meterRegistry );
+	String       exception = "none";
+	try
+	{
+	    return joinPoint.proceed( );
+	}
+	catch( Throwable e )
+	{
+	    exception = e.getClass( ).getSimpleName( );
+	    throw e;
+	}
+	finally
+	{
+	    sample.stop( timers.computeIfAbsent( new TimerKey( name, type, joinPoint.getSignature( ).getName( ), exception ),
+			    this::register ) );
+	}
+    }
+
+    private Timer register( TimerKey timerKey )
+    {
+	return Timer.builder( timerKey.getName( ) )
+			.tag( "class", timerKey.getType( ).getSimpleName( ) )
+			.tag( "method", timerKey.getMethod( ) )
+			.tag( "exception", timerKey.getException( ) )
+			.publishPercentileHistogram( )
+			.register( meterRegistry );
+    }
+
+    @Value
+    private static class TimerKey
+    {
+	private String name;
+
+	private Class<?> type;
+
+	private String method;
+
+	private String exception;
+    }
+}
@@ -0,0 +1,64 @@
+package com.tenniscourts.config.persistence;
+
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementSetter;
+import org.springframework.jdbc.core.RowCallbackHandler;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * Forward-only reads that hand each row over as it comes off the cursor. H2 ignores the fetch size and builds the whole
+ * result before the first row unless the session executes queries lazily, so lazy execution is switched on for the
+ * query and back off before the connection returns to the pool.
+ */
+public final class JdbcStreams
+{
+    public static final int FETCH_SIZE = 500;
+
+    private JdbcStreams( )
+    {
+    }
+
+    public static void query( JdbcTemplate jdbcTemplate, String sql, PreparedStatementSetter parameters,
+		    RowCallbackHandler rowCallbackHandler )
+    {
+	jdbcTemplate.execute( ( ConnectionCallback<Void> ) connection -> {
+	    lazyQueryExecution( connection, true );
+	    try( PreparedStatement statement = connection.prepareStatement( sql, ResultSet.TYPE_FORWARD_ONLY,
+			    ResultSet.CONCUR_READ_ONLY ) )
+	    {
+		statement.setFetchSize( FETCH_SIZE );
+		parameters.setValues( statement );
+		try( ResultSet resultSet = statement.executeQuery( ) )
+		{
+		    while( resultSet.next( ) )
+			rowCallbackHandler.processRow( resultSet );
+		}
+	    }
+	    finally
+	    {
+		lazyQueryExecution( connection, false );
+	    }
+	    return null;
+	} );
+    }
+
+    public static void query( JdbcTemplate jdbcTemplate, String sql, RowCallbackHandler rowCallbackHandler )
+    {
+	query( jdbcTemplate, sql, statement -> {
+	}, rowCallbackHandler );
+    }
+
+    private static void lazyQueryExecution( Connection connection, boolean lazy ) throws SQLException
+    {
+	try( Statement statement = connection.createStatement( ) )
+	{
+	    statement.execute( "set lazy_query_execution " + ( lazy ? 1 : 0 ) );
+	}
+    }
+}
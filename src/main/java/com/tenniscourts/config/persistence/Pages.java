@@ -0,0 +1,19 @@
+package com.tenniscourts.config.persistence;
+
+/**
+ * The page size bound shared by every paged listing, so that no listing can be used to read more at once than another.
+ */
+public final class Pages
+{
+    public static final int MAX_SIZE = 1_000;
+
+    private Pages( )
+    {
+    }
+
+    public static void checkSize( int size )
+    {
+	if( size < 1 || size > MAX_SIZE )
+	    throw new IllegalArgumentException( "The page size must be between 1 and " + MAX_SIZE );
+    }
+}
@@ -0,0 +1,28 @@
+package com.tenniscourts.config.sql;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * {@code GET /actuator/slowqueries?limit=10}: the slowest SQL shapes, see {@link SlowQueryDetector#slowest(int)}.
+ */
+@Component
+@Endpoint( id = "slowqueries" )
+@RequiredArgsConstructor
+public class SlowQueriesEndpoint
+{
+    private static final int DEFAULT_LIMIT = 10;
+
+    private final SlowQueryDetector slowQueryDetector;
+
+    @ReadOperation
+    public List<SqlShapeStatsDTO> slowest( @Nullable Integer limit )
+    {
+	return slowQueryDetector.slowest( limit == null ? DEFAULT_LIMIT : Math.max( 1, limit ) );
+    }
+}
@@ -0,0 +1,144 @@
+package com.tenniscourts.config.sql;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.distribution.HistogramSnapshot;
+import io.micrometer.core.instrument.distribution.ValueAtPercentile;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.DigestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Times every SQL statement run through the {@link SqlTimingProxies} per {@link SqlShapes shape}, and logs the
+ * statements slower than the threshold. Replaces {@code show-sql} and the trace logging of the binds, which log every
+ * statement.
+ * <p>
+ * Each shape is a timer with its median and 99th percentile computed in process: two gauges, no histogram buckets. The
+ * bind values hold guest data, so they are only logged, after the statement, at debug level.
+ */
+@Slf4j
+@Component
+public class SlowQueryDetector
+{
+    public static final String TIMER = "tenniscourts.sql";
+
+    /**
+     * New shapes past this many are still logged when slow, but not timed: each shape is a meter.
+     */
+    static final int MAX_SHAPES = 200;
+
+    /**
+     * Statements whose shape is remembered, so the usual ones are only normalized once.
+     */
+    private static final int MAX_STATEMENTS = 10_000;
+
+    private static final double P50 = 0.5;
+    private static final double P99 = 0.99;
+
+    private final long thresholdNanos;
+
+    private final MeterRegistry meterRegistry;
+
+    private final ConcurrentMap<String, ShapeTimer> shapes = new ConcurrentHashMap<>( );
+
+    private final ConcurrentMap<String, ShapeTimer> statements = new ConcurrentHashMap<>( );
+
+    public SlowQueryDetector( @Value( "${tenniscourts.sql.slow-threshold-ms:100}" ) long thresholdMillis,
+		    MeterRegistry meterRegistry )
+    {
+	this.thresholdNanos = TimeUnit.MILLISECONDS.toNanos( thresholdMillis );
+	this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * @param binds the parameters in index order, null for a batch or a plain statement
+     */
+    public void record( String sql, long nanos, Collection<Object> binds )
+    {
+	ShapeTimer timer = statements.get( sql );
+	if( timer == null )
+	    timer = shape( sql );
+	if( timer != null )
+	    timer.getTimer( ).record( nanos, TimeUnit.NANOSECONDS );
+
+	if( nanos < thresholdNanos )
+	    return;
+
+	log.warn( "Slow SQL ({} ms): {}", TimeUnit.NANOSECONDS.toMillis( nanos ), SqlShapes.oneLine( sql ) );
+	if( binds != null )
+	    log.debug( "Slow SQL binds: {}", binds );
+    }
+
+    /**
+     * The shapes with the highest recent 99th percentile first.
+     */
+    public List<SqlShapeStatsDTO> slowest( int limit )
+    {
+	return shapes.values( ).stream( ).map( ShapeTimer::stats )
+			.sorted( Comparator.comparingDouble( SqlShapeStatsDTO::getP99Millis ).reversed( )
+					.thenComparing( Comparator.comparingDouble( SqlShapeStatsDTO::getTotalMillis ).reversed( ) ) )
+			.limit( limit ).collect( Collectors.toList( ) );
+    }
+
+    private ShapeTimer shape( String sql )
+    {
+	String     shape = SqlShapes.normalize( sql );
+	ShapeTimer timer = shapes.get( shape );
+	if( timer == null && shapes.size( ) < MAX_SHAPES )
+	    timer = shapes.computeIfAbsent( shape, this::register );
+	if( timer != null && statements.size( ) < MAX_STATEMENTS )
+	    statements.put( sql, timer );
+
+	return timer;
+    }
+
+    private ShapeTimer register( String shape )
+    {
+	// Stable across restarts, so dashboards can follow a shape
+	String id = DigestUtils.md5DigestAsHex( shape.getBytes( StandardCharsets.UTF_8 ) ).substring( 0, 12 );
+
+	return new ShapeTimer( id, shape, Timer.builder( TIMER ).tag( "shape", id )
+			.publishPercentiles( P50, P99 ).register( meterRegistry ) );
+    }
+
+    @Getter
+    @AllArgsConstructor
+    private static class ShapeTimer
+    {
+	private final String id;
+
+	private final String sql;
+
+	private final Timer timer;
+
+	SqlShapeStatsDTO stats( )
+	{
+	    HistogramSnapshot snapshot = timer.takeSnapshot( );
+	    double p50 = 0;
+	    double p99 = 0;
+	    for( ValueAtPercentile percentile : snapshot.percentileValues( ) )
+	    {
+		if( percentile.percentile( ) == P50 )
+		    p50 = percentile.value( TimeUnit.MILLISECONDS );
+		else if( percentile.percentile( ) == P99 )
+		    p99 = percentile.value( TimeUnit.MILLISECONDS );
+	    }
+
+	    // The snapshot's totals are in the base unit of the registry, the timer's are not
+	    return new SqlShapeStatsDTO( id, sql, timer.count( ), timer.totalTime( TimeUnit.MILLISECONDS ),
+			    timer.mean( TimeUnit.MILLISECONDS ), p50, p99, timer.max( TimeUnit.MILLISECONDS ) );
+	}
+    }
+}
@@ -0,0 +1,35 @@
+package com.tenniscourts.config.sql;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class SqlShapeStatsDTO
+{
+    /**
+     * The shape tag of the {@link SlowQueryDetector#TIMER} meters.
+     */
+    private String shape;
+
+    private String sql;
+
+    private long count;
+
+    private double totalMillis;
+
+    private double meanMillis;
+
+    /**
+     * Percentiles and max of the recent executions (the last few minutes); count and totals since the start.
+     */
+    private double p50Millis;
+
+    private double p99Millis;
+
+    private double maxMillis;
+}
@@ -0,0 +1,40 @@
+package com.tenniscourts.config.sql;
+
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+/**
+ * Reduces a SQL statement to its shape: the statements of one query, whatever their values, land on a single shape.
+ */
+public final class SqlShapes
+{
+    private static final Pattern STRING_LITERALS = Pattern.compile( "'(?:[^']|'')*'" );
+
+    private static final Pattern NUMBER_LITERALS = Pattern.compile( "(?<![\\w.])-?\\d+(?:\\.\\d+)?(?![\\w.])" );
+
+    private static final Pattern IN_LISTS = Pattern.compile( "\\(\\s*\\?(?:\\s*,\\s*\\?)*\\s*\\)" );
+
+    private static final Pattern WHITESPACE = Pattern.compile( "\\s+" );
+
+    private SqlShapes( )
+    {
+    }
+
+    /**
+     * Literals become parameters, lists of parameters (e.g. {@code in ( ?, ?, ? )}) a single one, and the text is folded
+     * to lower case on one line.
+     */
+    public static String normalize( String sql )
+    {
+	String shape = STRING_LITERALS.matcher( sql ).replaceAll( "?" );
+	shape = NUMBER_LITERALS.matcher( shape ).replaceAll( "?" );
+	shape = IN_LISTS.matcher( shape ).replaceAll( "(?)" );
+
+	return oneLine( shape ).toLowerCase( Locale.ROOT );
+    }
+
+    public static String oneLine( String sql )
+    {
+	return WHITESPACE.matcher( sql ).replaceAll( " " ).trim( );
+    }
+}
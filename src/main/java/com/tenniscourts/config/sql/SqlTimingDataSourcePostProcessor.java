@@ -0,0 +1,26 @@
+package com.tenniscourts.config.sql;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+
+/**
+ * Wraps the data sources in the {@link SqlTimingProxies}. The detector is only looked up with the first statement: a
+ * post processor creating it, and the meter registry, this early would leave them unprocessed.
+ */
+@Component
+@RequiredArgsConstructor
+public class SqlTimingDataSourcePostProcessor implements BeanPostProcessor
+{
+    private final ObjectProvider<SlowQueryDetector> slowQueryDetector;
+
+    @Override
+    public Object postProcessAfterInitialization( Object bean, String beanName )
+    {
+	return bean instanceof DataSource ? SqlTimingProxies.dataSource( ( DataSource ) bean, slowQueryDetector::getObject )
+			: bean;
+    }
+}
@@ -0,0 +1,140 @@
+package com.tenniscourts.config.sql;
+
+import org.springframework.util.ClassUtils;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * JDBC proxies timing every statement for the {@link SlowQueryDetector}: Hibernate, Spring Data and the plain JDBC
+ * repositories all go through them. Only the execution is timed, not the reading of the rows.
+ * <p>
+ * Everything else reaches the pool's own objects, and {@code unwrap} still finds them.
+ */
+public final class SqlTimingProxies
+{
+    private SqlTimingProxies( )
+    {
+    }
+
+    public static DataSource dataSource( DataSource dataSource, Supplier<SlowQueryDetector> detector )
+    {
+	// With all of the pool's interfaces, so it is still closed with the context
+	return proxy( DataSource.class, ClassUtils.getAllInterfaces( dataSource ), ( method, args ) -> {
+	    Object result = invoke( dataSource, method, args );
+	    return result instanceof Connection ? connection( ( Connection ) result, detector ) : result;
+	} );
+    }
+
+    private static Connection connection( Connection connection, Supplier<SlowQueryDetector> detector )
+    {
+	return proxy( Connection.class, new Class<?>[] { Connection.class }, ( method, args ) -> {
+	    Object result = invoke( connection, method, args );
+	    if( result instanceof CallableStatement )
+		return statement( CallableStatement.class, ( Statement ) result, ( String ) args[ 0 ], detector );
+	    if( result instanceof PreparedStatement )
+		return statement( PreparedStatement.class, ( Statement ) result, ( String ) args[ 0 ], detector );
+	    if( result instanceof Statement )
+		return statement( Statement.class, ( Statement ) result, null, detector );
+
+	    return result;
+	} );
+    }
+
+    /**
+     * @param sql the statement of a prepared one, null for a plain one: its SQL comes with each execution
+     */
+    private static <T extends Statement> T statement( Class<T> type, Statement statement, String sql,
+		    Supplier<SlowQueryDetector> detector )
+    {
+	List<Object> binds = new ArrayList<>( );
+
+	return proxy( type, new Class<?>[] { type }, ( method, args ) -> {
+	    String name = method.getName( );
+	    if( !name.startsWith( "execute" ) )
+	    {
+		if( sql != null )
+		    bind( binds, name, args );
+		return invoke( statement, method, args );
+	    }
+
+	    boolean isPrepared = args == null || args.length == 0 || !( args[ 0 ] instanceof String );
+	    boolean isBatch    = "executeBatch".equals( name );
+	    String  executed   = isPrepared ? sql : ( String ) args[ 0 ];
+	    long    start      = System.nanoTime( );
+	    try
+	    {
+		return invoke( statement, method, args );
+	    }
+	    finally
+	    {
+		if( executed != null )
+		    detector.get( ).record( executed, System.nanoTime( ) - start,
+				    isPrepared && !isBatch ? new ArrayList<>( binds ) : null );
+	    }
+	} );
+    }
+
+    /**
+     * Keeps the values of the {@code setXxx( index, value, ... )} calls, by index.
+     */
+    private static void bind( List<Object> binds, String name, Object[] args )
+    {
+	if( "clearParameters".equals( name ) || "addBatch".equals( name ) )
+	{
+	    binds.clear( );
+	    return;
+	}
+	if( !name.startsWith( "set" ) || args == null || args.length < 2 || !( args[ 0 ] instanceof Integer ) )
+	    return;
+
+	int index = ( Integer ) args[ 0 ] - 1;
+	while( binds.size( ) <= index )
+	    binds.add( null );
+	binds.set( index, "setNull".equals( name ) ? null : args[ 1 ] );
+    }
+
+    private static Object invoke( Object target, Method method, Object[] args ) throws Throwable
+    {
+	try
+	{
+	    return method.invoke( target, args );
+	}
+	catch( InvocationTargetException e )
+	{
+	    throw e.getTargetException( );
+	}
+    }
+
+    private static <T> T proxy( Class<T> type, Class<?>[] interfaces, Handler handler )
+    {
+	InvocationHandler invocationHandler = ( proxy, method, args ) -> {
+	    // Identity: the target's own equals would never match its proxy
+	    if( "equals".equals( method.getName( ) ) && method.getParameterCount( ) == 1 )
+		return proxy == args[ 0 ];
+	    if( "hashCode".equals( method.getName( ) ) && method.getParameterCount( ) == 0 )
+		return System.identityHashCode( proxy );
+
+	    return handler.handle( method, args );
+	};
+
+	return type.cast( Proxy.newProxyInstance( SqlTimingProxies.class.getClassLoader( ), interfaces,
+			invocationHandler ) );
+    }
+
+    @FunctionalInterface
+    private interface Handler
+    {
+	Object handle( Method method, Object[] args ) throws Throwable;
+    }
+}
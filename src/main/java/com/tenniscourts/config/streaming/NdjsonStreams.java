@@ -0,0 +1,50 @@
+package com.tenniscourts.config.streaming;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import org.springframework.http.MediaType;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.function.Consumer;
+
+/**
+ * Writes newline delimited JSON (one document per line) as rows are produced, so large results never sit on the heap.
+ */
+public final class NdjsonStreams
+{
+    public static final String APPLICATION_NDJSON_VALUE = "application/x-ndjson";
+
+    public static final MediaType APPLICATION_NDJSON = MediaType.parseMediaType( APPLICATION_NDJSON_VALUE );
+
+    private NdjsonStreams( )
+    {
+    }
+
+    public static <T> StreamingResponseBody of( ObjectMapper objectMapper, Consumer<Consumer<T>> producer )
+    {
+	ObjectWriter writer = objectMapper.writer( );
+
+	return outputStream -> {
+	    try
+	    {
+		producer.accept( row -> {
+		    try
+		    {
+			outputStream.write( writer.writeValueAsBytes( row ) );
+			outputStream.write( '\n' );
+		    }
+		    catch( IOException e )
+		    {
+			throw new UncheckedIOException( e );
+		    }
+		} );
+	    }
+	    catch( UncheckedIOException e )
+	    {
+		throw e.getCause( );
+	    }
+	};
+    }
+}
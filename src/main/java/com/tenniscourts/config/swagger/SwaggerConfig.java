@@ -2,11 +2,14 @@ package com.tenniscourts.config.swagger;
 
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpHeaders;
 import springfox.documentation.builders.PathSelectors;
 import springfox.documentation.builders.RequestHandlerSelectors;
 import springfox.documentation.spi.DocumentationType;
 import springfox.documentation.spring.web.plugins.Docket;
 
+import java.util.concurrent.CompletableFuture;
+
 
 @Configuration
 public class SwaggerConfig {
@@ -16,6 +19,9 @@ public class SwaggerConfig {
         return new Docket(DocumentationType.SWAGGER_2)
                 .select().apis(RequestHandlerSelectors.basePackage("com.tenniscourts"))
                 .paths(PathSelectors.any())
-                .build();
+                .build()
+                .genericModelSubstitutes(CompletableFuture.class)
+                // Conditional GET headers are read as a whole, not documented as parameters
+                .ignoredParameterTypes(HttpHeaders.class);
     }
 }
@@ -2,6 +2,7 @@ package com.tenniscourts.exceptions;
 
 import org.springframework.core.Ordered;
 import org.springframework.core.annotation.Order;
+import org.springframework.core.task.TaskRejectedException;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
@@ -57,6 +58,15 @@ public class CustomResponseEntityExceptionHandler extends ResponseEntityExceptio
 	return new ResponseEntity<>( errorDetails, BAD_REQUEST );
     }
 
+    @ExceptionHandler( TaskRejectedException.class )
+    public final ResponseEntity<ErrorDetails> handleTaskRejected( TaskRejectedException ex, WebRequest request )
+    {
+	ErrorDetails errorDetails = new ErrorDetails( LocalDateTime.now( ), "The service is busy, try again shortly.",
+			request.getDescription( false ) );
+	return ResponseEntity.status( HttpStatus.SERVICE_UNAVAILABLE ).header( HttpHeaders.RETRY_AFTER, "1" )
+			.body( errorDetails );
+    }
+
     @Override
     protected ResponseEntity<Object> handleMissingServletRequestParameter( MissingServletRequestParameterException ex,
 		    HttpHeaders headers, HttpStatus status, WebRequest request )
@@ -8,11 +8,12 @@ import lombok.NoArgsConstructor;
 
 import javax.persistence.Column;
 import javax.persistence.Entity;
+import javax.persistence.Index;
 import javax.persistence.Table;
 import javax.validation.constraints.NotNull;
 
 @Entity
-@Table
+@Table( indexes = @Index( name = "idx_guest_name", columnList = "name" ) )
 @Data
 @Builder
 @NoArgsConstructor
@@ -1,61 +1,106 @@
 package com.tenniscourts.guests;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.tenniscourts.config.BaseRestController;
+import com.tenniscourts.config.async.Bulkheads;
+import com.tenniscourts.config.http.ConditionalResponses;
+import com.tenniscourts.config.streaming.NdjsonStreams;
 import io.swagger.annotations.ApiOperation;
 import lombok.AllArgsConstructor;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
 
 @AllArgsConstructor
 @RestController
 @RequestMapping( "/guests" )
 public class GuestController extends BaseRestController
 {
+    // Personal data, only for the client's own cache; names seldom change
+    private static final CacheControl GUEST_CACHE_CONTROL = CacheControl.maxAge( 30, TimeUnit.SECONDS ).cachePrivate( );
+
     private final GuestService guestService;
+    private final ObjectMapper objectMapper;
+    private final Bulkheads    bulkheads;
 
     @GetMapping
     @ApiOperation( value = "List all guests" )
-    public ResponseEntity<List<GuestDTO>> listAll( )
+    public CompletableFuture<ResponseEntity<List<GuestDTO>>> listAll( )
+    {
+	return bulkheads.read( ( ) -> ResponseEntity.ok( guestService.findAll( ) ) );
+    }
+
+    @GetMapping( "/page" )
+    @ApiOperation( value = "List a page of guests ordered by id, starting after the given id" )
+    public CompletableFuture<ResponseEntity<GuestPageDTO>> listPage(
+		    @RequestParam( value = "afterId", required = false ) Long afterId,
+		    @RequestParam( value = "size", defaultValue = "100" ) int size )
+    {
+	return bulkheads.read( ( ) -> ResponseEntity.ok( guestService.findPage( afterId, size ) ) );
+    }
+
+    @GetMapping( value = "/stream", produces = NdjsonStreams.APPLICATION_NDJSON_VALUE )
+    @ApiOperation( value = "Stream all guests ordered by id as newline delimited JSON" )
+    public ResponseEntity<StreamingResponseBody> streamAll( )
     {
-	return ResponseEntity.ok( guestService.findAll( ) );
+	return ResponseEntity.ok( ).contentType( NdjsonStreams.APPLICATION_NDJSON )
+			.body( NdjsonStreams.of( objectMapper, guestService::streamAll ) );
     }
 
     @GetMapping( "/{guestId}" )
     @ApiOperation( value = "Find a guest by id" )
-    public ResponseEntity<GuestDTO> listById( @PathVariable Long guestId )
+    public CompletableFuture<ResponseEntity<GuestDTO>> listById( @PathVariable Long guestId,
+		    @RequestHeader HttpHeaders requestHeaders )
     {
-	return ResponseEntity.ok( guestService.findById( guestId ) );
+	return bulkheads.read( ( ) -> ConditionalResponses.of( requestHeaders, guestService.findVersion( guestId ),
+			GUEST_CACHE_CONTROL, ( ) -> guestService.findCurrentById( guestId ) ) );
     }
 
     @GetMapping( "/guest" )
     @ApiOperation( value = "Find a guest by name" )
-    public ResponseEntity<GuestDTO> listByName( @RequestParam( value = "name" ) String guestName )
+    public CompletableFuture<ResponseEntity<GuestDTO>> listByName( @RequestParam( value = "name" ) String guestName )
+    {
+	return bulkheads.read( ( ) -> ResponseEntity.ok( guestService.findByName( guestName ) ) );
+    }
+
+    // Answered from memory by the guest name index, no need for a bulkhead
+    @GetMapping( "/search" )
+    @ApiOperation( value = "Search guests by the start of their names, tolerating typos, best matches first" )
+    public ResponseEntity<GuestSearchPageDTO> search( @RequestParam( value = "q" ) String text,
+		    @RequestParam( value = "page", defaultValue = "0" ) int page,
+		    @RequestParam( value = "size", defaultValue = "20" ) int size )
     {
-	return ResponseEntity.ok( guestService.findByName( guestName ) );
+	return ResponseEntity.ok( guestService.search( text, page, size ) );
     }
 
     @PostMapping
     @ApiOperation( value = "Add a guest" )
-    public ResponseEntity<GuestDTO> add( @RequestBody GuestDTO guestDTO )
+    public CompletableFuture<ResponseEntity<GuestDTO>> add( @RequestBody GuestDTO guestDTO )
     {
-	return ResponseEntity.ok( guestService.add( guestDTO ) );
+	return bulkheads.write( ( ) -> ResponseEntity.ok( guestService.add( guestDTO ) ) );
     }
 
     @PutMapping
     @ApiOperation( value = "Update a guest" )
-    public ResponseEntity<GuestDTO> update( @RequestBody GuestDTO guestDTO )
+    public CompletableFuture<ResponseEntity<GuestDTO>> update( @RequestBody GuestDTO guestDTO )
     {
-	return ResponseEntity.ok( guestService.update( guestDTO ) );
+	return bulkheads.write( ( ) -> ResponseEntity.ok( guestService.update( guestDTO ) ) );
     }
 
     @DeleteMapping( "/{guestId}" )
     @ApiOperation( value = "Delete a guest" )
-    public ResponseEntity<Void> delete( @PathVariable Long guestId )
+    public CompletableFuture<ResponseEntity<Void>> delete( @PathVariable Long guestId )
     {
-	guestService.delete( guestId );
-	return ResponseEntity.ok( ).build( );
+	return bulkheads.write( ( ) -> {
+	    guestService.delete( guestId );
+	    return ResponseEntity.ok( ).build( );
+	} );
     }
 
 }
\ No newline at end of file
@@ -0,0 +1,29 @@
+package com.tenniscourts.guests;
+
+import com.tenniscourts.config.persistence.JdbcStreams;
+import lombok.AllArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.util.function.Consumer;
+
+/**
+ * Forward-only reads of the guest table, for listings too large to be loaded as entities.
+ */
+@Repository
+@AllArgsConstructor
+public class GuestJdbcRepository
+{
+    private static final String STREAM_ALL_SQL = "select id, name from guest order by id";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Hands every guest to the consumer, in id order, as it comes off a forward-only cursor.
+     */
+    public void streamAll( Consumer<GuestDTO> consumer )
+    {
+	JdbcStreams.query( jdbcTemplate, STREAM_ALL_SQL, resultSet -> consumer.accept(
+			GuestDTO.builder( ).id( resultSet.getLong( 1 ) ).name( resultSet.getString( 2 ) ).build( ) ) );
+    }
+}
@@ -0,0 +1,306 @@
+package com.tenniscourts.guests;
+
+import lombok.RequiredArgsConstructor;
+import lombok.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * In-memory trigram index of the guest names, built at startup and kept current by {@link GuestService}. Names and
+ * queries are folded to lower case without accents; every word is padded in front, so its first trigrams also match
+ * one or two letter prefixes.
+ * <p>
+ * A guest matches when the words of the query start words of its name ("fed" finds "Roger Federer"), or, for queries of
+ * {@link #FUZZY_MIN_TRIGRAMS} trigrams or more, when it shares {@link #FUZZY_MIN_SHARED} of their trigrams ("federr"
+ * still finds him). Matches are ranked exact name, name prefix, word prefix and fuzzy, then by trigram similarity.
+ * <p>
+ * Guests are numbered densely as they are indexed and the posting lists hold those ordinals, so a search walks plain
+ * arrays and only touches the names of the candidates.
+ */
+@Component
+@RequiredArgsConstructor
+public class GuestNameIndex
+{
+    static final int    FUZZY_MIN_TRIGRAMS = 4;
+    static final double FUZZY_MIN_SHARED   = 0.7;
+
+    private static final int EXACT       = 3;
+    private static final int NAME_PREFIX = 2;
+    private static final int WORD_PREFIX = 1;
+    private static final int FUZZY       = 0;
+
+    private static final Pattern MARKS      = Pattern.compile( "\\p{M}+" );
+    private static final Pattern SEPARATORS = Pattern.compile( "[^\\p{L}\\p{N}]+" );
+
+    private static final Comparator<Match> BEST_FIRST = Comparator.comparingDouble( Match::getScore ).reversed( )
+		    .thenComparing( Match::getFolded ).thenComparingLong( Match::getGuestId );
+
+    private final GuestJdbcRepository guestJdbcRepository;
+
+    private final Map<String, GuestNamePostings> postings = new HashMap<>( );
+
+    private final Map<Long, Integer> ordinals = new HashMap<>( );
+
+    private long[]   guestIds      = new long[ 0 ];
+    private String[] names         = new String[ 0 ];
+    private String[] foldedNames   = new String[ 0 ];
+    private int[]    trigramCounts = new int[ 0 ];
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock( );
+
+    @EventListener( ApplicationReadyEvent.class )
+    public void warmUp( )
+    {
+	lock.writeLock( ).lock( );
+	try
+	{
+	    postings.clear( );
+	    ordinals.clear( );
+	    guestJdbcRepository.streamAll( guest -> add( guest.getId( ), guest.getName( ) ) );
+	}
+	finally
+	{
+	    lock.writeLock( ).unlock( );
+	}
+    }
+
+    public void put( Long guestId, String name )
+    {
+	lock.writeLock( ).lock( );
+	try
+	{
+	    delete( guestId );
+	    add( guestId, name );
+	}
+	finally
+	{
+	    lock.writeLock( ).unlock( );
+	}
+    }
+
+    public void remove( Long guestId )
+    {
+	lock.writeLock( ).lock( );
+	try
+	{
+	    delete( guestId );
+	}
+	finally
+	{
+	    lock.writeLock( ).unlock( );
+	}
+    }
+
+    /**
+     * Ranks every matching guest but only keeps the best ones up to the requested page.
+     */
+    public GuestSearchPageDTO search( String query, int page, int size )
+    {
+	String folded = fold( query );
+	if( folded.isEmpty( ) )
+	    throw new IllegalArgumentException( "The search text must have letters or digits" );
+
+	String[] queryWords = folded.split( " " );
+	Set<String> queryTrigrams = trigrams( queryWords, false );
+	int minShared = queryTrigrams.size( ) < FUZZY_MIN_TRIGRAMS ? queryTrigrams.size( )
+			: ( int ) Math.ceil( queryTrigrams.size( ) * FUZZY_MIN_SHARED );
+
+	int keep = ( page + 1 ) * size;
+	PriorityQueue<Match> best = new PriorityQueue<>( keep + 1, BEST_FIRST.reversed( ) );
+	int totalMatches = 0;
+
+	lock.readLock( ).lock( );
+	try
+	{
+	    GuestNamePostings[] lists = queryTrigrams.stream( ).map( postings::get ).filter( Objects::nonNull )
+			    .sorted( Comparator.comparingInt( GuestNamePostings::size ) ).toArray( GuestNamePostings[]::new );
+
+	    // A guest sharing minShared of the lists is in one of the smallest ones: only those are merged, the others
+	    // are probed by cursors moving forward with the merged ordinals
+	    int   drivers   = lists.length - minShared + 1;
+	    int[] positions = new int[ lists.length ];
+
+	    while( drivers > 0 )
+	    {
+		int ordinal = Integer.MAX_VALUE;
+		for( int i = 0; i < drivers; i++ )
+		    if( positions[ i ] < lists[ i ].size( ) )
+			ordinal = Math.min( ordinal, lists[ i ].get( positions[ i ] ) );
+		if( ordinal == Integer.MAX_VALUE )
+		    break;
+
+		int shared = 0;
+		for( int i = 0; i < lists.length; i++ )
+		{
+		    if( i >= drivers )
+		    {
+			if( shared + lists.length - i < minShared )
+			    break;
+			positions[ i ] = lists[ i ].seek( ordinal, positions[ i ] );
+		    }
+		    if( positions[ i ] < lists[ i ].size( ) && lists[ i ].get( positions[ i ] ) == ordinal )
+		    {
+			positions[ i ]++;
+			shared++;
+		    }
+		}
+		if( shared < minShared )
+		    continue;
+
+		int tier = tier( foldedNames[ ordinal ], folded, queryWords );
+		if( tier == FUZZY && queryTrigrams.size( ) < FUZZY_MIN_TRIGRAMS )
+		    continue;
+
+		totalMatches++;
+		double score = tier + ( double ) shared / ( queryTrigrams.size( ) + trigramCounts[ ordinal ] - shared );
+		if( best.size( ) == keep && score < best.peek( ).getScore( ) )
+		    continue;
+
+		best.add( new Match( guestIds[ ordinal ], names[ ordinal ], foldedNames[ ordinal ], score ) );
+		if( best.size( ) > keep )
+		    best.poll( );
+	    }
+	}
+	finally
+	{
+	    lock.readLock( ).unlock( );
+	}
+
+	List<Match> ranked = new ArrayList<>( best );
+	ranked.sort( BEST_FIRST );
+	List<GuestDTO> content = ranked.subList( Math.min( page * size, ranked.size( ) ), ranked.size( ) ).stream( )
+			.map( match -> GuestDTO.builder( ).id( match.getGuestId( ) ).name( match.getName( ) ).build( ) )
+			.collect( Collectors.toList( ) );
+
+	return new GuestSearchPageDTO( content, page, totalMatches );
+    }
+
+    static String fold( String text )
+    {
+	String withoutMarks = MARKS.matcher( Normalizer.normalize( text, Normalizer.Form.NFD ) ).replaceAll( "" );
+	return SEPARATORS.matcher( withoutMarks.toLowerCase( Locale.ROOT ) ).replaceAll( " " ).trim( );
+    }
+
+    /**
+     * Trigrams of the words padded with two spaces in front and, for whole words, one behind. Query words are left open
+     * at the end so they match as prefixes.
+     */
+    static Set<String> trigrams( String[] words, boolean isWholeWord )
+    {
+	Set<String> trigrams = new LinkedHashSet<>( );
+	for( String word : words )
+	{
+	    String padded = "  " + word + ( isWholeWord ? " " : "" );
+	    for( int i = 0; i + 3 <= padded.length( ); i++ )
+		trigrams.add( padded.substring( i, i + 3 ) );
+	}
+
+	return trigrams;
+    }
+
+    private static int tier( String foldedName, String folded, String[] queryWords )
+    {
+	if( foldedName.equals( folded ) )
+	    return EXACT;
+
+	if( foldedName.startsWith( folded ) )
+	    return NAME_PREFIX;
+
+	for( String queryWord : queryWords )
+	    if( !startsAWord( foldedName, queryWord ) )
+		return FUZZY;
+
+	return WORD_PREFIX;
+    }
+
+    private static boolean startsAWord( String foldedName, String prefix )
+    {
+	for( int at = 0; ; )
+	{
+	    if( foldedName.startsWith( prefix, at ) )
+		return true;
+
+	    at = foldedName.indexOf( ' ', at ) + 1;
+	    if( at == 0 )
+		return false;
+	}
+    }
+
+    private static String[] words( String folded )
+    {
+	return folded.isEmpty( ) ? new String[ 0 ] : folded.split( " " );
+    }
+
+    private void add( Long guestId, String name )
+    {
+	// A guest coming back keeps its ordinal, new ones are numbered after the others
+	int ordinal = ordinals.computeIfAbsent( guestId, id -> ordinals.size( ) );
+	if( ordinal == guestIds.length )
+	{
+	    int capacity = Math.max( 16, ordinal * 2 );
+	    guestIds = Arrays.copyOf( guestIds, capacity );
+	    names = Arrays.copyOf( names, capacity );
+	    foldedNames = Arrays.copyOf( foldedNames, capacity );
+	    trigramCounts = Arrays.copyOf( trigramCounts, capacity );
+	}
+
+	String folded = fold( name );
+	Set<String> nameTrigrams = trigrams( words( folded ), true );
+
+	guestIds[ ordinal ] = guestId;
+	names[ ordinal ] = name;
+	foldedNames[ ordinal ] = folded;
+	trigramCounts[ ordinal ] = nameTrigrams.size( );
+	nameTrigrams.forEach( trigram -> postings.computeIfAbsent( trigram, key -> new GuestNamePostings( ) )
+			.add( ordinal ) );
+    }
+
+    /**
+     * Takes the guest out of the posting lists. Its ordinal stays reserved until the next warm up.
+     */
+    private void delete( Long guestId )
+    {
+	Integer ordinal = ordinals.get( guestId );
+	if( ordinal == null || foldedNames[ ordinal ] == null )
+	    return;
+
+	trigrams( words( foldedNames[ ordinal ] ), true ).forEach( trigram -> {
+	    GuestNamePostings list = postings.get( trigram );
+	    list.remove( ordinal );
+	    if( list.isEmpty( ) )
+		postings.remove( trigram );
+	} );
+	names[ ordinal ] = null;
+	foldedNames[ ordinal ] = null;
+    }
+
+    @Value
+    private static class Match
+    {
+	long guestId;
+
+	String name;
+
+	String folded;
+
+	double score;
+    }
+}
@@ -0,0 +1,70 @@
+package com.tenniscourts.guests;
+
+import java.util.Arrays;
+
+/**
+ * Ordinals of the guests whose name holds one trigram, kept sorted in a growable array so several lists can be merged
+ * in a single pass. Ordinals are handed out in increasing order, so indexing a new guest is an append.
+ */
+final class GuestNamePostings
+{
+    private int[] ordinals = new int[ 4 ];
+    private int   size;
+
+    void add( int ordinal )
+    {
+	int at = size;
+	if( size > 0 && ordinals[ size - 1 ] >= ordinal )
+	{
+	    at = Arrays.binarySearch( ordinals, 0, size, ordinal );
+	    if( at >= 0 )
+		return;
+	    at = -at - 1;
+	}
+
+	if( size == ordinals.length )
+	    ordinals = Arrays.copyOf( ordinals, size * 2 );
+	System.arraycopy( ordinals, at, ordinals, at + 1, size - at );
+	ordinals[ at ] = ordinal;
+	size++;
+    }
+
+    void remove( int ordinal )
+    {
+	int at = Arrays.binarySearch( ordinals, 0, size, ordinal );
+	if( at < 0 )
+	    return;
+
+	System.arraycopy( ordinals, at + 1, ordinals, at, size - at - 1 );
+	size--;
+    }
+
+    /**
+     * Index of the first ordinal not below the given one, galloping forward from a previous answer: the probes of a
+     * merge move up in small steps.
+     */
+    int seek( int ordinal, int from )
+    {
+	int step = 1;
+	while( from + step < size && ordinals[ from + step ] < ordinal )
+	    step <<= 1;
+
+	int at = Arrays.binarySearch( ordinals, from + ( step >> 1 ), Math.min( from + step + 1, size ), ordinal );
+	return at >= 0 ? at : -at - 1;
+    }
+
+    boolean isEmpty( )
+    {
+	return size == 0;
+    }
+
+    int size( )
+    {
+	return size;
+    }
+
+    int get( int index )
+    {
+	return ordinals[ index ];
+    }
+}
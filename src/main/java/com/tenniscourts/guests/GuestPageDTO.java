@@ -0,0 +1,22 @@
+package com.tenniscourts.guests;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.util.List;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class GuestPageDTO
+{
+    private List<GuestDTO> content;
+
+    /**
+     * Keyset cursor of the next page, absent on the last page.
+     */
+    private Long nextId;
+}
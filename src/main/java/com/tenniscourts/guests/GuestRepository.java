@@ -1,7 +1,9 @@
 package com.tenniscourts.guests;
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 
+import java.util.List;
 import java.util.Optional;
 
 public interface GuestRepository extends JpaRepository<Guest, Long>
@@ -9,4 +11,8 @@ public interface GuestRepository extends JpaRepository<Guest, Long>
 
     Optional<Guest> findByName( String name );
 
+    List<Guest> findByIdGreaterThanOrderById( Long afterId, Pageable pageable );
+
+    Optional<GuestVersion> findVersionById( Long id );
+
 }
\ No newline at end of file
@@ -0,0 +1,24 @@
+package com.tenniscourts.guests;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.util.List;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class GuestSearchPageDTO
+{
+    /**
+     * Best matches first.
+     */
+    private List<GuestDTO> content;
+
+    private int page;
+
+    private int totalMatches;
+}
@@ -1,19 +1,35 @@
 package com.tenniscourts.guests;
 
+import com.tenniscourts.config.http.ResourceVersion;
+import com.tenniscourts.config.persistence.Pages;
 import com.tenniscourts.exceptions.EntityNotFoundException;
 import lombok.AllArgsConstructor;
 import lombok.Getter;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 
 import java.util.List;
+import java.util.Optional;
+import java.util.function.Consumer;
 
 @Service
 @AllArgsConstructor
 public class GuestService
 {
+    public static final String CACHE_NAME = "guests";
+
+    public static final int MAX_SEARCH_RESULTS = 10_000;
+
+    public static final int MAX_SEARCH_LENGTH = 100;
 
     private final GuestRepository guestRepository;
 
+    private final GuestJdbcRepository guestJdbcRepository;
+
+    private final GuestNameIndex guestNameIndex;
+
     @Getter
     private final GuestMapper guestMapper;
 
@@ -22,6 +38,23 @@ public class GuestService
 	return guestMapper.map( guestRepository.findAll( ) );
     }
 
+    public GuestPageDTO findPage( Long afterId, int size )
+    {
+	Pages.checkSize( size );
+
+	// Without a cursor the seek starts right at the beginning
+	List<Guest> guests = guestRepository.findByIdGreaterThanOrderById( Optional.ofNullable( afterId ).orElse( 0L ),
+			PageRequest.of( 0, size ) );
+
+	return new GuestPageDTO( guestMapper.map( guests ),
+			guests.size( ) == size ? guests.get( size - 1 ).getId( ) : null );
+    }
+
+    public void streamAll( Consumer<GuestDTO> consumer )
+    {
+	guestJdbcRepository.streamAll( consumer );
+    }
+
     public GuestDTO findByName( String guestName )
     {
 	return guestRepository.findByName( guestName ).map( guestMapper::map )
@@ -30,7 +63,35 @@ public class GuestService
 			} );
     }
 
+    public GuestSearchPageDTO search( String text, int page, int size )
+    {
+	if( text == null || text.length( ) > MAX_SEARCH_LENGTH )
+	    throw new IllegalArgumentException( "The search text must have at most " + MAX_SEARCH_LENGTH + " characters" );
+
+	Pages.checkSize( size );
+
+	if( page < 0 || ( long ) ( page + 1 ) * size > MAX_SEARCH_RESULTS )
+	    throw new IllegalArgumentException( "Only the first " + MAX_SEARCH_RESULTS + " matches can be paged through" );
+
+	return guestNameIndex.search( text, page, size );
+    }
+
+    /**
+     * Cached as a {@link GuestDTO}, never as the entity, evicted by {@link #update(GuestDTO)} and {@link #delete(Long)}.
+     * Callers share the cached instance and must not modify it. The cache is local to each node: an update made through
+     * another node is only seen once the entry expires.
+     */
+    @Cacheable( cacheNames = CACHE_NAME )
     public GuestDTO findById( Long guestId )
+    {
+	return findCurrentById( guestId );
+    }
+
+    /**
+     * Read past the cache, for responses validated against {@link #findVersion(Long)}: a cached body could be older
+     * than the version it is sent with, and then be revalidated for as long as it is cached.
+     */
+    public GuestDTO findCurrentById( Long guestId )
     {
 	return guestRepository.findById( guestId ).map( guestMapper::map )
 			.<EntityNotFoundException>orElseThrow( ( ) -> {
@@ -38,22 +99,38 @@ public class GuestService
 			} );
     }
 
+    public ResourceVersion findVersion( Long guestId )
+    {
+	return guestRepository.findVersionById( guestId )
+			.map( version -> ResourceVersion.of( version.getDateUpdate( ), "guest", guestId ) )
+			.<EntityNotFoundException>orElseThrow( ( ) -> {
+			    throw new EntityNotFoundException( "Guest having id = " + guestId + " was not found" );
+			} );
+    }
+
     public GuestDTO add( GuestDTO guestDTO )
     {
-	return guestMapper.map( guestRepository.save( guestMapper.map( guestDTO ) ) );
+	Guest guest = guestRepository.save( guestMapper.map( guestDTO ) );
+	guestNameIndex.put( guest.getId( ), guest.getName( ) );
+
+	return guestMapper.map( guest );
     }
 
+    @CacheEvict( cacheNames = CACHE_NAME, key = "#guestDTO.id" )
     public GuestDTO update( GuestDTO guestDTO )
     {
 	findById( guestDTO.getId( ) );
 	Guest guest = guestRepository.save( guestMapper.map( guestDTO ) );
+	guestNameIndex.put( guest.getId( ), guest.getName( ) );
 
 	return guestMapper.map( guest );
     }
 
+    @CacheEvict( cacheNames = CACHE_NAME, key = "#guestId" )
     public void delete( Long guestId )
     {
 	findById( guestId );
 	guestRepository.deleteById( guestId );
+	guestNameIndex.remove( guestId );
     }
 }
\ No newline at end of file
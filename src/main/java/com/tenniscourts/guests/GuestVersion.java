@@ -0,0 +1,14 @@
+package com.tenniscourts.guests;
+
+import java.time.LocalDateTime;
+
+/**
+ * Version column of a guest, read without loading it. The id is selected too: a lone null column would read as a
+ * missing guest.
+ */
+public interface GuestVersion
+{
+    Long getId( );
+
+    LocalDateTime getDateUpdate( );
+}
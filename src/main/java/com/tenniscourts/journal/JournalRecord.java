@@ -0,0 +1,102 @@
+package com.tenniscourts.journal;
+
+import com.tenniscourts.reservations.ReservationStatus;
+import lombok.Builder;
+import lombok.Value;
+
+import java.nio.ByteBuffer;
+import java.util.zip.CRC32;
+
+/**
+ * State of a reservation right after one transition, encoded in a fixed 64 byte slot:
+ * <pre>
+ *  0 sequence   8 timestamp (epoch millis)   16 reservation id   24 schedule id
+ * 32 guest id  40 value (cents)              48 refund (cents)   56 status   60 CRC32 of bytes 0-59
+ * </pre>
+ * A slot whose checksum does not match, including a never written one, marks the end of the journal.
+ */
+@Value
+@Builder
+public class JournalRecord
+{
+    public static final int SIZE = 64;
+
+    private static final int CHECKSUM_OFFSET = 60;
+
+    private static final ReservationStatus[] STATUSES = { ReservationStatus.READY_TO_PLAY,
+		    ReservationStatus.CANCELLED, ReservationStatus.RESCHEDULED };
+
+    private long sequence;
+
+    private long timestamp;
+
+    private long reservationId;
+
+    private long scheduleId;
+
+    private long guestId;
+
+    private long valueCents;
+
+    private long refundCents;
+
+    private ReservationStatus status;
+
+    /**
+     * Writes the record to the slot at the offset. Moves the position and limit of the target, so the caller must own
+     * it.
+     */
+    void writeTo( ByteBuffer target, int offset )
+    {
+	target.putLong( offset, sequence )
+			.putLong( offset + 8, timestamp )
+			.putLong( offset + 16, reservationId )
+			.putLong( offset + 24, scheduleId )
+			.putLong( offset + 32, guestId )
+			.putLong( offset + 40, valueCents )
+			.putLong( offset + 48, refundCents )
+			.putInt( offset + 56, statusCode( status ) );
+	target.putInt( offset + CHECKSUM_OFFSET, checksum( target, offset ) );
+    }
+
+    /**
+     * Reads the slot at the offset. Moves the position and limit of the source, so the caller must own it.
+     *
+     * @return the record in the slot, or null when the slot holds no complete record
+     */
+    static JournalRecord readFrom( ByteBuffer source, int offset )
+    {
+	if( source.getLong( offset ) == 0 || source.getInt( offset + CHECKSUM_OFFSET ) != checksum( source, offset ) )
+	    return null;
+
+	return JournalRecord.builder( )
+			.sequence( source.getLong( offset ) )
+			.timestamp( source.getLong( offset + 8 ) )
+			.reservationId( source.getLong( offset + 16 ) )
+			.scheduleId( source.getLong( offset + 24 ) )
+			.guestId( source.getLong( offset + 32 ) )
+			.valueCents( source.getLong( offset + 40 ) )
+			.refundCents( source.getLong( offset + 48 ) )
+			.status( STATUSES[ source.getInt( offset + 56 ) ] )
+			.build( );
+    }
+
+    private static int statusCode( ReservationStatus status )
+    {
+	for( int code = 0; code < STATUSES.length; code++ )
+	    if( STATUSES[ code ] == status )
+		return code;
+
+	throw new IllegalArgumentException( "Unknown reservation status " + status );
+    }
+
+    private static int checksum( ByteBuffer buffer, int offset )
+    {
+	buffer.limit( offset + CHECKSUM_OFFSET ).position( offset );
+	CRC32 crc32 = new CRC32( );
+	crc32.update( buffer );
+	buffer.limit( buffer.capacity( ) );
+
+	return ( int ) crc32.getValue( );
+    }
+}
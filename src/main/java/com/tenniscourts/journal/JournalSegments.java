@@ -0,0 +1,84 @@
+package com.tenniscourts.journal;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Segment files of a journal directory, named after the sequence of their first record so they sort in order.
+ */
+final class JournalSegments
+{
+    private static final String SUFFIX = ".journal";
+
+    private JournalSegments( )
+    {
+    }
+
+    static Path segment( Path directory, long firstSequence )
+    {
+	return directory.resolve( String.format( "%020d%s", firstSequence, SUFFIX ) );
+    }
+
+    static long firstSequence( Path segment )
+    {
+	String fileName = segment.getFileName( ).toString( );
+
+	return Long.parseLong( fileName.substring( 0, fileName.length( ) - SUFFIX.length( ) ) );
+    }
+
+    static List<Path> list( Path directory )
+    {
+	if( !Files.isDirectory( directory ) )
+	    return Collections.emptyList( );
+
+	try( Stream<Path> files = Files.list( directory ) )
+	{
+	    return files.filter( file -> file.getFileName( ).toString( ).endsWith( SUFFIX ) ).sorted( )
+			    .collect( Collectors.toList( ) );
+	}
+	catch( IOException e )
+	{
+	    throw new UncheckedIOException( e );
+	}
+    }
+
+    /**
+     * Hands every record of the segment to the consumer, in order, up to the first empty or torn slot.
+     *
+     * @return the number of records read
+     */
+    static int read( Path segment, Consumer<JournalRecord> consumer )
+    {
+	try( FileChannel channel = FileChannel.open( segment, StandardOpenOption.READ ) )
+	{
+	    MappedByteBuffer buffer = channel.map( FileChannel.MapMode.READ_ONLY, 0, channel.size( ) );
+	    int              count  = 0;
+
+	    for( int offset = 0; offset + JournalRecord.SIZE <= buffer.capacity( ); offset += JournalRecord.SIZE )
+	    {
+		JournalRecord journalRecord = JournalRecord.readFrom( buffer, offset );
+		if( journalRecord == null )
+		    break;
+
+		consumer.accept( journalRecord );
+		count++;
+	    }
+
+	    return count;
+	}
+	catch( IOException e )
+	{
+	    throw new UncheckedIOException( e );
+	}
+    }
+}
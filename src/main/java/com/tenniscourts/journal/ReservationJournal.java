@@ -0,0 +1,209 @@
+package com.tenniscourts.journal;
+
+import com.tenniscourts.reservations.Reservation;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+/**
+ * Append-only journal of every reservation state transition, written to memory-mapped segments of fixed-size
+ * {@link JournalRecord}s. A full segment is forced to disk and the next one is started.
+ * <p>
+ * Off by default, {@code tenniscourts.journal.sync} makes {@link #append(Reservation)} return only once the record is
+ * on disk. Waiting appenders share the forces (group commit): the first one forces everything appended so far and the
+ * others find their record already durable. Still, a lone booking pays a whole force, and the journal is not what
+ * keeps a booking: the database is. Left off, records reach the disk when the operating system writes the mapped pages
+ * back, when a segment is full, or at shutdown; a crash of the machine, not just of the process, can then lose the
+ * last few seconds of the journal.
+ * <p>
+ * Records are appended after the database commit, so after a crash the journal may miss the last transitions but never
+ * holds one the database rolled back.
+ */
+@Slf4j
+@Component
+public class ReservationJournal
+{
+    private final Path directory;
+
+    private final int segmentRecords;
+
+    private final boolean sync;
+
+    private final Object appendLock = new Object( );
+
+    private final Object flushLock = new Object( );
+
+    private FileChannel lockChannel;
+
+    private FileLock fileLock;
+
+    private FileChannel channel;
+
+    private MappedByteBuffer segment;
+
+    private int position;
+
+    private long nextSequence;
+
+    private long durableSequence;
+
+    public ReservationJournal( @Value( "${tenniscourts.journal.directory:journal}" ) String directory,
+		    @Value( "${tenniscourts.journal.segment-records:1048576}" ) int segmentRecords,
+		    @Value( "${tenniscourts.journal.sync:false}" ) boolean sync )
+    {
+	this.directory = Paths.get( directory );
+	this.segmentRecords = segmentRecords;
+	this.sync = sync;
+    }
+
+    @PostConstruct
+    public void open( ) throws IOException
+    {
+	Files.createDirectories( directory );
+	lockChannel = FileChannel.open( directory.resolve( "lock" ), StandardOpenOption.CREATE, StandardOpenOption.WRITE );
+	fileLock = tryLock( );
+	if( fileLock == null )
+	{
+	    lockChannel.close( );
+	    throw new IllegalStateException( "The journal " + directory.toAbsolutePath( ) + " is in use" );
+	}
+
+	List<Path> segments = JournalSegments.list( directory );
+	if( segments.isEmpty( ) )
+	{
+	    openSegment( 1L, 0 );
+	    return;
+	}
+
+	// Resumes after the last complete record; a torn one left by a crash is overwritten
+	Path last          = segments.get( segments.size( ) - 1 );
+	long firstSequence = JournalSegments.firstSequence( last );
+	openSegment( firstSequence, JournalSegments.read( last, journalRecord -> { } ) );
+	durableSequence = nextSequence - 1;
+	log.info( "Journal {} resumes at record {}", directory.toAbsolutePath( ), nextSequence );
+    }
+
+    @PreDestroy
+    public void close( ) throws IOException
+    {
+	synchronized( appendLock )
+	{
+	    segment.force( );
+	    channel.close( );
+	    fileLock.release( );
+	    lockChannel.close( );
+	}
+    }
+
+    /**
+     * Appends one record per reservation and, when syncing, waits for a single force covering all of them.
+     */
+    public void append( Reservation... reservations )
+    {
+	long sequence;
+	synchronized( appendLock )
+	{
+	    for( Reservation reservation : reservations )
+	    {
+		if( position == segment.capacity( ) )
+		    roll( );
+
+		JournalRecord.builder( )
+				.sequence( nextSequence++ )
+				.timestamp( System.currentTimeMillis( ) )
+				.reservationId( reservation.getId( ) )
+				.scheduleId( reservation.getSchedule( ).getId( ) )
+				.guestId( reservation.getGuest( ).getId( ) )
+				.valueCents( cents( reservation.getValue( ) ) )
+				.refundCents( cents( reservation.getRefundValue( ) ) )
+				.status( reservation.getReservationStatus( ) )
+				.build( )
+				.writeTo( segment, position );
+		position += JournalRecord.SIZE;
+	    }
+	    sequence = nextSequence - 1;
+	}
+
+	if( sync )
+	    awaitDurable( sequence );
+    }
+
+    private void awaitDurable( long sequence )
+    {
+	synchronized( flushLock )
+	{
+	    if( durableSequence >= sequence )
+		return;
+
+	    long             appended;
+	    MappedByteBuffer toForce;
+	    synchronized( appendLock )
+	    {
+		appended = nextSequence - 1;
+		toForce = segment;
+	    }
+
+	    // Earlier segments were forced when they were rolled
+	    toForce.force( );
+	    durableSequence = appended;
+	}
+    }
+
+    private FileLock tryLock( ) throws IOException
+    {
+	try
+	{
+	    return lockChannel.tryLock( );
+	}
+	catch( OverlappingFileLockException e )
+	{
+	    // Held by another journal in this same process
+	    return null;
+	}
+    }
+
+    private void roll( )
+    {
+	try
+	{
+	    segment.force( );
+	    channel.close( );
+	    openSegment( nextSequence, 0 );
+	}
+	catch( IOException e )
+	{
+	    throw new UncheckedIOException( e );
+	}
+    }
+
+    private void openSegment( long firstSequence, int records ) throws IOException
+    {
+	Path file = JournalSegments.segment( directory, firstSequence );
+	channel = FileChannel.open( file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE );
+	segment = channel.map( FileChannel.MapMode.READ_WRITE, 0,
+			Math.max( channel.size( ), ( long ) segmentRecords * JournalRecord.SIZE ) );
+	position = records * JournalRecord.SIZE;
+	nextSequence = firstSequence + records;
+    }
+
+    private static long cents( BigDecimal value )
+    {
+	return value == null ? 0L : value.movePointRight( 2 ).setScale( 0, RoundingMode.HALF_UP ).longValueExact( );
+    }
+}
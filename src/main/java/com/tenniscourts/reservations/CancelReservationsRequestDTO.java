@@ -0,0 +1,28 @@
+package com.tenniscourts.reservations;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.validation.constraints.NotNull;
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class CancelReservationsRequestDTO
+{
+    @NotNull
+    private Long tennisCourtId;
+
+    @JsonFormat( pattern = "yyyy-MM-dd'T'HH:mm" )
+    @NotNull
+    private LocalDateTime startDateTime;
+
+    @JsonFormat( pattern = "yyyy-MM-dd'T'HH:mm" )
+    @NotNull
+    private LocalDateTime endDateTime;
+}
@@ -0,0 +1,28 @@
+package com.tenniscourts.reservations;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.validation.constraints.NotEmpty;
+import javax.validation.constraints.NotNull;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class CreateReservationBatchRequestDTO
+{
+    @NotNull
+    private Long guestId;
+
+    @NotEmpty
+    private List<Long> scheduleIds;
+
+    /**
+     * Defaults to {@link ReservationBatchMode#ALL_OR_NOTHING} when absent.
+     */
+    private ReservationBatchMode mode;
+}
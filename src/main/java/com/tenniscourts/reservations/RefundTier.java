@@ -0,0 +1,55 @@
+package com.tenniscourts.reservations;
+
+import lombok.Getter;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+
+/**
+ * Refund table of a cancellation or reschedule, by how many whole hours ahead of the slot start it happens.
+ * Tiers are ordered from the earliest cancellation to the latest.
+ */
+@Getter
+public enum RefundTier
+{
+    FULL( 24, BigDecimal.ONE ),
+    THREE_QUARTERS( 12, BigDecimal.valueOf( 0.75 ) ),
+    HALF( 2, BigDecimal.valueOf( 0.50 ) ),
+    QUARTER( 0, BigDecimal.valueOf( 0.25 ) ),
+    NONE( Long.MIN_VALUE, BigDecimal.ZERO );
+
+    private static final RefundTier[] TIERS = values( );
+
+    private final long minHoursAhead;
+
+    private final BigDecimal refundRate;
+
+    /**
+     * Share of the value kept once the refund is paid, so set-based updates need no arithmetic on the refund itself.
+     */
+    private final BigDecimal keptRate;
+
+    RefundTier( long minHoursAhead, BigDecimal refundRate )
+    {
+	this.minHoursAhead = minHoursAhead;
+	this.refundRate = refundRate;
+	this.keptRate = BigDecimal.ONE.subtract( refundRate );
+    }
+
+    public BigDecimal refund( BigDecimal value )
+    {
+	return value.multiply( refundRate );
+    }
+
+    public static RefundTier of( LocalDateTime now, LocalDateTime startDateTime )
+    {
+	long hours = ChronoUnit.HOURS.between( now, startDateTime );
+
+	for( RefundTier refundTier : TIERS )
+	    if( hours >= refundTier.minHoursAhead )
+		return refundTier;
+
+	return NONE;
+    }
+}
@@ -7,16 +7,30 @@ import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.DynamicUpdate;
+import org.hibernate.annotations.OptimisticLockType;
+import org.hibernate.annotations.OptimisticLocking;
 
+import javax.persistence.Column;
 import javax.persistence.Entity;
+import javax.persistence.Index;
 import javax.persistence.ManyToOne;
-import javax.persistence.OneToOne;
+import javax.persistence.PrePersist;
+import javax.persistence.PreUpdate;
 import javax.persistence.Table;
+import javax.persistence.UniqueConstraint;
 import javax.validation.constraints.NotNull;
 import java.math.BigDecimal;
 
+/**
+ * Updates only write the changed columns and check their previous values, so a reservation cancelled or rescheduled
+ * concurrently fails with an optimistic locking error instead of being overwritten.
+ */
 @Entity
-@Table
+@DynamicUpdate
+@OptimisticLocking( type = OptimisticLockType.DIRTY )
+@Table( uniqueConstraints = @UniqueConstraint( name = "uk_reservation_active_schedule", columnNames = "active_schedule_id" ),
+		indexes = @Index( name = "idx_reservation_schedule_status", columnList = "schedule_id, reservationStatus" ) )
 @Data
 @AllArgsConstructor
 @NoArgsConstructor
@@ -24,11 +38,11 @@ import java.math.BigDecimal;
 public class Reservation extends BaseEntity<Long>
 {
 
-    @OneToOne
+    @ManyToOne( optional = false )
     @NotNull
     private Guest guest;
 
-    @ManyToOne
+    @ManyToOne( optional = false )
     @NotNull
     private Schedule schedule;
 
@@ -39,4 +53,18 @@ public class Reservation extends BaseEntity<Long>
     private ReservationStatus reservationStatus = ReservationStatus.READY_TO_PLAY;
 
     private BigDecimal refundValue;
+
+    /**
+     * Schedule id while the reservation is ready to play, null otherwise. The unique constraint on this column lets
+     * the database reject a second active reservation for the same slot.
+     */
+    @Column( name = "active_schedule_id" )
+    private Long activeScheduleId;
+
+    @PrePersist
+    @PreUpdate
+    private void claimSchedule( )
+    {
+	activeScheduleId = ReservationStatus.READY_TO_PLAY.equals( reservationStatus ) ? schedule.getId( ) : null;
+    }
 }
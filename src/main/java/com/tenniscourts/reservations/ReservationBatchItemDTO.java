@@ -0,0 +1,21 @@
+package com.tenniscourts.reservations;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class ReservationBatchItemDTO
+{
+    private Long scheduleId;
+
+    private ReservationBatchItemStatus status;
+
+    private Long reservationId;
+
+    private String message;
+}
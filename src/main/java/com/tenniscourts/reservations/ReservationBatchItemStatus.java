@@ -0,0 +1,7 @@
+package com.tenniscourts.reservations;
+
+public enum ReservationBatchItemStatus {
+  BOOKED,
+  REJECTED,
+  NOT_BOOKED
+}
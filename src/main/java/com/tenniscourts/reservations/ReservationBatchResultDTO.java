@@ -0,0 +1,21 @@
+package com.tenniscourts.reservations;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class ReservationBatchResultDTO
+{
+    private ReservationBatchMode mode;
+
+    private boolean completed;
+
+    private List<ReservationBatchItemDTO> items;
+}
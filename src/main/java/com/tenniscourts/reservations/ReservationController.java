@@ -1,44 +1,101 @@
 package com.tenniscourts.reservations;
 
 import com.tenniscourts.config.BaseRestController;
+import com.tenniscourts.config.async.Bulkheads;
 import io.swagger.annotations.ApiOperation;
 import lombok.AllArgsConstructor;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.concurrent.CompletableFuture;
+
 @AllArgsConstructor
 @RestController
 @RequestMapping( "/reservations" )
 public class ReservationController extends BaseRestController
 {
     private final ReservationService reservationService;
+    private final Bulkheads          bulkheads;
 
     @PostMapping
     @ApiOperation( value = "Book a reservation." )
-    public ResponseEntity<Void> bookReservation( @RequestBody CreateReservationRequestDTO createReservationRequestDTO )
+    public CompletableFuture<ResponseEntity<Void>> bookReservation(
+		    @RequestBody CreateReservationRequestDTO createReservationRequestDTO )
+    {
+	return bulkheads.write( ( ) -> ResponseEntity.created( locationByEntity(
+			reservationService.bookReservation( createReservationRequestDTO ).getId( ) ) ).build( ) );
+    }
+
+    @PostMapping( "/batch" )
+    @ApiOperation( value = "Book a batch of reservations for a guest." )
+    public CompletableFuture<ResponseEntity<ReservationBatchResultDTO>> bookReservations(
+		    @RequestBody CreateReservationBatchRequestDTO createReservationBatchRequestDTO )
+    {
+	return bulkheads.write( ( ) -> {
+	    ReservationBatchResultDTO result = reservationService.bookReservations( createReservationBatchRequestDTO );
+
+	    if( ReservationBatchMode.ALL_OR_NOTHING.equals( result.getMode( ) ) && !result.isCompleted( ) )
+		return ResponseEntity.status( HttpStatus.CONFLICT ).body( result );
+
+	    return ResponseEntity.ok( result );
+	} );
+    }
+
+    @PostMapping( "/waitlist" )
+    @ApiOperation( value = "Join the waitlist of a taken slot." )
+    public CompletableFuture<ResponseEntity<WaitlistEntryDTO>> joinWaitlist(
+		    @RequestBody CreateReservationRequestDTO createReservationRequestDTO )
     {
-	return ResponseEntity.created( locationByEntity( reservationService.bookReservation( createReservationRequestDTO )
-                                        .getId( ) ) ).build( );
+	return bulkheads.write( ( ) -> {
+	    WaitlistEntryDTO waitlistEntry = reservationService.joinWaitlist( createReservationRequestDTO );
+	    return ResponseEntity.created( locationByEntity( waitlistEntry.getId( ) ) ).body( waitlistEntry );
+	} );
+    }
+
+    @GetMapping( "/waitlist/{waitlistEntryId}" )
+    @ApiOperation( value = "Find a waitlist entry and its place in the queue." )
+    public CompletableFuture<ResponseEntity<WaitlistEntryDTO>> findWaitlistEntry( @PathVariable Long waitlistEntryId )
+    {
+	return bulkheads.read( ( ) -> ResponseEntity.ok( reservationService.findWaitlistEntry( waitlistEntryId ) ) );
+    }
+
+    @DeleteMapping( "/waitlist/{waitlistEntryId}" )
+    @ApiOperation( value = "Leave the waitlist of a slot." )
+    public CompletableFuture<ResponseEntity<WaitlistEntryDTO>> leaveWaitlist( @PathVariable Long waitlistEntryId )
+    {
+	return bulkheads.write( ( ) -> ResponseEntity.ok( reservationService.leaveWaitlist( waitlistEntryId ) ) );
     }
 
     @GetMapping( "/{reservationId}")
     @ApiOperation( value = "Find a reservation." )
-    public ResponseEntity<ReservationDTO> findReservation( @PathVariable Long reservationId )
+    public CompletableFuture<ResponseEntity<ReservationDTO>> findReservation( @PathVariable Long reservationId )
     {
-	return ResponseEntity.ok( reservationService.findReservation( reservationId ) );
+	return bulkheads.read( ( ) -> ResponseEntity.ok( reservationService.findReservation( reservationId ) ) );
     }
 
     @DeleteMapping( "/{reservationId}" )
     @ApiOperation( value = "Cancel a reservation." )
-    public ResponseEntity<ReservationDTO> cancelReservation( @PathVariable Long reservationId )
+    public CompletableFuture<ResponseEntity<ReservationDTO>> cancelReservation( @PathVariable Long reservationId )
+    {
+	return bulkheads.write( ( ) -> ResponseEntity.ok( reservationService.cancelReservation( reservationId ) ) );
+    }
+
+    @PostMapping( "/cancellations" )
+    @ApiOperation( value = "Cancel every reservation of a tennis court between two dates." )
+    public CompletableFuture<ResponseEntity<CancelReservationsResultDTO>> cancelReservations(
+		    @RequestBody CancelReservationsRequestDTO cancelReservationsRequestDTO )
     {
-	return ResponseEntity.ok( reservationService.cancelReservation( reservationId ) );
+	return bulkheads.write(
+			( ) -> ResponseEntity.ok( reservationService.cancelReservations( cancelReservationsRequestDTO ) ) );
     }
 
     @PutMapping( "/{reservationId}/{scheduleId}" )
     @ApiOperation( value = "Reschedule a reservation." )
-    public ResponseEntity<ReservationDTO> rescheduleReservation( @PathVariable Long reservationId, @PathVariable Long scheduleId )
+    public CompletableFuture<ResponseEntity<ReservationDTO>> rescheduleReservation( @PathVariable Long reservationId,
+		    @PathVariable Long scheduleId )
     {
-        return ResponseEntity.ok( reservationService.rescheduleReservation( reservationId, scheduleId ) );
+	return bulkheads.write(
+			( ) -> ResponseEntity.ok( reservationService.rescheduleReservation( reservationId, scheduleId ) ) );
     }
 }
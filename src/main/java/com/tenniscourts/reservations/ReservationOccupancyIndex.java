@@ -0,0 +1,64 @@
+package com.tenniscourts.reservations;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-memory index of the active (ready to play) reservation of every schedule slot. A miss lets a booking through to the
+ * database claim, which still rejects a slot taken on another node; a hit is only a hint, confirmed against that claim,
+ * as the slot may have been released on another node since.
+ */
+@Component
+@RequiredArgsConstructor
+public class ReservationOccupancyIndex
+{
+    private final ReservationRepository reservationRepository;
+
+    private final Map<Long, Long> activeReservationBySchedule = new ConcurrentHashMap<>( );
+
+    @EventListener( ApplicationReadyEvent.class )
+    public void warmUp( )
+    {
+	activeReservationBySchedule.clear( );
+	reservationRepository.findScheduleIdAndIdByReservationStatus( ReservationStatus.READY_TO_PLAY )
+			.forEach( row -> activeReservationBySchedule.put( ( Long ) row[ 0 ], ( Long ) row[ 1 ] ) );
+    }
+
+    public boolean isOccupied( Long scheduleId )
+    {
+	if( !activeReservationBySchedule.containsKey( scheduleId ) )
+	    return false;
+
+	return refresh( scheduleId );
+    }
+
+    /**
+     * Reads the active reservation of the slot back from the database, and tells whether there is one.
+     */
+    public boolean refresh( Long scheduleId )
+    {
+	Optional<Long> activeReservationId = reservationRepository.findIdByActiveScheduleId( scheduleId );
+	if( activeReservationId.isPresent( ) )
+	    activeReservationBySchedule.put( scheduleId, activeReservationId.get( ) );
+	else
+	    activeReservationBySchedule.remove( scheduleId );
+
+	return activeReservationId.isPresent( );
+    }
+
+    public void occupy( Long scheduleId, Long reservationId )
+    {
+	activeReservationBySchedule.put( scheduleId, reservationId );
+    }
+
+    public void release( Long scheduleId, Long reservationId )
+    {
+	activeReservationBySchedule.remove( scheduleId, reservationId );
+    }
+}
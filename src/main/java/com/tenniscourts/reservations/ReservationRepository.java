@@ -1,15 +1,69 @@
 package com.tenniscourts.reservations;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import javax.persistence.LockModeType;
+import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 public interface ReservationRepository extends JpaRepository<Reservation, Long> {
 
     List<Reservation> findBySchedule_Id(Long scheduleId);
 
-    List<Reservation> findByReservationStatusAndSchedule_StartDateTimeGreaterThanEqualAndSchedule_EndDateTimeLessThanEqual(ReservationStatus reservationStatus, LocalDateTime startDateTime, LocalDateTime endDateTime);
+    @Query("select r from Reservation r join fetch r.guest join fetch r.schedule s join fetch s.tennisCourt where r.id = :id")
+    Optional<Reservation> findWithGraphById(@Param("id") Long id);
+
+    @Query("select r.schedule.id, r.id from Reservation r where r.reservationStatus = :reservationStatus")
+    List<Object[]> findScheduleIdAndIdByReservationStatus(@Param("reservationStatus") ReservationStatus reservationStatus);
+
+    @Query("select r.id from Reservation r where r.activeScheduleId = :scheduleId")
+    Optional<Long> findIdByActiveScheduleId(@Param("scheduleId") Long scheduleId);
+
+    /**
+     * The active reservation of a slot, locked: waits for a cancellation or a reschedule of it still in flight.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    Optional<Reservation> findLockedByActiveScheduleId(Long activeScheduleId);
+
+    /**
+     * Inner joins only, so the database can start from the slots of the court and reach their reservations by index.
+     */
+    @Query("select r from Reservation r join fetch r.guest join fetch r.schedule s join fetch s.tennisCourt "
+            + "where r.reservationStatus = :reservationStatus and s.tennisCourt.id = :tennisCourtId "
+            + "and s.startDateTime >= :startDateTime and s.endDateTime <= :endDateTime")
+    List<Reservation> findByStatusAndCourtBetween(@Param("reservationStatus") ReservationStatus reservationStatus,
+            @Param("tennisCourtId") Long tennisCourtId, @Param("startDateTime") LocalDateTime startDateTime,
+            @Param("endDateTime") LocalDateTime endDateTime);
+
+    /**
+     * The given reservations still in that status, locked until the end of the transaction.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select r.id from Reservation r where r.id in :ids and r.reservationStatus = :reservationStatus")
+    List<Long> findLockedIdsByIdInAndReservationStatus(@Param("ids") Collection<Long> ids,
+            @Param("reservationStatus") ReservationStatus reservationStatus);
+
+    /**
+     * Cancels the given reservations that are still ready to play, all in the same refund tier, and stamps them the
+     * way {@link com.tenniscourts.audit.CustomAuditEntityListener} stamps an entity update.
+     * The refund is set before the value, so it is computed from the value before the cancellation.
+     */
+    @Modifying(clearAutomatically = true)
+    @Query("update Reservation r set r.refundValue = r.value * :refundRate, r.value = r.value * :keptRate, "
+            + "r.reservationStatus = :cancelled, r.activeScheduleId = null, r.dateUpdate = :dateUpdate, "
+            + "r.userUpdate = :userUpdate, r.ipNumberUpdate = :ipNumberUpdate "
+            + "where r.id in :ids and r.reservationStatus = :readyToPlay")
+    int cancelAll(@Param("ids") Collection<Long> ids, @Param("refundRate") BigDecimal refundRate,
+            @Param("keptRate") BigDecimal keptRate, @Param("dateUpdate") LocalDateTime dateUpdate,
+            @Param("userUpdate") Long userUpdate, @Param("ipNumberUpdate") String ipNumberUpdate,
+            @Param("cancelled") ReservationStatus cancelled, @Param("readyToPlay") ReservationStatus readyToPlay);
 
 //    List<Reservation> findByStartDateTimeGreaterThanEqualAndEndDateTimeLessThanEqualAndTennisCourt(LocalDateTime startDateTime, LocalDateTime endDateTime, TennisCourt tennisCourt);
 }
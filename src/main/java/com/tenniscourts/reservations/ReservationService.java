@@ -1,32 +1,77 @@
 package com.tenniscourts.reservations;
 
+import com.tenniscourts.audit.CustomAuditEntityListener;
+import com.tenniscourts.audit.NodeIdentity;
+import com.tenniscourts.config.metrics.BookingMetrics;
 import com.tenniscourts.exceptions.AlreadyExistsEntityException;
 import com.tenniscourts.exceptions.EntityNotFoundException;
 import com.tenniscourts.guests.Guest;
 import com.tenniscourts.guests.GuestDTO;
 import com.tenniscourts.guests.GuestService;
+import com.tenniscourts.journal.ReservationJournal;
+import com.tenniscourts.schedules.CourtSlotStatus;
+import com.tenniscourts.schedules.CourtSlotView;
+import com.tenniscourts.schedules.CourtSlotViewRepository;
 import com.tenniscourts.schedules.Schedule;
 import com.tenniscourts.schedules.ScheduleDTO;
 import com.tenniscourts.schedules.ScheduleMapper;
 import com.tenniscourts.schedules.ScheduleService;
+import com.tenniscourts.schedules.SlotEvent;
+import com.tenniscourts.schedules.SlotEventType;
 import lombok.AllArgsConstructor;
+import lombok.Value;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.math.BigDecimal;
+import java.time.Clock;
 import java.time.LocalDateTime;
-import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
-
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+@Slf4j
 @Service
 @AllArgsConstructor
 public class ReservationService
 {
-    private final BigDecimal            RESERVATION_FEE = new BigDecimal(10);
+    private final BigDecimal            RESERVATION_FEE = CourtSlotView.PRICE;
+
+    private static final int CANCEL_BATCH_SIZE = 500;
+
+    /**
+     * The slots a single batch booking may list, repeated ones included.
+     */
+    static final int MAX_BATCH_ITEMS = 100;
 
     private final GuestService          guestService;
     private final ScheduleService       scheduleService;
     private final ReservationMapper     reservationMapper;
     private final ReservationRepository reservationRepository;
+    private final ReservationOccupancyIndex reservationOccupancyIndex;
+    private final TransactionTemplate   transactionTemplate;
+    private final ApplicationEventPublisher applicationEventPublisher;
+    private final BookingMetrics        bookingMetrics;
+    private final Clock                 clock;
+    private final ReservationJournal    reservationJournal;
+    private final CourtSlotViewRepository courtSlotViewRepository;
+    private final WaitlistEntryRepository waitlistEntryRepository;
+    private final NodeIdentity          nodeIdentity;
 
     public ReservationDTO bookReservation( CreateReservationRequestDTO createReservationRequestDTO )
     {
@@ -34,26 +79,116 @@ public class ReservationService
         Schedule    schedule    = scheduleService.getScheduleMapper( ).map( scheduleDTO );
 
         if( reservationExists( schedule ) )
+        {
+            bookingMetrics.conflict( "bookReservation" );
             throw new AlreadyExistsEntityException( "Reservation already exists." );
+        }
 
         if( reservationInPast( schedule ) )
+        {
+            bookingMetrics.pastDateRejected( "bookReservation" );
             throw new IllegalArgumentException( "It is forbidden to reserve on past." );
+        }
 
         GuestDTO guestDTO = guestService.findById( createReservationRequestDTO.getGuestId( ) );
         Guest    guest    = guestService.getGuestMapper( ).map( guestDTO );
 
-        Reservation reservation = Reservation.builder( )
-                        .guest( guest )
-                        .schedule( schedule )
-                        .reservationStatus( ReservationStatus.READY_TO_PLAY ).value( RESERVATION_FEE )
-                        .build( );
+        Reservation reservation = claimSchedule( newReservation( guest, schedule ), "bookReservation" );
+        occupy( reservation );
 
-        return reservationMapper.map( reservationRepository.save( reservation) );
+        return reservationMapper.map( reservation );
+    }
+
+    public ReservationBatchResultDTO bookReservations( CreateReservationBatchRequestDTO createReservationBatchRequestDTO )
+    {
+	if( createReservationBatchRequestDTO.getScheduleIds( ).size( ) > MAX_BATCH_ITEMS )
+	    throw new IllegalArgumentException( "It's forbidden book more than " + MAX_BATCH_ITEMS + " slots at once" );
+
+	GuestDTO guestDTO = guestService.findById( createReservationBatchRequestDTO.getGuestId( ) );
+	Guest    guest    = guestService.getGuestMapper( ).map( guestDTO );
+
+	Map<Long, Schedule> schedules = scheduleService.listByIds( createReservationBatchRequestDTO.getScheduleIds( ) )
+			.stream( )
+			.map( scheduleService.getScheduleMapper( )::map )
+			.collect( Collectors.toMap( Schedule::getId, Function.identity( ) ) );
+
+	Map<Long, ReservationBatchItemDTO> items    = new LinkedHashMap<>( );
+	List<Schedule>                     accepted = new ArrayList<>( );
+
+	for( Long scheduleId : createReservationBatchRequestDTO.getScheduleIds( ) )
+	{
+	    if( items.containsKey( scheduleId ) )
+		continue;
+
+	    Schedule schedule = schedules.get( scheduleId );
+	    if( schedule == null )
+		items.put( scheduleId, batchItem( scheduleId, ReservationBatchItemStatus.REJECTED,
+				"Schedule (#" + scheduleId + ") was not found" ) );
+	    else if( reservationExists( schedule ) )
+	    {
+		bookingMetrics.conflict( "bookReservations" );
+		items.put( scheduleId, batchItem( scheduleId, ReservationBatchItemStatus.REJECTED,
+				"Reservation already exists." ) );
+	    }
+	    else if( reservationInPast( schedule ) )
+	    {
+		bookingMetrics.pastDateRejected( "bookReservations" );
+		items.put( scheduleId, batchItem( scheduleId, ReservationBatchItemStatus.REJECTED,
+				"It is forbidden to reserve on past." ) );
+	    }
+	    else
+	    {
+		items.put( scheduleId, batchItem( scheduleId, ReservationBatchItemStatus.NOT_BOOKED, null ) );
+		accepted.add( schedule );
+	    }
+	}
+
+	ReservationBatchMode mode = Optional.ofNullable( createReservationBatchRequestDTO.getMode( ) )
+			.orElse( ReservationBatchMode.ALL_OR_NOTHING );
+	boolean allOrNothing = ReservationBatchMode.ALL_OR_NOTHING.equals( mode );
+
+	if( !accepted.isEmpty( ) && ( !allOrNothing || accepted.size( ) == items.size( ) ) )
+	{
+	    try
+	    {
+		List<Reservation> reservations = transactionTemplate.execute( status -> {
+		    List<Reservation> saved = reservationRepository.saveAll(
+				    accepted.stream( ).map( schedule -> newReservation( guest, schedule ) )
+						    .collect( Collectors.toList( ) ) );
+		    reservationRepository.flush( );
+		    saved.forEach( this::bookSlotView );
+		    return saved;
+		} );
+
+		reservations.forEach( reservation -> bookedItem( items, reservation ) );
+	    }
+	    catch( DataIntegrityViolationException e )
+	    {
+		// A concurrent booking took one of the slots: the whole batch rolled back
+		accepted.forEach( schedule -> reservationOccupancyIndex.refresh( schedule.getId( ) ) );
+
+		if( allOrNothing )
+		    accepted.stream( ).filter( this::reservationExists ).forEach( schedule -> {
+			bookingMetrics.conflict( "bookReservations" );
+			items.put( schedule.getId( ), batchItem( schedule.getId( ), ReservationBatchItemStatus.REJECTED,
+					"Reservation already exists." ) );
+		    } );
+		else
+		    accepted.forEach( schedule -> bookBatchItem( items, guest, schedule ) );
+	    }
+	}
+
+	return ReservationBatchResultDTO.builder( )
+			.mode( mode )
+			.completed( items.values( ).stream( )
+					.allMatch( item -> ReservationBatchItemStatus.BOOKED.equals( item.getStatus( ) ) ) )
+			.items( new ArrayList<>( items.values( ) ) )
+			.build( );
     }
 
     public ReservationDTO findReservation( Long reservationId )
     {
-	return reservationRepository.findById( reservationId ).map( reservationMapper::map )
+	return reservationRepository.findWithGraphById( reservationId ).map( reservationMapper::map )
 			.<EntityNotFoundException>orElseThrow( ( ) -> {
 			    throw new EntityNotFoundException( "Reservation not found." );
 			} );
@@ -64,6 +199,94 @@ public class ReservationService
 	return reservationMapper.map( this.cancel( reservationId ) );
     }
 
+    /**
+     * Cancels every reservation still ready to play on a tennis court between two dates, e.g. when it closes for rain
+     * or maintenance. Refunds follow {@link RefundTier} against a single reading of the clock.
+     */
+    public CancelReservationsResultDTO cancelReservations( CancelReservationsRequestDTO cancelReservationsRequestDTO )
+    {
+	if( cancelReservationsRequestDTO.getEndDateTime( ).isBefore( cancelReservationsRequestDTO.getStartDateTime( ) ) )
+	    throw new IllegalArgumentException( "The end date must not be before the start date" );
+
+	LocalDateTime now = LocalDateTime.now( clock );
+
+	// Can cancel only future dates, as a single cancellation
+	LocalDateTime startDateTime = cancelReservationsRequestDTO.getStartDateTime( ).isBefore( now )
+			? now
+			: cancelReservationsRequestDTO.getStartDateTime( );
+
+	List<Reservation> reservations = reservationRepository.findByStatusAndCourtBetween( ReservationStatus.READY_TO_PLAY,
+			cancelReservationsRequestDTO.getTennisCourtId( ), startDateTime,
+			cancelReservationsRequestDTO.getEndDateTime( ) );
+
+	Map<RefundTier, List<Reservation>> reservationsByTier = reservations.stream( ).collect( Collectors.groupingBy(
+			reservation -> RefundTier.of( now, reservation.getSchedule( ).getStartDateTime( ) ),
+			( ) -> new EnumMap<>( RefundTier.class ), Collectors.toList( ) ) );
+
+	Set<Long> cancelledIds = transactionTemplate.execute( status -> {
+	    Set<Long> ids = new HashSet<>( );
+	    reservationsByTier.forEach( ( refundTier, tierReservations ) -> ids.addAll(
+			    cancelAll( refundTier, tierReservations, now ) ) );
+	    return ids;
+	} );
+
+	BigDecimal refundValue = BigDecimal.ZERO;
+	for( Map.Entry<RefundTier, List<Reservation>> entry : reservationsByTier.entrySet( ) )
+	{
+	    for( Reservation reservation : entry.getValue( ) )
+	    {
+		// Cancelled or rescheduled since it was loaded: left as the other change made it
+		if( !cancelledIds.contains( reservation.getId( ) ) )
+		    continue;
+
+		// Mirrors the bulk update on the loaded copy, for the journal
+		BigDecimal refund = entry.getKey( ).refund( reservation.getValue( ) );
+		reservation.setReservationStatus( ReservationStatus.CANCELLED );
+		reservation.setRefundValue( refund );
+		reservation.setValue( reservation.getValue( ).multiply( entry.getKey( ).getKeptRate( ) ) );
+		release( reservation, SlotEventType.CANCELLED );
+
+		refundValue = refundValue.add( refund );
+	    }
+	}
+
+	return CancelReservationsResultDTO.builder( ).cancelled( cancelledIds.size( ) ).refundValue( refundValue )
+			.build( );
+    }
+
+    /**
+     * Cancels the reservations of the list still ready to play, locked first so that exactly those are updated, and
+     * returns their ids.
+     */
+    private List<Long> cancelAll( RefundTier refundTier, List<Reservation> reservations, LocalDateTime now )
+    {
+	List<Long> cancelled = new ArrayList<>( );
+	for( int from = 0; from < reservations.size( ); from += CANCEL_BATCH_SIZE )
+	{
+	    List<Reservation> batch = reservations.subList( from,
+			    Math.min( from + CANCEL_BATCH_SIZE, reservations.size( ) ) );
+	    List<Long> ids = reservationRepository.findLockedIdsByIdInAndReservationStatus(
+			    batch.stream( ).map( Reservation::getId ).collect( Collectors.toList( ) ),
+			    ReservationStatus.READY_TO_PLAY );
+	    if( ids.isEmpty( ) )
+		continue;
+
+	    reservationRepository.cancelAll( ids, refundTier.getRefundRate( ), refundTier.getKeptRate( ), now,
+			    CustomAuditEntityListener.USER_SYSTEM_ID, nodeIdentity.ipNumber( ), ReservationStatus.CANCELLED,
+			    ReservationStatus.READY_TO_PLAY );
+	    Set<Long>  locked      = new HashSet<>( ids );
+	    List<Long> scheduleIds = batch.stream( ).filter( reservation -> locked.contains( reservation.getId( ) ) )
+			    .map( reservation -> reservation.getSchedule( ).getId( ) ).collect( Collectors.toList( ) );
+	    courtSlotViewRepository.release( scheduleIds, ids, CourtSlotStatus.FREE );
+	    // The court is closed for those slots: nobody waiting for them is promoted
+	    waitlistEntryRepository.expireWaiting( scheduleIds, now, CustomAuditEntityListener.USER_SYSTEM_ID,
+			    nodeIdentity.ipNumber( ), WaitlistStatus.EXPIRED );
+	    cancelled.addAll( ids );
+	}
+
+	return cancelled;
+    }
+
     private Reservation cancel( Long reservationId )
     {
 	return reservationRepository.findById( reservationId ).map( reservation -> {
@@ -71,7 +294,19 @@ public class ReservationService
 	    this.validateCancellation( reservation );
 
 	    BigDecimal refundValue = getRefundValue( reservation );
-	    return this.updateReservation( reservation, refundValue, ReservationStatus.CANCELLED );
+	    Cancellation cancellation = transactionTemplate.execute( status -> {
+		Reservation cancelled = releaseSlotView(
+				this.updateReservation( reservation, refundValue, ReservationStatus.CANCELLED ) );
+		return new Cancellation( cancelled, promoteWaiting( cancelled.getSchedule( ), "cancelReservation" ) );
+	    } );
+
+	    released( cancellation.getReservation( ), SlotEventType.CANCELLED );
+	    if( cancellation.getPromotedReservation( ) != null )
+		occupied( cancellation.getPromotedReservation( ) );
+	    // Both records share a single journal sync
+	    journal( journaled( cancellation.getReservation( ), cancellation.getPromotedReservation( ) ) );
+
+	    return cancellation.getReservation( );
 
 	} ).orElseThrow( ( ) -> {
 	    throw new EntityNotFoundException( "Reservation not found." );
@@ -84,7 +319,8 @@ public class ReservationService
 	reservation.setValue( reservation.getValue( ).subtract( refundValue ) );
 	reservation.setRefundValue( refundValue );
 
-	return reservationRepository.save( reservation );
+	// Flushed before the promotion inserts the reservation taking over the slot
+	return reservationRepository.saveAndFlush( reservation );
     }
 
     private void validateCancellation( Reservation reservation )
@@ -94,7 +330,7 @@ public class ReservationService
 	    throw new IllegalArgumentException( "Cannot cancel/reschedule because it's not in ready to play status." );
 	}
 
-	if( reservation.getSchedule( ).getStartDateTime( ).isBefore( LocalDateTime.now( ) ) )
+	if( reservation.getSchedule( ).getStartDateTime( ).isBefore( LocalDateTime.now( clock ) ) )
 	{
 	    throw new IllegalArgumentException( "Can cancel/reschedule only future dates." );
 	}
@@ -102,26 +338,57 @@ public class ReservationService
 
     public BigDecimal getRefundValue( Reservation reservation )
     {
-	long hours = ChronoUnit.HOURS.between( LocalDateTime.now( ), reservation.getSchedule( ).getStartDateTime( ) );
+	return RefundTier.of( LocalDateTime.now( clock ), reservation.getSchedule( ).getStartDateTime( ) )
+			.refund( reservation.getValue( ) );
+    }
 
-	if( hours >= 24 )
-	    return reservation.getValue( );
+    /**
+     * Moves a reservation to another slot in a single transaction: the new reservation claims the target slot first and
+     * only then the previous one is marked as rescheduled. A conflict on either side rolls back both, so the guest never
+     * ends up with two reservations or none.
+     */
+    public ReservationDTO rescheduleReservation( Long previousReservationId, Long scheduleId )
+    {
+	Rescheduling rescheduling;
+	try
+	{
+	    rescheduling = transactionTemplate.execute( status -> reschedule( previousReservationId, scheduleId ) );
+	}
+	catch( ObjectOptimisticLockingFailureException e )
+	{
+	    if( WaitlistEntry.class.getName( ).equals( e.getPersistentClassName( ) ) )
+		throw new IllegalArgumentException( "Cannot reschedule: The waitlist of the previous slot changed, retry." );
 
-	if( hours >= 12 )
-	    return reservation.getValue( ).multiply( BigDecimal.valueOf( 0.75 ) );
+	    // A concurrent cancel or reschedule changed the previous reservation first
+	    throw new IllegalArgumentException( "Cannot reschedule: The reserve its not ready to play." );
+	}
+	catch( AlreadyExistsEntityException e )
+	{
+	    // Refreshed once the transaction is over, the failed insert left its session unusable
+	    reservationOccupancyIndex.refresh( scheduleId );
+	    throw e;
+	}
 
-	if( hours >= 2 )
-	    return reservation.getValue( ).multiply( BigDecimal.valueOf( 0.50 ) );
+	released( rescheduling.getPreviousReservation( ), SlotEventType.RESCHEDULED );
+	occupied( rescheduling.getReservation( ) );
+	if( rescheduling.getPromotedReservation( ) != null )
+	    occupied( rescheduling.getPromotedReservation( ) );
+	// All records share a single journal sync
+	journal( journaled( rescheduling.getPreviousReservation( ), rescheduling.getReservation( ),
+			rescheduling.getPromotedReservation( ) ) );
 
-	if( hours >= 0 )
-	    return reservation.getValue( ).multiply( BigDecimal.valueOf( 0.25 ) );
+	ReservationDTO reservation = reservationMapper.map( rescheduling.getReservation( ) );
+	reservation.setPreviousReservation( reservationMapper.map( rescheduling.getPreviousReservation( ) ) );
 
-	return BigDecimal.ZERO;
+	return reservation;
     }
 
-    public ReservationDTO rescheduleReservation( Long previousReservationId, Long scheduleId )
+    private Rescheduling reschedule( Long previousReservationId, Long scheduleId )
     {
-	Reservation previousReservation = reservationMapper.map( findReservation( previousReservationId ) );
+	Reservation previousReservation = reservationRepository.findWithGraphById( previousReservationId )
+			.<EntityNotFoundException>orElseThrow( ( ) -> {
+			    throw new EntityNotFoundException( "Reservation not found." );
+			} );
 
 	if( scheduleId.equals( previousReservation.getSchedule( ).getId( ) ) )
 	    throw new IllegalArgumentException( "Cannot reschedule to the same slot." );
@@ -129,34 +396,334 @@ public class ReservationService
 	if( !ReservationStatus.READY_TO_PLAY.equals( previousReservation.getReservationStatus( ) ) )
 	    throw new IllegalArgumentException( "Cannot reschedule: The reserve its not ready to play." );
 
-	BigDecimal refund = getRefundValue( previousReservation );
+	Schedule schedule = scheduleService.getScheduleMapper( ).map( scheduleService.listById( scheduleId ) );
+
+	if( reservationExists( schedule ) )
+	{
+	    bookingMetrics.conflict( "rescheduleReservation" );
+	    throw new AlreadyExistsEntityException( "Reservation already exists." );
+	}
+
+	if( reservationInPast( schedule ) )
+	{
+	    bookingMetrics.pastDateRejected( "rescheduleReservation" );
+	    throw new IllegalArgumentException( "It is forbidden to reserve on past." );
+	}
+
+	Reservation reservation = bookSlotView(
+			insertReservation( newReservation( previousReservation.getGuest( ), schedule ),
+					"rescheduleReservation" ) );
 
+	// Managed entity: flushed as one update guarded by the previous status
+	BigDecimal refund = getRefundValue( previousReservation );
 	previousReservation.setReservationStatus( ReservationStatus.RESCHEDULED );
 	previousReservation.setValue( previousReservation.getValue( ).subtract( refund ) );
 	previousReservation.setRefundValue( refund );
-	reservationRepository.save( previousReservation );
+	reservationRepository.flush( );
+	releaseSlotView( previousReservation );
+
+	return new Rescheduling( previousReservation, reservation,
+			promoteWaiting( previousReservation.getSchedule( ), "rescheduleReservation" ) );
+    }
+
+    /**
+     * Queues a guest for a taken slot instead of retrying the booking: cancelling or rescheduling the reservation of
+     * the slot hands it to the guest waiting the longest, in the same transaction. A slot found free once the guest is
+     * queued is handed over right away.
+     */
+    public WaitlistEntryDTO joinWaitlist( CreateReservationRequestDTO createReservationRequestDTO )
+    {
+	ScheduleDTO scheduleDTO = scheduleService.listById( createReservationRequestDTO.getScheduleId( ) );
+	Schedule    schedule    = scheduleService.getScheduleMapper( ).map( scheduleDTO );
+
+	if( reservationInPast( schedule ) )
+	{
+	    bookingMetrics.pastDateRejected( "joinWaitlist" );
+	    throw new IllegalArgumentException( "It is forbidden to reserve on past." );
+	}
+
+	GuestDTO guestDTO = guestService.findById( createReservationRequestDTO.getGuestId( ) );
+	Guest    guest    = guestService.getGuestMapper( ).map( guestDTO );
+
+	WaitlistEntry waitlistEntry = WaitlistEntry.builder( )
+			.guest( guest )
+			.schedule( schedule )
+			.waitlistStatus( WaitlistStatus.WAITING )
+			.build( );
+
+	Boolean free;
+	try
+	{
+	    free = transactionTemplate.execute( status -> {
+		waitlistEntryRepository.saveAndFlush( waitlistEntry );
+
+		// Queued first, then the lock: a cancellation in flight either sees the entry or has committed once the
+		// lock is granted, and the slot is then found free
+		Optional<Reservation> active = reservationRepository.findLockedByActiveScheduleId( schedule.getId( ) );
+		if( active.isPresent( ) && guest.getId( ).equals( active.get( ).getGuest( ).getId( ) ) )
+		    throw new IllegalArgumentException( "The guest already holds this slot." );
+
+		return !active.isPresent( );
+	    } );
+	}
+	catch( DataIntegrityViolationException e )
+	{
+	    throw new AlreadyExistsEntityException( "The guest is already waiting for this slot." );
+	}
+
+	if( Boolean.TRUE.equals( free ) )
+	    promoteFreed( schedule );
+
+	return findWaitlistEntry( waitlistEntry.getId( ) );
+    }
+
+    public WaitlistEntryDTO findWaitlistEntry( Long waitlistEntryId )
+    {
+	return waitlistEntryRepository.findById( waitlistEntryId ).map( this::waitlistEntry )
+			.<EntityNotFoundException>orElseThrow( ( ) -> {
+			    throw new EntityNotFoundException( "Waitlist entry not found." );
+			} );
+    }
+
+    public WaitlistEntryDTO leaveWaitlist( Long waitlistEntryId )
+    {
+	WaitlistEntry left;
+	try
+	{
+	    left = transactionTemplate.execute( status -> {
+		WaitlistEntry waitlistEntry = waitlistEntryRepository.findLockedById( waitlistEntryId )
+				.<EntityNotFoundException>orElseThrow( ( ) -> {
+				    throw new EntityNotFoundException( "Waitlist entry not found." );
+				} );
 
-	ReservationDTO reservation = bookReservation(
-			CreateReservationRequestDTO.builder( )
-					.guestId( previousReservation.getGuest( ).getId( ) )
-					.scheduleId( scheduleId )
-					.build( ) );
+		if( !WaitlistStatus.WAITING.equals( waitlistEntry.getWaitlistStatus( ) ) )
+		    throw new IllegalArgumentException( "Cannot leave: The guest is no longer waiting." );
 
-	reservation.setPreviousReservation( reservationMapper.map( previousReservation ) );
+		// Managed entity: flushed as one update guarded by the previous status
+		waitlistEntry.setWaitlistStatus( WaitlistStatus.LEFT );
+		waitlistEntryRepository.flush( );
 
+		return waitlistEntry;
+	    } );
+	}
+	catch( ObjectOptimisticLockingFailureException e )
+	{
+	    // A concurrent cancellation promoted the guest first
+	    throw new IllegalArgumentException( "Cannot leave: The guest is no longer waiting." );
+	}
+
+	return waitlistEntry( left );
+    }
+
+    /**
+     * Takes the guests out of the queues of the slots that have started: nobody can be promoted to them anymore.
+     */
+    @Scheduled( fixedDelayString = "${tenniscourts.waitlist.expiry-interval-ms:60000}" )
+    public int expireWaitlists( )
+    {
+	return transactionTemplate.execute( status -> waitlistEntryRepository.expireStarted( LocalDateTime.now( clock ),
+			CustomAuditEntityListener.USER_SYSTEM_ID, nodeIdentity.ipNumber( ), WaitlistStatus.EXPIRED ) );
+    }
+
+    /**
+     * Hands a freed slot to the guest waiting the longest for it, within the caller's transaction. The entry is locked
+     * first, so a guest leaving concurrently either left before and is skipped, or leaves once it is promoted.
+     */
+    private Reservation promoteWaiting( Schedule schedule, String operation )
+    {
+	return waitlistEntryRepository.findFirstLockedByWaitingScheduleIdOrderById( schedule.getId( ) ).map( waitlistEntry -> {
+	    Reservation reservation = bookSlotView(
+			    insertReservation( newReservation( waitlistEntry.getGuest( ), schedule ), operation ) );
+
+	    // Managed entity: flushed on commit, guarded by the previous status
+	    waitlistEntry.setWaitlistStatus( WaitlistStatus.PROMOTED );
+	    waitlistEntry.setReservationId( reservation.getId( ) );
+
+	    return reservation;
+	} ).orElse( null );
+    }
+
+    private void promoteFreed( Schedule schedule )
+    {
+	try
+	{
+	    Reservation promoted = transactionTemplate.execute( status -> promoteWaiting( schedule, "joinWaitlist" ) );
+	    if( promoted != null )
+		occupy( promoted );
+	}
+	catch( AlreadyExistsEntityException e )
+	{
+	    // Booked meanwhile: the queue now waits for that reservation to be cancelled
+	    reservationOccupancyIndex.refresh( schedule.getId( ) );
+	}
+    }
+
+    private WaitlistEntryDTO waitlistEntry( WaitlistEntry waitlistEntry )
+    {
+	Long scheduleId = waitlistEntry.getSchedule( ).getId( );
+
+	return WaitlistEntryDTO.builder( )
+			.id( waitlistEntry.getId( ) )
+			.guestId( waitlistEntry.getGuest( ).getId( ) )
+			.scheduleId( scheduleId )
+			.waitlistStatus( waitlistEntry.getWaitlistStatus( ).name( ) )
+			.position( WaitlistStatus.WAITING.equals( waitlistEntry.getWaitlistStatus( ) )
+					? waitlistEntryRepository.countByWaitingScheduleIdAndIdLessThan( scheduleId,
+							waitlistEntry.getId( ) ) + 1
+					: null )
+			.reservationId( waitlistEntry.getReservationId( ) )
+			.build( );
+    }
+
+    private Reservation[] journaled( Reservation... reservations )
+    {
+	return Stream.of( reservations ).filter( Objects::nonNull ).toArray( Reservation[]::new );
+    }
+
+    private void bookBatchItem( Map<Long, ReservationBatchItemDTO> items, Guest guest, Schedule schedule )
+    {
+	try
+	{
+	    bookedItem( items, claimSchedule( newReservation( guest, schedule ), "bookReservations" ) );
+	}
+	catch( AlreadyExistsEntityException e )
+	{
+	    items.put( schedule.getId( ),
+			    batchItem( schedule.getId( ), ReservationBatchItemStatus.REJECTED, e.getMessage( ) ) );
+	}
+    }
+
+    private void bookedItem( Map<Long, ReservationBatchItemDTO> items, Reservation reservation )
+    {
+	Long scheduleId = reservation.getSchedule( ).getId( );
+
+	occupy( reservation );
+	items.put( scheduleId, ReservationBatchItemDTO.builder( )
+			.scheduleId( scheduleId )
+			.status( ReservationBatchItemStatus.BOOKED )
+			.reservationId( reservation.getId( ) )
+			.build( ) );
+    }
+
+    private void occupy( Reservation reservation )
+    {
+	occupied( reservation );
+	journal( reservation );
+    }
+
+    private void occupied( Reservation reservation )
+    {
+	reservationOccupancyIndex.occupy( reservation.getSchedule( ).getId( ), reservation.getId( ) );
+	applicationEventPublisher.publishEvent(
+			SlotEvent.of( SlotEventType.BOOKED, reservation.getSchedule( ), reservation.getId( ) ) );
+    }
+
+    private void release( Reservation reservation, SlotEventType slotEventType )
+    {
+	released( reservation, slotEventType );
+	journal( reservation );
+    }
+
+    /**
+     * The transition is already committed, indexed and published: a journal that cannot take it is logged and counted
+     * instead of failing a request whose reservation holds.
+     */
+    private void journal( Reservation... reservations )
+    {
+	try
+	{
+	    reservationJournal.append( reservations );
+	}
+	catch( RuntimeException e )
+	{
+	    log.error( "Reservation transition committed but not journaled", e );
+	    bookingMetrics.journalFailed( );
+	}
+    }
+
+    private void released( Reservation reservation, SlotEventType slotEventType )
+    {
+	reservationOccupancyIndex.release( reservation.getSchedule( ).getId( ), reservation.getId( ) );
+	applicationEventPublisher.publishEvent(
+			SlotEvent.of( slotEventType, reservation.getSchedule( ), reservation.getId( ) ) );
+    }
+
+    private ReservationBatchItemDTO batchItem( Long scheduleId, ReservationBatchItemStatus status, String message )
+    {
+	return ReservationBatchItemDTO.builder( ).scheduleId( scheduleId ).status( status ).message( message ).build( );
+    }
+
+    private Reservation newReservation( Guest guest, Schedule schedule )
+    {
+	return Reservation.builder( )
+			.guest( guest )
+			.schedule( schedule )
+			.reservationStatus( ReservationStatus.READY_TO_PLAY ).value( RESERVATION_FEE )
+			.build( );
+    }
+
+    private Reservation claimSchedule( Reservation reservation, String operation )
+    {
+	try
+	{
+	    return transactionTemplate.execute( status -> bookSlotView( insertReservation( reservation, operation ) ) );
+	}
+	catch( AlreadyExistsEntityException e )
+	{
+	    // Another request (possibly on another node) holds the active reservation of this slot
+	    reservationOccupancyIndex.refresh( reservation.getSchedule( ).getId( ) );
+	    throw e;
+	}
+    }
+
+    private Reservation insertReservation( Reservation reservation, String operation )
+    {
+	try
+	{
+	    return reservationRepository.saveAndFlush( reservation );
+	}
+	catch( DataIntegrityViolationException e )
+	{
+	    bookingMetrics.conflict( operation );
+	    throw new AlreadyExistsEntityException( "Reservation already exists." );
+	}
+    }
+
+    private Reservation bookSlotView( Reservation reservation )
+    {
+	courtSlotViewRepository.book( reservation.getSchedule( ).getId( ), reservation.getId( ), CourtSlotStatus.BOOKED );
 	return reservation;
     }
 
-    private boolean reservationExists( Schedule schedule )
+    private Reservation releaseSlotView( Reservation reservation )
     {
-        List<Reservation> reservationList = reservationRepository.findBySchedule_Id( schedule.getId( ) );
+	courtSlotViewRepository.release( Collections.singletonList( reservation.getSchedule( ).getId( ) ),
+			Collections.singletonList( reservation.getId( ) ), CourtSlotStatus.FREE );
+	return reservation;
+    }
 
-        return reservationList.stream( )
-                        .anyMatch( reservation -> ReservationStatus.READY_TO_PLAY.equals( reservation.getReservationStatus( ) ) );
+    private boolean reservationExists( Schedule schedule )
+    {
+        return reservationOccupancyIndex.isOccupied( schedule.getId( ) );
     }
 
     private boolean reservationInPast( Schedule schedule )
     {
-        return schedule.getStartDateTime( ).isBefore( LocalDateTime.now( ) );
+        return schedule.getStartDateTime( ).isBefore( LocalDateTime.now( clock ) );
+    }
+
+    @Value
+    private static class Cancellation
+    {
+	Reservation reservation;
+	Reservation promotedReservation;
+    }
+
+    @Value
+    private static class Rescheduling
+    {
+	Reservation previousReservation;
+	Reservation reservation;
+	Reservation promotedReservation;
     }
 }
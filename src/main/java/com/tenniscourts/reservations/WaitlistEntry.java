@@ -0,0 +1,74 @@
+package com.tenniscourts.reservations;
+
+import com.tenniscourts.config.persistence.BaseEntity;
+import com.tenniscourts.guests.Guest;
+import com.tenniscourts.schedules.Schedule;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.DynamicUpdate;
+import org.hibernate.annotations.OptimisticLockType;
+import org.hibernate.annotations.OptimisticLocking;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Index;
+import javax.persistence.ManyToOne;
+import javax.persistence.PrePersist;
+import javax.persistence.PreUpdate;
+import javax.persistence.Table;
+import javax.persistence.UniqueConstraint;
+import javax.validation.constraints.NotNull;
+
+/**
+ * A guest queued for a taken slot. The slot goes to the entries in the order they were created (ids are increasing),
+ * and updates check the previous status, so an entry left and promoted concurrently fails with an optimistic locking
+ * error.
+ */
+@Entity
+@DynamicUpdate
+@OptimisticLocking( type = OptimisticLockType.DIRTY )
+@Table( uniqueConstraints = @UniqueConstraint( name = "uk_waitlist_entry_waiting_guest",
+		columnNames = { "guest_id", "waiting_schedule_id" } ),
+		indexes = @Index( name = "idx_waitlist_entry_waiting", columnList = "waiting_schedule_id, id" ) )
+@Data
+@EqualsAndHashCode( callSuper = true )
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class WaitlistEntry extends BaseEntity<Long>
+{
+
+    @ManyToOne( optional = false )
+    @NotNull
+    private Guest guest;
+
+    @ManyToOne( optional = false )
+    @NotNull
+    private Schedule schedule;
+
+    @NotNull
+    @Builder.Default
+    private WaitlistStatus waitlistStatus = WaitlistStatus.WAITING;
+
+    /**
+     * The reservation the guest was promoted to.
+     */
+    private Long reservationId;
+
+    /**
+     * Schedule id while the guest is waiting, null otherwise: the queue of a slot, and the unique constraint keeping a
+     * guest in it once.
+     */
+    @Column( name = "waiting_schedule_id" )
+    private Long waitingScheduleId;
+
+    @PrePersist
+    @PreUpdate
+    private void queue( )
+    {
+	waitingScheduleId = WaitlistStatus.WAITING.equals( waitlistStatus ) ? schedule.getId( ) : null;
+    }
+}
@@ -0,0 +1,31 @@
+package com.tenniscourts.reservations;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class WaitlistEntryDTO
+{
+    private Long id;
+
+    private Long guestId;
+
+    private Long scheduleId;
+
+    private String waitlistStatus;
+
+    /**
+     * Place in the queue of the slot, 1 for the next guest promoted; null once the guest is no longer waiting.
+     */
+    private Long position;
+
+    /**
+     * The reservation the guest was promoted to.
+     */
+    private Long reservationId;
+}
@@ -0,0 +1,52 @@
+package com.tenniscourts.reservations;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import javax.persistence.LockModeType;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.Optional;
+
+public interface WaitlistEntryRepository extends JpaRepository<WaitlistEntry, Long> {
+
+    /**
+     * The head of the queue of a slot, the guest waiting the longest, locked: waits for the guest leaving meanwhile.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    Optional<WaitlistEntry> findFirstLockedByWaitingScheduleIdOrderById(Long scheduleId);
+
+    /**
+     * An entry locked until the end of the transaction: waits for a promotion of it still in flight.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    Optional<WaitlistEntry> findLockedById(Long id);
+
+    /**
+     * Takes the guests still waiting for slots started by now out of the queues, and stamps them the way
+     * {@link com.tenniscourts.audit.CustomAuditEntityListener} stamps an entity update.
+     */
+    @Modifying
+    @Query("update WaitlistEntry e set e.waitlistStatus = :expired, e.waitingScheduleId = null, "
+            + "e.dateUpdate = :dateUpdate, e.userUpdate = :userUpdate, e.ipNumberUpdate = :ipNumberUpdate "
+            + "where e.waitingScheduleId in (select s.id from Schedule s where s.startDateTime <= :dateUpdate)")
+    int expireStarted(@Param("dateUpdate") LocalDateTime dateUpdate, @Param("userUpdate") Long userUpdate,
+            @Param("ipNumberUpdate") String ipNumberUpdate, @Param("expired") WaitlistStatus expired);
+
+    /**
+     * Takes the guests still waiting for the given slots out of their queues, e.g. once the slots are cancelled for
+     * good, stamped as {@link #expireStarted} does.
+     */
+    @Modifying
+    @Query("update WaitlistEntry e set e.waitlistStatus = :expired, e.waitingScheduleId = null, "
+            + "e.dateUpdate = :dateUpdate, e.userUpdate = :userUpdate, e.ipNumberUpdate = :ipNumberUpdate "
+            + "where e.waitingScheduleId in :scheduleIds")
+    int expireWaiting(@Param("scheduleIds") Collection<Long> scheduleIds, @Param("dateUpdate") LocalDateTime dateUpdate,
+            @Param("userUpdate") Long userUpdate, @Param("ipNumberUpdate") String ipNumberUpdate,
+            @Param("expired") WaitlistStatus expired);
+
+    long countByWaitingScheduleIdAndIdLessThan(Long scheduleId, Long id);
+}
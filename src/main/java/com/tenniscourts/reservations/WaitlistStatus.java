@@ -0,0 +1,8 @@
+package com.tenniscourts.reservations;
+
+public enum WaitlistStatus {
+  WAITING,
+  PROMOTED,
+  LEFT,
+  EXPIRED
+}
@@ -0,0 +1,236 @@
+package com.tenniscourts.schedules;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-memory availability of every court, one {@link CourtDaySlots} bitset per court and day, built from the schedules
+ * and their active reservations at startup and kept current by {@link SlotEvent}s. Free slot searches are answered
+ * with bitwise operations and no SQL.
+ * <p>
+ * The events only come from this node. Changes made through other nodes, or straight in the database, are picked up by
+ * the periodic rebuild ({@code tenniscourts.availability.refresh-interval-ms}), so until then they may be missing. The
+ * events committed while a rebuild reads the database are applied again to the rebuilt bitsets before they replace the
+ * current ones.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class AvailabilityEngine
+{
+    private static final long MAX_RANGE_DAYS = 366;
+
+    private final ScheduleJdbcRepository scheduleJdbcRepository;
+
+    private final Object refreshLock = new Object( );
+
+    private volatile Map<Long, Map<Long, CourtDaySlots>> courtDays = new ConcurrentHashMap<>( );
+
+    /**
+     * The events committed since the rebuild in progress started, null when none is.
+     */
+    private List<SlotEvent> pendingEvents;
+
+    @EventListener( ApplicationReadyEvent.class )
+    public void warmUp( )
+    {
+	refresh( );
+    }
+
+    @Scheduled( initialDelayString = "${tenniscourts.availability.refresh-interval-ms:300000}",
+		    fixedDelayString = "${tenniscourts.availability.refresh-interval-ms:300000}" )
+    public synchronized void refresh( )
+    {
+	synchronized( refreshLock )
+	{
+	    pendingEvents = new ArrayList<>( );
+	}
+
+	Map<Long, Map<Long, CourtDaySlots>> rebuilt = new ConcurrentHashMap<>( );
+	try
+	{
+	    scheduleJdbcRepository.streamWithActiveReservation( ( scheduleDTO, activeReservationId ) -> {
+		addSlot( rebuilt, scheduleDTO.getId( ), scheduleDTO.getTennisCourtId( ), scheduleDTO.getStartDateTime( ),
+				scheduleDTO.getEndDateTime( ) );
+		if( activeReservationId != null )
+		    setBooked( rebuilt, scheduleDTO.getTennisCourtId( ), scheduleDTO.getStartDateTime( ), true );
+	    } );
+	}
+	catch( RuntimeException e )
+	{
+	    synchronized( refreshLock )
+	    {
+		pendingEvents = null;
+	    }
+	    throw e;
+	}
+
+	synchronized( refreshLock )
+	{
+	    // Each event sets a state, so one the database already showed changes nothing
+	    pendingEvents.forEach( slotEvent -> apply( rebuilt, slotEvent ) );
+	    pendingEvents = null;
+	    courtDays = rebuilt;
+	}
+    }
+
+    @TransactionalEventListener( fallbackExecution = true )
+    public void onSlotEvent( SlotEvent slotEvent )
+    {
+	Map<Long, Map<Long, CourtDaySlots>> current;
+	synchronized( refreshLock )
+	{
+	    if( pendingEvents != null )
+		pendingEvents.add( slotEvent );
+	    current = courtDays;
+	}
+
+	apply( current, slotEvent );
+    }
+
+    private void apply( Map<Long, Map<Long, CourtDaySlots>> days, SlotEvent slotEvent )
+    {
+	switch( slotEvent.getType( ) )
+	{
+	    case CREATED:
+		addSlot( days, slotEvent.getScheduleId( ), slotEvent.getTennisCourtId( ), slotEvent.getStartDateTime( ),
+				slotEvent.getEndDateTime( ) );
+		break;
+	    case BOOKED:
+		setBooked( days, slotEvent.getTennisCourtId( ), slotEvent.getStartDateTime( ), true );
+		break;
+	    case CANCELLED:
+	    case RESCHEDULED:
+		setBooked( days, slotEvent.getTennisCourtId( ), slotEvent.getStartDateTime( ), false );
+		break;
+	}
+    }
+
+    public List<ScheduleDTO> findFree( Collection<Long> tennisCourtIds, LocalDateTime startDateTime,
+		    LocalDateTime endDateTime )
+    {
+	if( endDateTime.isBefore( startDateTime ) )
+	    throw new IllegalArgumentException( "The end date must not be before the start date" );
+
+	if( ChronoUnit.DAYS.between( startDateTime, endDateTime ) > MAX_RANGE_DAYS )
+	    throw new IllegalArgumentException( "It's forbidden search more than " + MAX_RANGE_DAYS + " days at once" );
+
+	long firstDay = startDateTime.toLocalDate( ).toEpochDay( );
+	long lastDay  = endDateTime.toLocalDate( ).toEpochDay( );
+	int  fromSlot = ( minuteOfDay( startDateTime ) + CourtDaySlots.SLOT_MINUTES - 1 ) / CourtDaySlots.SLOT_MINUTES;
+	int  toSlot   = minuteOfDay( endDateTime ) / CourtDaySlots.SLOT_MINUTES;
+
+	List<ScheduleDTO>                   freeSlots = new ArrayList<>( );
+	Map<Long, Map<Long, CourtDaySlots>> current   = courtDays;
+
+	tennisCourtIds.stream( ).sorted( ).forEach( tennisCourtId -> {
+	    Map<Long, CourtDaySlots> days = current.get( tennisCourtId );
+	    if( days == null )
+		return;
+
+	    for( long epochDay = firstDay; epochDay <= lastDay; epochDay++ )
+	    {
+		CourtDaySlots daySlots = days.get( epochDay );
+		if( daySlots == null )
+		    continue;
+
+		LocalDateTime dayStart = LocalDate.ofEpochDay( epochDay ).atStartOfDay( );
+		daySlots.forEachFree( epochDay == firstDay ? fromSlot : 0,
+				epochDay == lastDay ? toSlot : CourtDaySlots.SLOTS_PER_DAY, ( slot, scheduleId, length ) -> {
+				    LocalDateTime slotStart = dayStart.plusMinutes( ( long ) slot * CourtDaySlots.SLOT_MINUTES );
+				    LocalDateTime slotEnd = slotStart.plusMinutes( ( long ) length * CourtDaySlots.SLOT_MINUTES );
+				    if( !slotEnd.isAfter( endDateTime ) )
+					freeSlots.add( toScheduleDTO( scheduleId, tennisCourtId, slotStart, slotEnd ) );
+				} );
+	    }
+	} );
+
+	return freeSlots;
+    }
+
+    void addSlot( Long scheduleId, Long tennisCourtId, LocalDateTime startDateTime, LocalDateTime endDateTime )
+    {
+	addSlot( courtDays, scheduleId, tennisCourtId, startDateTime, endDateTime );
+    }
+
+    void setBooked( Long tennisCourtId, LocalDateTime startDateTime, boolean isBooked )
+    {
+	setBooked( courtDays, tennisCourtId, startDateTime, isBooked );
+    }
+
+    private void addSlot( Map<Long, Map<Long, CourtDaySlots>> days, Long scheduleId, Long tennisCourtId,
+		    LocalDateTime startDateTime, LocalDateTime endDateTime )
+    {
+	long minutes = Duration.between( startDateTime, endDateTime ).toMinutes( );
+
+	if( !isOnGrid( startDateTime ) || minutes <= 0 || minutes % CourtDaySlots.SLOT_MINUTES != 0
+			|| minutes / CourtDaySlots.SLOT_MINUTES > Byte.MAX_VALUE )
+	{
+	    log.warn( "Schedule #{} does not fit the {} minutes availability grid and is left out", scheduleId,
+			    CourtDaySlots.SLOT_MINUTES );
+	    return;
+	}
+
+	days.computeIfAbsent( tennisCourtId, id -> new ConcurrentHashMap<>( ) )
+			.computeIfAbsent( startDateTime.toLocalDate( ).toEpochDay( ), epochDay -> new CourtDaySlots( ) )
+			.add( slotOf( startDateTime ), scheduleId, ( int ) ( minutes / CourtDaySlots.SLOT_MINUTES ) );
+    }
+
+    private static void setBooked( Map<Long, Map<Long, CourtDaySlots>> days, Long tennisCourtId,
+		    LocalDateTime startDateTime, boolean isBooked )
+    {
+	if( !isOnGrid( startDateTime ) )
+	    return;
+
+	Map<Long, CourtDaySlots> courtDaySlots = days.get( tennisCourtId );
+	CourtDaySlots daySlots = courtDaySlots == null ? null
+			: courtDaySlots.get( startDateTime.toLocalDate( ).toEpochDay( ) );
+
+	if( daySlots != null )
+	    daySlots.setBooked( slotOf( startDateTime ), isBooked );
+    }
+
+    static boolean isOnGrid( LocalDateTime dateTime )
+    {
+	return dateTime.getMinute( ) % CourtDaySlots.SLOT_MINUTES == 0 && dateTime.getSecond( ) == 0
+			&& dateTime.getNano( ) == 0;
+    }
+
+    private static int slotOf( LocalDateTime dateTime )
+    {
+	return minuteOfDay( dateTime ) / CourtDaySlots.SLOT_MINUTES;
+    }
+
+    private static int minuteOfDay( LocalDateTime dateTime )
+    {
+	int minute = dateTime.getHour( ) * 60 + dateTime.getMinute( );
+	return dateTime.getSecond( ) == 0 && dateTime.getNano( ) == 0 ? minute : minute + 1;
+    }
+
+    private static ScheduleDTO toScheduleDTO( long scheduleId, Long tennisCourtId, LocalDateTime startDateTime,
+		    LocalDateTime endDateTime )
+    {
+	ScheduleDTO scheduleDTO = new ScheduleDTO( );
+	scheduleDTO.setId( scheduleId );
+	scheduleDTO.setTennisCourtId( tennisCourtId );
+	scheduleDTO.setStartDateTime( startDateTime );
+	scheduleDTO.setEndDateTime( endDateTime );
+
+	return scheduleDTO;
+    }
+}
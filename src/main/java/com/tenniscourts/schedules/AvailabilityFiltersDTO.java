@@ -0,0 +1,27 @@
+package com.tenniscourts.schedules;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import lombok.Getter;
+import lombok.Setter;
+
+import javax.validation.constraints.NotEmpty;
+import javax.validation.constraints.NotNull;
+import java.time.LocalDateTime;
+import java.util.Set;
+
+@Getter
+@Setter
+public class AvailabilityFiltersDTO
+{
+    @NotEmpty
+    private Set<Long> tennisCourtIds;
+
+    @JsonFormat( pattern = "yyyy-MM-dd'T'HH:mm" )
+    @NotNull
+    private LocalDateTime startDateTime;
+
+    @JsonFormat( pattern = "yyyy-MM-dd'T'HH:mm" )
+    @NotNull
+    private LocalDateTime endDateTime;
+
+}
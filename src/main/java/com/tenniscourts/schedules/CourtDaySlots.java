@@ -0,0 +1,97 @@
+package com.tenniscourts.schedules;
+
+import java.util.Arrays;
+
+/**
+ * Slot occupancy of one tennis court on one day, kept as two bitsets over the quarter hours of the day: the quarters
+ * where a slot starts and the ones whose slot is booked. Schedule ids and slot lengths are stored densely in bit order
+ * and located by the rank (population count of the lower bits) of a slot.
+ */
+final class CourtDaySlots
+{
+    static final int SLOT_MINUTES  = 15;
+    static final int SLOTS_PER_DAY = 24 * 60 / SLOT_MINUTES;
+    static final int WORDS         = ( SLOTS_PER_DAY + Long.SIZE - 1 ) / Long.SIZE;
+
+    private final long[] scheduled   = new long[ WORDS ];
+    private final long[] booked      = new long[ WORDS ];
+    private       long[] scheduleIds = new long[ 0 ];
+    private       byte[] lengths     = new byte[ 0 ];
+
+    interface FreeSlotConsumer
+    {
+	void accept( int slot, long scheduleId, int length );
+    }
+
+    synchronized void add( int slot, long scheduleId, int length )
+    {
+	int  word = slot >>> 6;
+	long bit  = 1L << slot;
+	int  rank = rank( slot );
+
+	if( ( scheduled[ word ] & bit ) == 0 )
+	{
+	    scheduleIds = Arrays.copyOf( scheduleIds, scheduleIds.length + 1 );
+	    lengths = Arrays.copyOf( lengths, lengths.length + 1 );
+	    System.arraycopy( scheduleIds, rank, scheduleIds, rank + 1, scheduleIds.length - rank - 1 );
+	    System.arraycopy( lengths, rank, lengths, rank + 1, lengths.length - rank - 1 );
+	    scheduled[ word ] |= bit;
+	}
+
+	scheduleIds[ rank ] = scheduleId;
+	lengths[ rank ] = ( byte ) length;
+    }
+
+    synchronized void setBooked( int slot, boolean isBooked )
+    {
+	int  word = slot >>> 6;
+	long bit  = 1L << slot;
+
+	if( isBooked )
+	    booked[ word ] |= bit & scheduled[ word ];
+	else
+	    booked[ word ] &= ~bit;
+    }
+
+    /**
+     * Visits the free slots starting in [fromSlot, toSlot), in start order.
+     */
+    synchronized void forEachFree( int fromSlot, int toSlot, FreeSlotConsumer consumer )
+    {
+	for( int word = fromSlot >>> 6; word < WORDS && word * Long.SIZE < toSlot; word++ )
+	{
+	    long free = scheduled[ word ] & ~booked[ word ] & rangeMask( word, fromSlot, toSlot );
+
+	    while( free != 0 )
+	    {
+		int slot = word * Long.SIZE + Long.numberOfTrailingZeros( free );
+		int rank = rank( slot );
+		consumer.accept( slot, scheduleIds[ rank ], lengths[ rank ] );
+		free &= free - 1;
+	    }
+	}
+    }
+
+    private int rank( int slot )
+    {
+	int word  = slot >>> 6;
+	int count = Long.bitCount( scheduled[ word ] & ( ( 1L << slot ) - 1 ) );
+
+	for( int i = 0; i < word; i++ )
+	    count += Long.bitCount( scheduled[ i ] );
+
+	return count;
+    }
+
+    private static long rangeMask( int word, int fromSlot, int toSlot )
+    {
+	int low  = Math.max( fromSlot - word * Long.SIZE, 0 );
+	int high = Math.min( toSlot - word * Long.SIZE, Long.SIZE );
+
+	if( high <= low )
+	    return 0L;
+
+	long belowHigh = high == Long.SIZE ? -1L : ( 1L << high ) - 1;
+	return belowHigh & ( -1L << low );
+    }
+}
@@ -0,0 +1,99 @@
+package com.tenniscourts.schedules;
+
+import com.tenniscourts.tenniscourts.TennisCourtRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+/**
+ * Overlap check of the new slots of a court against the slots committed to the database, in the caller's transaction
+ * and with the court row locked: the check and the insert that follows it are atomic, whichever node or code path
+ * added the other slots. All the new slots are checked with a single range query, loaded into a {@link TreeMap} of
+ * the slot ends keyed by their starts, so a bulk costs one query per court rather than one per slot.
+ */
+@Component
+@RequiredArgsConstructor
+public class CourtSlotIntervals
+{
+    /**
+     * No slot lasts longer, so no slot starting earlier can still overlap a given start.
+     */
+    private static final long MAX_SLOT_MINUTES = Collections.max( ScheduleService.SLOT_LENGTHS );
+
+    private final ScheduleRepository scheduleRepository;
+
+    private final TennisCourtRepository tennisCourtRepository;
+
+    /**
+     * Returns the starts of the slots of {@code minutes} starting at each of the given starts that overlap no slot of
+     * the court; the others are left out. The given slots must be in start order and not overlap each other. Must be
+     * called within a transaction, which keeps the court locked until it ends.
+     */
+    public List<LocalDateTime> claimFree( Long tennisCourtId, Collection<LocalDateTime> starts, long minutes )
+    {
+	List<LocalDateTime> claimed = new ArrayList<>( );
+	if( starts.isEmpty( ) )
+	    return claimed;
+
+	tennisCourtRepository.findLockedIdsByIdIn( Collections.singletonList( tennisCourtId ) );
+
+	List<LocalDateTime> ordered = new ArrayList<>( starts );
+	LocalDateTime       first   = ordered.get( 0 );
+	LocalDateTime       last    = ordered.get( ordered.size( ) - 1 ).plusMinutes( minutes );
+	NavigableMap<LocalDateTime, LocalDateTime> committed = intervals( scheduleRepository.findOverlappingIntervals(
+			tennisCourtId, first.minusMinutes( MAX_SLOT_MINUTES ), first, last ) );
+
+	for( LocalDateTime start : ordered )
+	{
+	    if( !overlaps( committed, start, start.plusMinutes( minutes ) ) )
+		claimed.add( start );
+	}
+
+	return claimed;
+    }
+
+    /**
+     * Slots added before the check could overlap each other: each one is kept with the furthest end of the slots
+     * starting up to it, so the lookup still sees an earlier, longer one.
+     */
+    private static NavigableMap<LocalDateTime, LocalDateTime> intervals( List<ScheduleInterval> scheduleIntervals )
+    {
+	NavigableMap<LocalDateTime, LocalDateTime> intervals = new TreeMap<>( );
+	for( ScheduleInterval scheduleInterval : scheduleIntervals )
+	    intervals.merge( scheduleInterval.getStartDateTime( ), scheduleInterval.getEndDateTime( ),
+			    CourtSlotIntervals::latest );
+
+	LocalDateTime furthestEnd = null;
+	for( Map.Entry<LocalDateTime, LocalDateTime> interval : intervals.entrySet( ) )
+	{
+	    furthestEnd = furthestEnd == null ? interval.getValue( ) : latest( furthestEnd, interval.getValue( ) );
+	    interval.setValue( furthestEnd );
+	}
+
+	return intervals;
+    }
+
+    /**
+     * The slot starting last before the end is the only one that can overlap.
+     */
+    private static boolean overlaps( NavigableMap<LocalDateTime, LocalDateTime> intervals, LocalDateTime start,
+		    LocalDateTime end )
+    {
+	Map.Entry<LocalDateTime, LocalDateTime> previous = intervals.lowerEntry( end );
+
+	return previous != null && previous.getValue( ).isAfter( start );
+    }
+
+    private static LocalDateTime latest( LocalDateTime first, LocalDateTime second )
+    {
+	return first.isAfter( second ) ? first : second;
+    }
+}
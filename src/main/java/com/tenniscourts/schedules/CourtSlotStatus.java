@@ -0,0 +1,6 @@
+package com.tenniscourts.schedules;
+
+public enum CourtSlotStatus {
+  FREE,
+  BOOKED
+}
@@ -0,0 +1,63 @@
+package com.tenniscourts.schedules;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.EnumType;
+import javax.persistence.Enumerated;
+import javax.persistence.Id;
+import javax.persistence.Index;
+import javax.persistence.Table;
+import javax.validation.constraints.NotNull;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Denormalized read model of a schedule slot: its court, dates, status and active reservation in a single row, so
+ * searches never join schedule, reservation and tennis_court. Written in the same transaction as the slot and its
+ * reservations, and rebuilt from them by {@link CourtSlotViewService#rebuild()}.
+ */
+@Entity
+@Table( name = "court_slot_view", indexes = {
+		@Index( name = "idx_court_slot_view_start", columnList = "startDateTime, schedule_id" ),
+		@Index( name = "idx_court_slot_view_court_start", columnList = "tennisCourtId, startDateTime" ) } )
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class CourtSlotView
+{
+    /**
+     * What a reservation of any slot costs.
+     */
+    public static final BigDecimal PRICE = new BigDecimal( 10 );
+
+    @Id
+    @Column( name = "schedule_id" )
+    private Long scheduleId;
+
+    @NotNull
+    private Long tennisCourtId;
+
+    @NotNull
+    private String tennisCourtName;
+
+    @NotNull
+    private LocalDateTime startDateTime;
+
+    @NotNull
+    private LocalDateTime endDateTime;
+
+    @NotNull
+    @Enumerated( EnumType.STRING )
+    private CourtSlotStatus status;
+
+    private Long activeReservationId;
+
+    @NotNull
+    private BigDecimal price;
+}
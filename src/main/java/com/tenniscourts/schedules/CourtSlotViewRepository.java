@@ -0,0 +1,95 @@
+package com.tenniscourts.schedules;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * The slot view is only written through the statements below, always inside the transaction changing the slot or its
+ * reservation. The inserts copy the rows from the normalized tables, so they can never disagree with them.
+ */
+public interface CourtSlotViewRepository extends JpaRepository<CourtSlotView, Long>
+{
+    String INSERT_FROM_SCHEDULES = "insert into court_slot_view (schedule_id, tennis_court_id, tennis_court_name, "
+		    + "start_date_time, end_date_time, status, active_reservation_id, price) "
+		    + "select s.id, s.tennis_court_id, t.name, s.start_date_time, s.end_date_time, "
+		    + "case when r.id is null then 'FREE' else 'BOOKED' end, r.id, :price from schedule s "
+		    + "join tennis_court t on t.id = s.tennis_court_id "
+		    + "left join reservation r on r.active_schedule_id = s.id ";
+
+    List<CourtSlotView> findByStartDateTimeGreaterThanEqualAndEndDateTimeLessThanEqualOrderByStartDateTimeAscScheduleIdAsc(
+		    LocalDateTime startDate, LocalDateTime endDate );
+
+    @Query( "select v from CourtSlotView v where v.startDateTime >= :startDate and v.endDateTime <= :endDate "
+		    + "and ( v.startDateTime > :afterStartDateTime "
+		    + "or ( v.startDateTime = :afterStartDateTime and v.scheduleId > :afterId ) ) "
+		    + "order by v.startDateTime, v.scheduleId" )
+    List<CourtSlotView> findPageByDates( @Param( "startDate" ) LocalDateTime startDate,
+		    @Param( "endDate" ) LocalDateTime endDate,
+		    @Param( "afterStartDateTime" ) LocalDateTime afterStartDateTime, @Param( "afterId" ) Long afterId,
+		    Pageable pageable );
+
+    @Modifying
+    @Query( value = INSERT_FROM_SCHEDULES + "where s.id = :scheduleId", nativeQuery = true )
+    int insertFromSchedule( @Param( "scheduleId" ) Long scheduleId, @Param( "price" ) BigDecimal price );
+
+    /**
+     * Inserts the slots of the courts between the two start dates that are not in the view yet.
+     */
+    @Modifying
+    @Query( value = INSERT_FROM_SCHEDULES + "where s.tennis_court_id in :tennisCourtIds "
+		    + "and s.start_date_time between :firstStart and :lastStart "
+		    + "and not exists ( select 1 from court_slot_view v where v.schedule_id = s.id )", nativeQuery = true )
+    int insertMissingFromSchedules( @Param( "tennisCourtIds" ) Collection<Long> tennisCourtIds,
+		    @Param( "firstStart" ) LocalDateTime firstStart, @Param( "lastStart" ) LocalDateTime lastStart,
+		    @Param( "price" ) BigDecimal price );
+
+    @Modifying
+    @Query( value = INSERT_FROM_SCHEDULES, nativeQuery = true )
+    int insertAllFromSchedules( @Param( "price" ) BigDecimal price );
+
+    @Modifying
+    @Query( value = "update court_slot_view set tennis_court_name = :name where tennis_court_id = :tennisCourtId",
+		    nativeQuery = true )
+    int renameTennisCourt( @Param( "tennisCourtId" ) Long tennisCourtId, @Param( "name" ) String name );
+
+    @Modifying
+    @Query( value = "delete from court_slot_view", nativeQuery = true )
+    int deleteAllRows( );
+
+    /**
+     * Slots whose row is missing from the view or disagrees with the normalized tables. Rows of slots that no longer
+     * exist are not counted; comparing the row counts finds them.
+     */
+    @Query( value = "select count(*) from schedule s join tennis_court t on t.id = s.tennis_court_id "
+		    + "left join reservation r on r.active_schedule_id = s.id "
+		    + "left join court_slot_view v on v.schedule_id = s.id "
+		    + "where v.schedule_id is null or v.tennis_court_id <> s.tennis_court_id "
+		    + "or v.tennis_court_name <> t.name "
+		    + "or v.start_date_time <> s.start_date_time or v.end_date_time <> s.end_date_time "
+		    + "or coalesce(v.active_reservation_id, 0) <> coalesce(r.id, 0) "
+		    + "or v.status <> case when r.id is null then 'FREE' else 'BOOKED' end", nativeQuery = true )
+    long countStaleSlots( );
+
+    @Modifying
+    @Query( "update CourtSlotView v set v.status = :booked, v.activeReservationId = :reservationId "
+		    + "where v.scheduleId = :scheduleId" )
+    int book( @Param( "scheduleId" ) Long scheduleId, @Param( "reservationId" ) Long reservationId,
+		    @Param( "booked" ) CourtSlotStatus booked );
+
+    /**
+     * Frees the slots still held by the given reservations; a slot booked again meanwhile is left alone.
+     */
+    @Modifying
+    @Query( "update CourtSlotView v set v.status = :free, v.activeReservationId = null "
+		    + "where v.scheduleId in :scheduleIds and v.activeReservationId in :reservationIds" )
+    int release( @Param( "scheduleIds" ) Collection<Long> scheduleIds,
+		    @Param( "reservationIds" ) Collection<Long> reservationIds, @Param( "free" ) CourtSlotStatus free );
+}
@@ -0,0 +1,52 @@
+package com.tenniscourts.schedules;
+
+import lombok.AllArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Recovery of the {@link CourtSlotView} read model.
+ */
+@Slf4j
+@Service
+@AllArgsConstructor
+public class CourtSlotViewService
+{
+    private final CourtSlotViewRepository courtSlotViewRepository;
+    private final ScheduleRepository      scheduleRepository;
+    private final TransactionTemplate     transactionTemplate;
+
+    /**
+     * Replaces the whole view with a fresh copy of the schedules and their active reservations. Readers keep seeing the
+     * previous rows until the transaction commits.
+     */
+    public int rebuild( )
+    {
+	int slots = transactionTemplate.execute( status -> {
+	    courtSlotViewRepository.deleteAllRows( );
+	    return courtSlotViewRepository.insertAllFromSchedules( CourtSlotView.PRICE );
+	} );
+	log.info( "Court slot view rebuilt with {} slots", slots );
+
+	return slots;
+    }
+
+    /**
+     * Runs before the availability engine warms up from the view, covering rows written behind the services' back (e.g.
+     * the seed data), whether they added slots or changed a court, a slot or a reservation. Each row is compared with
+     * the normalized tables, so a view as large as the schedule can still disagree with it.
+     */
+    @Order( Ordered.HIGHEST_PRECEDENCE )
+    @EventListener( ApplicationReadyEvent.class )
+    public void rebuildIfStale( )
+    {
+	if( courtSlotViewRepository.count( ) != scheduleRepository.count( )
+			|| courtSlotViewRepository.countStaleSlots( ) > 0 )
+	    rebuild( );
+    }
+}
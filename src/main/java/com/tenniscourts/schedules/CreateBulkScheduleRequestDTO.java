@@ -0,0 +1,41 @@
+package com.tenniscourts.schedules;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import lombok.Getter;
+import lombok.Setter;
+
+import javax.validation.constraints.NotEmpty;
+import javax.validation.constraints.NotNull;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.Set;
+
+@Getter
+@Setter
+public class CreateBulkScheduleRequestDTO
+{
+    @NotEmpty
+    private Set<Long> tennisCourtIds;
+
+    @JsonFormat( pattern = "yyyy-MM-dd" )
+    @NotNull
+    private LocalDate startDate;
+
+    @JsonFormat( pattern = "yyyy-MM-dd" )
+    @NotNull
+    private LocalDate endDate;
+
+    @NotEmpty
+    private Set<DayOfWeek> daysOfWeek;
+
+    @JsonFormat( pattern = "HH:mm" )
+    @NotEmpty
+    private Set<LocalTime> startTimes;
+
+    /**
+     * 30, 60 or 90; an hour when left out.
+     */
+    private Integer durationMinutes;
+
+}
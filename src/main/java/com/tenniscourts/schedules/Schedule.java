@@ -12,14 +12,16 @@ import java.util.List;
 
 @Data
 @EqualsAndHashCode( callSuper = true, exclude = "reservations" )
+@ToString( exclude = "reservations" )
 @Entity
-@Table
+@Table( uniqueConstraints = @UniqueConstraint( name = "uk_schedule_court_start",
+		columnNames = { "tennis_court_id", "startDateTime" } ) )
 @AllArgsConstructor
 @NoArgsConstructor
 @Builder
 public class Schedule extends BaseEntity<Long>
 {
-    @ManyToOne
+    @ManyToOne( optional = false )
     @NotNull
     private TennisCourt tennisCourt;
 
@@ -31,6 +33,6 @@ public class Schedule extends BaseEntity<Long>
     @NotNull
     private LocalDateTime endDateTime;
 
-    @OneToMany
+    @OneToMany( mappedBy = "schedule" )
     private List<Reservation> reservations;
 }
@@ -1,43 +1,125 @@
 package com.tenniscourts.schedules;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.tenniscourts.config.BaseRestController;
+import com.tenniscourts.config.async.Bulkheads;
+import com.tenniscourts.config.http.ConditionalResponses;
+import com.tenniscourts.config.streaming.NdjsonStreams;
 import io.swagger.annotations.ApiOperation;
 import lombok.AllArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
 
 @AllArgsConstructor
 @RestController
 @RequestMapping( "/schedules" )
 public class ScheduleController extends BaseRestController
 {
-    private final ScheduleService scheduleService;
+    // A slot never moves; only the name of its court can change
+    private static final CacheControl SCHEDULE_CACHE_CONTROL = CacheControl.maxAge( 1, TimeUnit.MINUTES ).cachePublic( );
+
+    private final ScheduleService      scheduleService;
+    private final AvailabilityEngine   availabilityEngine;
+    private final CourtSlotViewService courtSlotViewService;
+    private final SlotEventFeed        slotEventFeed;
+    private final ObjectMapper         objectMapper;
+    private final Bulkheads            bulkheads;
 
     @PostMapping
     @ApiOperation( value = "Add a new slot on a Tennis Court schedule" )
-    public ResponseEntity<Void> add( @RequestBody ScheduleSlotDTO scheduleSlotDTO )
+    public CompletableFuture<ResponseEntity<Void>> add( @RequestBody ScheduleSlotDTO scheduleSlotDTO )
+    {
+	return bulkheads.write( ( ) -> ResponseEntity.created( locationByEntity(
+			scheduleService.add( scheduleSlotDTO.getTennisCourtId( ), scheduleSlotDTO ).getId( ) ) ).build( ) );
+    }
+
+    @PostMapping( "/bulk" )
+    @ApiOperation( value = "Add recurring slots on the schedules of a set of Tennis Courts" )
+    public CompletableFuture<ResponseEntity<BulkScheduleResultDTO>> addBulk(
+		    @RequestBody CreateBulkScheduleRequestDTO createBulkScheduleRequestDTO )
+    {
+	return bulkheads.write( ( ) -> ResponseEntity.ok( scheduleService.addBulk( createBulkScheduleRequestDTO ) ) );
+    }
+
+    @PostMapping( "/view/rebuild" )
+    @ApiOperation( value = "Rebuild the slot read model from the schedules and their reservations" )
+    public CompletableFuture<ResponseEntity<CourtSlotViewRebuildDTO>> rebuildView( )
     {
-	return ResponseEntity.created( locationByEntity(
-			scheduleService.add( scheduleSlotDTO.getTennisCourtId( ), scheduleSlotDTO ).getId( ) ) ).build( );
+	return bulkheads.write(
+			( ) -> ResponseEntity.ok( new CourtSlotViewRebuildDTO( courtSlotViewService.rebuild( ) ) ) );
     }
 
     @GetMapping( "/{scheduleId}" )
     @ApiOperation( value = "Find a schedule by id" )
-    public ResponseEntity<ScheduleDTO> listById( @PathVariable Long scheduleId )
+    public CompletableFuture<ResponseEntity<ScheduleDTO>> listById( @PathVariable Long scheduleId,
+		    @RequestHeader HttpHeaders requestHeaders )
     {
-	return ResponseEntity.ok( scheduleService.listById( scheduleId ) );
+	return bulkheads.read( ( ) -> ConditionalResponses.of( requestHeaders, scheduleService.findVersion( scheduleId ),
+			SCHEDULE_CACHE_CONTROL, ( ) -> scheduleService.listById( scheduleId ) ) );
     }
 
 
     @PostMapping( "/filters" )
     @ApiOperation( value = "Find schedule slots between 2 given dates" )
-    public ResponseEntity<List<ScheduleDTO>> findSchedulesByDates(
+    public CompletableFuture<ResponseEntity<List<ScheduleDTO>>> findSchedulesByDates(
 		    @RequestBody ScheduleFiltersDTO scheduleFiltersDTO )
     {
-	return ResponseEntity.ok( scheduleService.listByFilter( scheduleFiltersDTO.getStartDateTime( ),
-			scheduleFiltersDTO.getEndDateTime( ) ) );
+	return bulkheads.read( ( ) -> ResponseEntity.ok( scheduleService.listByFilter(
+			scheduleFiltersDTO.getStartDateTime( ), scheduleFiltersDTO.getEndDateTime( ) ) ) );
+    }
+
+    // Answered from memory by the availability engine, no need for a bulkhead
+    @PostMapping( "/available" )
+    @ApiOperation( value = "Find the free slots of the given Tennis Courts between 2 given dates",
+		    notes = "Slots changed through another node may take until the next availability refresh to show" )
+    public ResponseEntity<List<ScheduleDTO>> findAvailableSlots( @RequestBody AvailabilityFiltersDTO availabilityFiltersDTO )
+    {
+	return ResponseEntity.ok( availabilityEngine.findFree( availabilityFiltersDTO.getTennisCourtIds( ),
+			availabilityFiltersDTO.getStartDateTime( ), availabilityFiltersDTO.getEndDateTime( ) ) );
     }
 
+    @PostMapping( "/filters/page" )
+    @ApiOperation( value = "Find a page of schedule slots between 2 given dates, ordered by start date and id" )
+    public CompletableFuture<ResponseEntity<SchedulePageDTO>> findSchedulePageByDates(
+		    @RequestBody ScheduleFiltersDTO scheduleFiltersDTO,
+		    @RequestParam( value = "size", defaultValue = "100" ) int size )
+    {
+	return bulkheads.read( ( ) -> ResponseEntity.ok( scheduleService.listPageByFilter( scheduleFiltersDTO, size ) ) );
+    }
+
+    @PostMapping( value = "/filters/stream", produces = NdjsonStreams.APPLICATION_NDJSON_VALUE )
+    @ApiOperation( value = "Stream schedule slots between 2 given dates as newline delimited JSON" )
+    public ResponseEntity<StreamingResponseBody> streamSchedulesByDates(
+		    @RequestBody ScheduleFiltersDTO scheduleFiltersDTO )
+    {
+	return ResponseEntity.ok( ).contentType( NdjsonStreams.APPLICATION_NDJSON )
+			.body( NdjsonStreams.<ScheduleDTO>of( objectMapper,
+					consumer -> scheduleService.streamByFilter( scheduleFiltersDTO.getStartDateTime( ),
+							scheduleFiltersDTO.getEndDateTime( ), consumer ) ) );
+    }
+
+    // Pushed from memory as slots change, no need for a bulkhead
+    @GetMapping( value = "/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE )
+    @ApiOperation( value = "Subscribe to the slot changes (created, booked, cancelled, rescheduled) of the given Tennis "
+		    + "Courts between 2 given dates, as server-sent events" )
+    public SseEmitter subscribeToSlotEvents( @RequestParam( value = "tennisCourtIds", required = false ) Set<Long> tennisCourtIds,
+		    @RequestParam( value = "startDateTime", required = false )
+		    @DateTimeFormat( pattern = "yyyy-MM-dd'T'HH:mm" ) LocalDateTime startDateTime,
+		    @RequestParam( value = "endDateTime", required = false )
+		    @DateTimeFormat( pattern = "yyyy-MM-dd'T'HH:mm" ) LocalDateTime endDateTime )
+    {
+	return slotEventFeed.subscribe( tennisCourtIds, startDateTime, endDateTime );
+    }
 }
@@ -19,4 +19,12 @@ public class ScheduleFiltersDTO
     @NotNull
     private LocalDateTime endDateTime;
 
+    /**
+     * Keyset cursor: only slots after (afterStartDateTime, afterId) are returned by the paged search. Read as a full
+     * ISO date-time, the way the page hands it out.
+     */
+    private LocalDateTime afterStartDateTime;
+
+    private Long afterId;
+
 }
@@ -0,0 +1,13 @@
+package com.tenniscourts.schedules;
+
+import java.time.LocalDateTime;
+
+/**
+ * Start and end of a schedule, read without loading it.
+ */
+public interface ScheduleInterval
+{
+    LocalDateTime getStartDateTime( );
+
+    LocalDateTime getEndDateTime( );
+}
@@ -0,0 +1,101 @@
+package com.tenniscourts.schedules;
+
+import com.tenniscourts.audit.CustomAuditEntityListener;
+import com.tenniscourts.audit.NodeIdentity;
+import com.tenniscourts.config.persistence.JdbcStreams;
+import com.tenniscourts.tenniscourts.TennisCourtDTO;
+import lombok.AllArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+
+/**
+ * Plain JDBC access to the schedule table for the set-based paths JPA cannot batch (identity ids), and forward-only
+ * reads of its {@link CourtSlotView}.
+ */
+@Repository
+@AllArgsConstructor
+public class ScheduleJdbcRepository
+{
+    private static final int BATCH_SIZE = 500;
+
+    private static final String INSERT_SQL = "insert into schedule (tennis_court_id, start_date_time, end_date_time, "
+		    + "date_create, date_update, user_create, user_update, ip_number_create, ip_number_update) "
+		    + "values (?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private static final String STREAM_BY_DATES_SQL = "select schedule_id, tennis_court_id, start_date_time, "
+		    + "end_date_time, tennis_court_name from court_slot_view "
+		    + "where start_date_time >= ? and end_date_time <= ? order by start_date_time, schedule_id";
+
+    private static final String STREAM_WITH_ACTIVE_RESERVATION_SQL = "select schedule_id, tennis_court_id, "
+		    + "start_date_time, end_date_time, active_reservation_id from court_slot_view";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final NodeIdentity nodeIdentity;
+
+    public void insertAll( List<Schedule> schedules )
+    {
+	Timestamp now       = Timestamp.valueOf( LocalDateTime.now( ) );
+	String    ipAddress = nodeIdentity.ipNumber( );
+
+	jdbcTemplate.batchUpdate( INSERT_SQL, schedules, BATCH_SIZE, ( statement, schedule ) -> {
+	    statement.setLong( 1, schedule.getTennisCourt( ).getId( ) );
+	    statement.setTimestamp( 2, Timestamp.valueOf( schedule.getStartDateTime( ) ) );
+	    statement.setTimestamp( 3, Timestamp.valueOf( schedule.getEndDateTime( ) ) );
+	    statement.setTimestamp( 4, now );
+	    statement.setTimestamp( 5, now );
+	    statement.setLong( 6, CustomAuditEntityListener.USER_SYSTEM_ID );
+	    statement.setLong( 7, CustomAuditEntityListener.USER_SYSTEM_ID );
+	    statement.setString( 8, ipAddress );
+	    statement.setString( 9, ipAddress );
+	} );
+    }
+
+    /**
+     * Hands every slot between the two dates to the consumer as it comes off a forward-only cursor.
+     */
+    public void streamByDates( LocalDateTime startDate, LocalDateTime endDate, Consumer<ScheduleDTO> consumer )
+    {
+	JdbcStreams.query( jdbcTemplate, STREAM_BY_DATES_SQL, statement -> {
+	    statement.setTimestamp( 1, Timestamp.valueOf( startDate ) );
+	    statement.setTimestamp( 2, Timestamp.valueOf( endDate ) );
+	}, resultSet -> {
+	    ScheduleDTO scheduleDTO = toScheduleDTO( resultSet );
+	    scheduleDTO.setTennisCourt( TennisCourtDTO.builder( ).id( scheduleDTO.getTennisCourtId( ) )
+			    .name( resultSet.getString( 5 ) ).build( ) );
+	    consumer.accept( scheduleDTO );
+	} );
+    }
+
+    /**
+     * Hands every slot to the consumer together with the id of its active reservation, null when the slot is free.
+     */
+    public void streamWithActiveReservation( BiConsumer<ScheduleDTO, Long> consumer )
+    {
+	JdbcStreams.query( jdbcTemplate, STREAM_WITH_ACTIVE_RESERVATION_SQL, resultSet -> {
+	    Long activeReservationId = resultSet.getLong( 5 );
+	    if( resultSet.wasNull( ) )
+		activeReservationId = null;
+	    consumer.accept( toScheduleDTO( resultSet ), activeReservationId );
+	} );
+    }
+
+    private ScheduleDTO toScheduleDTO( ResultSet resultSet ) throws SQLException
+    {
+	ScheduleDTO scheduleDTO = new ScheduleDTO( );
+	scheduleDTO.setId( resultSet.getLong( 1 ) );
+	scheduleDTO.setTennisCourtId( resultSet.getLong( 2 ) );
+	scheduleDTO.setStartDateTime( resultSet.getTimestamp( 3 ).toLocalDateTime( ) );
+	scheduleDTO.setEndDateTime( resultSet.getTimestamp( 4 ).toLocalDateTime( ) );
+
+	return scheduleDTO;
+    }
+}
@@ -1,6 +1,7 @@
 package com.tenniscourts.schedules;
 
 import org.mapstruct.Mapper;
+import org.mapstruct.Mapping;
 
 import java.util.List;
 
@@ -12,4 +13,11 @@ public interface ScheduleMapper {
     ScheduleDTO map(Schedule source);
 
     List<ScheduleDTO> map(List<Schedule> source);
+
+    @Mapping(source = "scheduleId", target = "id")
+    @Mapping(source = "tennisCourtId", target = "tennisCourt.id")
+    @Mapping(source = "tennisCourtName", target = "tennisCourt.name")
+    ScheduleDTO map(CourtSlotView source);
+
+    List<ScheduleDTO> mapSlots(List<CourtSlotView> source);
 }
@@ -0,0 +1,26 @@
+package com.tenniscourts.schedules;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class SchedulePageDTO
+{
+    private List<ScheduleDTO> content;
+
+    /**
+     * Keyset cursor of the next page, absent on the last page. Written as a full ISO date-time, so it goes back as the
+     * exact start of the last slot.
+     */
+    private LocalDateTime nextStartDateTime;
+
+    private Long nextId;
+}
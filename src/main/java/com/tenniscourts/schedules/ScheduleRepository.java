@@ -1,18 +1,35 @@
 package com.tenniscourts.schedules;
 
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 import java.time.LocalDateTime;
-import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 public interface ScheduleRepository extends JpaRepository<Schedule, Long>
 {
+    @EntityGraph( attributePaths = "tennisCourt" )
     List<Schedule> findByTennisCourt_IdOrderByStartDateTime( Long tennisCourtId );
 
-    Optional<Object> findByTennisCourt_IdAndStartDateTime( Long tennisCourtId, LocalDateTime startDateTime );
+    @EntityGraph( attributePaths = "tennisCourt" )
+    List<Schedule> findByTennisCourt_IdAndStartDateTimeBetweenOrderByStartDateTime( Long tennisCourtId,
+		    LocalDateTime startDate, LocalDateTime endDate );
 
-    List<Schedule> findAllByStartDateTimeGreaterThanEqualAndEndDateTimeLessThanEqual( LocalDateTime startDate,
-		    LocalDateTime endDate );
+    @Query( "select s.dateUpdate as dateUpdate, t.dateUpdate as tennisCourtDateUpdate from Schedule s "
+		    + "join s.tennisCourt t where s.id = :id" )
+    Optional<ScheduleVersion> findVersionById( @Param( "id" ) Long id );
+
+    /**
+     * The slots of a court overlapping [startDate, endDate). The earliest start bounds the lookup in the court start
+     * index.
+     */
+    @Query( "select s.startDateTime as startDateTime, s.endDateTime as endDateTime from Schedule s "
+		    + "where s.tennisCourt.id = :tennisCourtId and s.startDateTime >= :earliestStart "
+		    + "and s.startDateTime < :endDate and s.endDateTime > :startDate" )
+    List<ScheduleInterval> findOverlappingIntervals( @Param( "tennisCourtId" ) Long tennisCourtId,
+		    @Param( "earliestStart" ) LocalDateTime earliestStart, @Param( "startDate" ) LocalDateTime startDate,
+		    @Param( "endDate" ) LocalDateTime endDate );
 }
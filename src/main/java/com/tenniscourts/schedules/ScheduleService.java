@@ -1,49 +1,181 @@
 package com.tenniscourts.schedules;
 
+import com.tenniscourts.config.http.ResourceVersion;
+import com.tenniscourts.config.metrics.BookingMetrics;
+import com.tenniscourts.config.persistence.Pages;
 import com.tenniscourts.exceptions.AlreadyExistsEntityException;
 import com.tenniscourts.exceptions.EntityNotFoundException;
 import com.tenniscourts.tenniscourts.TennisCourt;
 import com.tenniscourts.tenniscourts.TennisCourtDTO;
 import com.tenniscourts.tenniscourts.TennisCourtMapper;
 import com.tenniscourts.tenniscourts.TennisCourtRepository;
+import com.tenniscourts.tenniscourts.TennisCourtService;
 import lombok.AllArgsConstructor;
 import lombok.Getter;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 @Service
 @AllArgsConstructor
 public class ScheduleService
 {
+    private static final int MAX_BULK_SLOTS = 50_000;
+
+    /**
+     * Lengths a slot may last, in minutes; an hour when the request leaves it out.
+     */
+    static final List<Integer> SLOT_LENGTHS = Arrays.asList( 30, 60, 90 );
+
+    private static final int DEFAULT_SLOT_LENGTH = 60;
+
     private final ScheduleRepository    scheduleRepository;
+    private final ScheduleJdbcRepository scheduleJdbcRepository;
     private final TennisCourtRepository tennisCourtRepository;
+    private final TennisCourtService    tennisCourtService;
     @Getter
     private final ScheduleMapper        scheduleMapper;
     private final TennisCourtMapper     tennisCourtMapper;
+    private final ApplicationEventPublisher applicationEventPublisher;
+    private final BookingMetrics        bookingMetrics;
+    private final CourtSlotViewRepository courtSlotViewRepository;
+    private final CourtSlotIntervals    courtSlotIntervals;
 
+    @Transactional
     public ScheduleDTO add( Long tennisCourtId, ScheduleSlotDTO scheduleSlotDTO )
     {
 	// Past date treatment
 	if( scheduleSlotDTO.getStartDateTime( ).isBefore( LocalDateTime.now( ) ) )
+	{
+	    bookingMetrics.pastDateRejected( "add" );
 	    throw new IllegalArgumentException( "It's forbidden add slots on the past" );
+	}
 
-	// Slot already exist treatment
-	if( scheduleRepository.findByTennisCourt_IdAndStartDateTime( tennisCourtId,
-			scheduleSlotDTO.getStartDateTime( ) ).isPresent( ) )
-	    throw new AlreadyExistsEntityException( "Schedule slot already exists." );
+	if( !AvailabilityEngine.isOnGrid( scheduleSlotDTO.getStartDateTime( ) ) )
+	    throw new IllegalArgumentException( "Slots must start on a quarter hour" );
+
+	int slotLength = slotLength( scheduleSlotDTO.getDurationMinutes( ) );
 
 	// TennisCourt not exist treatment
-	TennisCourtDTO tennisCourtDTO = tennisCourtRepository.findById( tennisCourtId ).map( tennisCourtMapper::map )
-			.<EntityNotFoundException>orElseThrow( ( ) -> {
-			    throw new EntityNotFoundException( "Tennis Court not found." );
-			} );
+	TennisCourtDTO tennisCourtDTO = tennisCourtService.listById( tennisCourtId );
+
+	// Overlapping slot treatment
+	if( courtSlotIntervals.claimFree( tennisCourtId, Collections.singletonList( scheduleSlotDTO.getStartDateTime( ) ),
+			slotLength ).isEmpty( ) )
+	    throw new AlreadyExistsEntityException( "Schedule slot overlaps an existing slot." );
 
-	Schedule schedule = addNewSlot( tennisCourtId, scheduleSlotDTO, tennisCourtDTO );
+	Schedule schedule;
+	try
+	{
+	    schedule = scheduleRepository.save( addNewSlot( scheduleSlotDTO, slotLength, tennisCourtDTO ) );
+	}
+	catch( DataIntegrityViolationException e )
+	{
+	    // Another node added a slot of the court with the same start
+	    throw new AlreadyExistsEntityException( "Schedule slot overlaps an existing slot." );
+	}
+	courtSlotViewRepository.insertFromSchedule( schedule.getId( ), CourtSlotView.PRICE );
+	tennisCourtRepository.incrementScheduleVersions( Collections.singletonList( tennisCourtId ) );
+	applicationEventPublisher.publishEvent( SlotEvent.of( SlotEventType.CREATED, schedule, null ) );
 
-	return scheduleMapper.map( scheduleRepository.save( schedule ) );
+	return scheduleMapper.map( schedule );
+    }
+
+    @Transactional
+    public BulkScheduleResultDTO addBulk( CreateBulkScheduleRequestDTO createBulkScheduleRequestDTO )
+    {
+	List<LocalDateTime> slotStarts = recurringSlotStarts( createBulkScheduleRequestDTO );
+	if( slotStarts.isEmpty( ) )
+	    return new BulkScheduleResultDTO( 0, 0 );
+
+	// Past date treatment
+	if( slotStarts.get( 0 ).isBefore( LocalDateTime.now( ) ) )
+	{
+	    bookingMetrics.pastDateRejected( "addBulk" );
+	    throw new IllegalArgumentException( "It's forbidden add slots on the past" );
+	}
+
+	if( !slotStarts.stream( ).allMatch( AvailabilityEngine::isOnGrid ) )
+	    throw new IllegalArgumentException( "Slots must start on a quarter hour" );
+
+	int slotLength = slotLength( createBulkScheduleRequestDTO.getDurationMinutes( ) );
+	for( int i = 1; i < slotStarts.size( ); i++ )
+	{
+	    if( slotStarts.get( i - 1 ).plusMinutes( slotLength ).isAfter( slotStarts.get( i ) ) )
+		throw new IllegalArgumentException( "The start times must be at least " + slotLength + " minutes apart" );
+	}
+
+	// TennisCourt not exist treatment
+	List<TennisCourt> tennisCourts = tennisCourtRepository.findAllById( createBulkScheduleRequestDTO.getTennisCourtIds( ) );
+	if( tennisCourts.size( ) != createBulkScheduleRequestDTO.getTennisCourtIds( ).size( ) )
+	    throw new EntityNotFoundException( "Tennis Court not found." );
+
+	// Claiming a court locks it: always in the same order, so two bulks cannot wait for each other
+	tennisCourts.sort( Comparator.comparing( TennisCourt::getId ) );
+
+	LocalDateTime                 firstStart = slotStarts.get( 0 );
+	LocalDateTime                 lastStart  = slotStarts.get( slotStarts.size( ) - 1 );
+	List<Schedule>                schedules  = new ArrayList<>( );
+	Map<Long, Set<LocalDateTime>> newStarts  = new HashMap<>( );
+	int                           skipped    = 0;
+
+	for( TennisCourt tennisCourt : tennisCourts )
+	{
+	    // Overlapping slot treatment, the slots overlapping an existing one are skipped
+	    List<LocalDateTime> freeStarts = courtSlotIntervals.claimFree( tennisCourt.getId( ), slotStarts, slotLength );
+	    skipped += slotStarts.size( ) - freeStarts.size( );
+
+	    for( LocalDateTime slotStart : freeStarts )
+		schedules.add( Schedule.builder( ).tennisCourt( tennisCourt ).startDateTime( slotStart )
+				.endDateTime( slotStart.plusMinutes( slotLength ) ).build( ) );
+	    if( !freeStarts.isEmpty( ) )
+		newStarts.put( tennisCourt.getId( ), new HashSet<>( freeStarts ) );
+	}
+
+	try
+	{
+	    scheduleJdbcRepository.insertAll( schedules );
+	}
+	catch( DataIntegrityViolationException e )
+	{
+	    // Another node added one of the slots in the meantime: none of them is kept
+	    throw new AlreadyExistsEntityException( "A slot with the same start was added concurrently, retry." );
+	}
+	if( !newStarts.isEmpty( ) )
+	{
+	    courtSlotViewRepository.insertMissingFromSchedules( newStarts.keySet( ), firstStart, lastStart,
+			    CourtSlotView.PRICE );
+	    tennisCourtRepository.incrementScheduleVersions( newStarts.keySet( ) );
+	}
+
+	// Batched inserts do not return identity ids: read the new slots back to announce them
+	newStarts.forEach( ( tennisCourtId, starts ) -> scheduleRepository
+			.findByTennisCourt_IdAndStartDateTimeBetweenOrderByStartDateTime( tennisCourtId, firstStart, lastStart )
+			.stream( )
+			.filter( schedule -> starts.contains( schedule.getStartDateTime( ) ) )
+			.forEach( schedule -> applicationEventPublisher
+					.publishEvent( SlotEvent.of( SlotEventType.CREATED, schedule, null ) ) ) );
+
+	return new BulkScheduleResultDTO( schedules.size( ), skipped );
     }
 
     public ScheduleDTO listById( Long scheduleId )
@@ -55,13 +187,56 @@ public class ScheduleService
 			} );
     }
 
+    /**
+     * The slot shows its court, so it changes with either of them.
+     */
+    public ResourceVersion findVersion( Long scheduleId )
+    {
+	return scheduleRepository.findVersionById( scheduleId ).map( version -> ResourceVersion.of(
+			latest( version.getDateUpdate( ), version.getTennisCourtDateUpdate( ) ), "schedule", scheduleId ) )
+			.<EntityNotFoundException>orElseThrow( ( ) -> {
+			    throw new EntityNotFoundException( "Schedule (#" + scheduleId + ") was not found" );
+			} );
+    }
+
+    public List<ScheduleDTO> listByIds( Collection<Long> scheduleIds )
+    {
+	return scheduleMapper.map( scheduleRepository.findAllById( scheduleIds ) );
+    }
+
     public List<ScheduleDTO> listByFilter( LocalDateTime startDate, LocalDateTime endDate )
     {
-	List<Schedule> scheduleList = scheduleRepository.findAllByStartDateTimeGreaterThanEqualAndEndDateTimeLessThanEqual(
-			startDate, endDate )
-			.stream( )
-			.collect( Collectors.toList( ) );
-	return scheduleMapper.map( scheduleList );
+	return scheduleMapper.mapSlots( courtSlotViewRepository
+			.findByStartDateTimeGreaterThanEqualAndEndDateTimeLessThanEqualOrderByStartDateTimeAscScheduleIdAsc(
+					startDate, endDate ) );
+    }
+
+    public SchedulePageDTO listPageByFilter( ScheduleFiltersDTO scheduleFiltersDTO, int size )
+    {
+	Pages.checkSize( size );
+
+	// Without a cursor the seek starts right at the beginning of the range
+	LocalDateTime afterStartDateTime = Optional.ofNullable( scheduleFiltersDTO.getAfterStartDateTime( ) )
+			.orElse( scheduleFiltersDTO.getStartDateTime( ) );
+	Long afterId = Optional.ofNullable( scheduleFiltersDTO.getAfterId( ) ).orElse( 0L );
+
+	List<CourtSlotView> slots = courtSlotViewRepository.findPageByDates( scheduleFiltersDTO.getStartDateTime( ),
+			scheduleFiltersDTO.getEndDateTime( ), afterStartDateTime, afterId, PageRequest.of( 0, size ) );
+
+	SchedulePageDTO schedulePageDTO = new SchedulePageDTO( scheduleMapper.mapSlots( slots ), null, null );
+	if( slots.size( ) == size )
+	{
+	    CourtSlotView last = slots.get( size - 1 );
+	    schedulePageDTO.setNextStartDateTime( last.getStartDateTime( ) );
+	    schedulePageDTO.setNextId( last.getScheduleId( ) );
+	}
+
+	return schedulePageDTO;
+    }
+
+    public void streamByFilter( LocalDateTime startDate, LocalDateTime endDate, Consumer<ScheduleDTO> consumer )
+    {
+	scheduleJdbcRepository.streamByDates( startDate, endDate, consumer );
     }
 
     public List<ScheduleDTO> listByTennisCourtId( Long tennisCourtId )
@@ -69,13 +244,69 @@ public class ScheduleService
 	return scheduleMapper.map( scheduleRepository.findByTennisCourt_IdOrderByStartDateTime( tennisCourtId ) );
     }
 
-    private Schedule addNewSlot( Long tennisCourtId, ScheduleSlotDTO scheduleSlotDTO, TennisCourtDTO tennisCourtDTO )
+    /**
+     * Stops as soon as the slots of all the requested courts pass {@link #MAX_BULK_SLOTS}, so a long range is rejected
+     * without building its starts first.
+     */
+    private List<LocalDateTime> recurringSlotStarts( CreateBulkScheduleRequestDTO createBulkScheduleRequestDTO )
+    {
+	LocalDate startDate = createBulkScheduleRequestDTO.getStartDate( );
+	LocalDate endDate   = createBulkScheduleRequestDTO.getEndDate( );
+	int       courts    = createBulkScheduleRequestDTO.getTennisCourtIds( ).size( );
+
+	if( endDate.isBefore( startDate ) )
+	    throw new IllegalArgumentException( "The end date must not be before the start date" );
+
+	// Nothing to add: the range is not walked
+	if( courts == 0 || createBulkScheduleRequestDTO.getDaysOfWeek( ).isEmpty( )
+			|| createBulkScheduleRequestDTO.getStartTimes( ).isEmpty( ) )
+	    return Collections.emptyList( );
+
+	List<LocalTime> startTimes = createBulkScheduleRequestDTO.getStartTimes( ).stream( ).sorted( )
+			.collect( Collectors.toList( ) );
+	List<LocalDateTime> slotStarts = new ArrayList<>( );
+
+	for( LocalDate date = startDate; !date.isAfter( endDate ); date = date.plusDays( 1L ) )
+	{
+	    if( !createBulkScheduleRequestDTO.getDaysOfWeek( ).contains( date.getDayOfWeek( ) ) )
+		continue;
+
+	    for( LocalTime startTime : startTimes )
+		slotStarts.add( date.atTime( startTime ) );
+
+	    if( (long) slotStarts.size( ) * courts > MAX_BULK_SLOTS )
+		throw new IllegalArgumentException( "It's forbidden add more than " + MAX_BULK_SLOTS + " slots at once" );
+	}
+
+	return slotStarts;
+    }
+
+    private static int slotLength( Integer durationMinutes )
+    {
+	if( durationMinutes == null )
+	    return DEFAULT_SLOT_LENGTH;
+
+	if( !SLOT_LENGTHS.contains( durationMinutes ) )
+	    throw new IllegalArgumentException( "Slots must last 30, 60 or 90 minutes" );
+
+	return durationMinutes;
+    }
+
+    private Schedule addNewSlot( ScheduleSlotDTO scheduleSlotDTO, int slotLength, TennisCourtDTO tennisCourtDTO )
     {
 	TennisCourt tennisCourt     = tennisCourtMapper.map( tennisCourtDTO );
 	LocalDateTime scheduleStart = scheduleSlotDTO.getStartDateTime( );
-	LocalDateTime scheduleEnd   = scheduleStart.plusHours( 1L );
+	LocalDateTime scheduleEnd   = scheduleStart.plusMinutes( slotLength );
 
 	return Schedule.builder( ).tennisCourt( tennisCourt ).startDateTime( scheduleStart ).endDateTime( scheduleEnd )
 			.build( );
     }
+
+    private static LocalDateTime latest( LocalDateTime first, LocalDateTime second )
+    {
+	if( first == null || second == null )
+	    return first == null ? second : first;
+
+	return first.isAfter( second ) ? first : second;
+    }
 }
@@ -19,4 +19,9 @@ public class ScheduleSlotDTO
     @NotNull
     private LocalDateTime startDateTime;
 
+    /**
+     * 30, 60 or 90; an hour when left out.
+     */
+    private Integer durationMinutes;
+
 }
@@ -0,0 +1,13 @@
+package com.tenniscourts.schedules;
+
+import java.time.LocalDateTime;
+
+/**
+ * Version columns of a schedule and of the court it shows, read without loading them.
+ */
+public interface ScheduleVersion
+{
+    LocalDateTime getDateUpdate( );
+
+    LocalDateTime getTennisCourtDateUpdate( );
+}
@@ -0,0 +1,34 @@
+package com.tenniscourts.schedules;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+import java.time.LocalDateTime;
+
+/**
+ * State change of a schedule slot, published by the services and delivered to listeners once the change is committed.
+ */
+@Getter
+@ToString
+@AllArgsConstructor
+public class SlotEvent
+{
+    private final SlotEventType type;
+
+    private final Long scheduleId;
+
+    private final Long tennisCourtId;
+
+    private final LocalDateTime startDateTime;
+
+    private final LocalDateTime endDateTime;
+
+    private final Long reservationId;
+
+    public static SlotEvent of( SlotEventType type, Schedule schedule, Long reservationId )
+    {
+	return new SlotEvent( type, schedule.getId( ), schedule.getTennisCourt( ).getId( ), schedule.getStartDateTime( ),
+			schedule.getEndDateTime( ), reservationId );
+    }
+}
@@ -0,0 +1,345 @@
+package com.tenniscourts.schedules;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Pushes the committed {@link SlotEvent}s to the subscribers interested in their court and time, as server-sent events,
+ * instead of having clients poll the schedules.
+ * <p>
+ * Every subscriber has a bounded buffer. The transaction publishing an event only offers it to the buffers, and a small
+ * pool of senders writes them out. When a subscriber falls a whole buffer behind, it is dropped: its stream is completed
+ * and the client reconnects and reads the slots again. A slow client never holds back the bookings or the other
+ * subscribers.
+ * <p>
+ * A write blocks its sender while the client does not read. A subscriber whose write has run for longer than the write
+ * timeout when its next event is due is dropped too, and the pool gets one more sender for as long as that write
+ * blocks, so clients that stop reading cannot take all the senders.
+ */
+@Slf4j
+@Component
+public class SlotEventFeed
+{
+    public static final String SUBSCRIBERS = "tenniscourts.slot.events.subscribers";
+
+    public static final String DROPPED = "tenniscourts.slot.events.dropped";
+
+    /**
+     * How long a client waits before reconnecting, e.g. once dropped.
+     */
+    private static final long RECONNECT_MILLIS = 2_000L;
+
+    /**
+     * Replaces the start of a write once its subscriber was dropped for it.
+     */
+    private static final long STALLED = -1L;
+
+    private final int bufferSize;
+
+    private final int maxSubscribers;
+
+    private final long timeoutMillis;
+
+    private final long writeTimeoutMillis;
+
+    private final ThreadPoolTaskExecutor senders;
+
+    private final Object sendersLock = new Object( );
+
+    private final Counter dropped;
+
+    private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet( );
+
+    private final AtomicLong sequence = new AtomicLong( );
+
+    public SlotEventFeed( @Value( "${tenniscourts.slot-events.buffer:256}" ) int bufferSize,
+		    @Value( "${tenniscourts.slot-events.max-subscribers:1000}" ) int maxSubscribers,
+		    @Value( "${tenniscourts.slot-events.timeout-ms:300000}" ) long timeoutMillis,
+		    @Value( "${tenniscourts.slot-events.senders:2}" ) int senders,
+		    @Value( "${tenniscourts.slot-events.write-timeout-ms:5000}" ) long writeTimeoutMillis,
+		    MeterRegistry meterRegistry )
+    {
+	this.bufferSize = bufferSize;
+	this.maxSubscribers = maxSubscribers;
+	this.timeoutMillis = timeoutMillis;
+	this.writeTimeoutMillis = writeTimeoutMillis;
+	this.dropped = meterRegistry.counter( DROPPED );
+	meterRegistry.gaugeCollectionSize( SUBSCRIBERS, Tags.empty( ), subscribers );
+
+	// One task at most per subscriber is ever queued, so the queue is bounded by the subscribers
+	this.senders = new ThreadPoolTaskExecutor( );
+	this.senders.setThreadNamePrefix( "slot-events-" );
+	this.senders.setCorePoolSize( senders );
+	this.senders.setMaxPoolSize( senders );
+	this.senders.initialize( );
+    }
+
+    /**
+     * @param tennisCourtIds the courts of interest, all of them when null or empty
+     * @param startDateTime  only slots ending after it, when not null
+     * @param endDateTime    only slots starting before it, when not null
+     */
+    public SseEmitter subscribe( Collection<Long> tennisCourtIds, LocalDateTime startDateTime,
+		    LocalDateTime endDateTime )
+    {
+	if( startDateTime != null && endDateTime != null && endDateTime.isBefore( startDateTime ) )
+	    throw new IllegalArgumentException( "The end date must not be before the start date" );
+
+	SseEmitter emitter = new SseEmitter( timeoutMillis );
+	try
+	{
+	    // The headers only go out with the first event: sent right away, not with the first change
+	    emitter.send( SseEmitter.event( ).reconnectTime( RECONNECT_MILLIS ) );
+	}
+	catch( IOException e )
+	{
+	    throw new UncheckedIOException( e );
+	}
+
+	Subscriber subscriber = subscribe( new SlotEventFilter( tennisCourtIds, startDateTime, endDateTime ),
+			new EmitterSink( emitter ) );
+
+	emitter.onCompletion( ( ) -> subscribers.remove( subscriber ) );
+	emitter.onError( error -> subscribers.remove( subscriber ) );
+	// Completed rather than answered with an error: the client just reconnects
+	emitter.onTimeout( emitter::complete );
+
+	return emitter;
+    }
+
+    Subscriber subscribe( SlotEventFilter filter, SlotEventSink sink )
+    {
+	if( subscribers.size( ) >= maxSubscribers )
+	    throw new TaskRejectedException( "The slot events have " + maxSubscribers + " subscribers already" );
+
+	Subscriber subscriber = new Subscriber( filter, sink, new ArrayBlockingQueue<>( bufferSize ) );
+	subscribers.add( subscriber );
+
+	return subscriber;
+    }
+
+    @TransactionalEventListener( fallbackExecution = true )
+    public void onSlotEvent( SlotEvent slotEvent )
+    {
+	Delivery delivery = new Delivery( sequence.incrementAndGet( ), slotEvent );
+
+	for( Subscriber subscriber : subscribers )
+	{
+	    if( subscriber.getDropped( ).get( ) || !subscriber.getFilter( ).matches( slotEvent ) )
+		continue;
+
+	    if( stalled( subscriber ) )
+	    {
+		// Its sender stays blocked until the write gives up: another one takes its place meanwhile
+		resizeSenders( 1 );
+		if( drop( subscriber ) )
+		    log.info( "Dropped a slot event subscriber writing for more than {} ms", writeTimeoutMillis );
+		continue;
+	    }
+
+	    if( !subscriber.getBuffer( ).offer( delivery ) && drop( subscriber ) )
+		log.info( "Dropped a slot event subscriber {} events behind", bufferSize );
+
+	    schedule( subscriber );
+	}
+    }
+
+    @PreDestroy
+    public void shutdown( )
+    {
+	subscribers.forEach( subscriber -> subscriber.getSink( ).close( ) );
+	subscribers.clear( );
+	senders.shutdown( );
+    }
+
+    private boolean stalled( Subscriber subscriber )
+    {
+	long started = subscriber.getWriteStarted( ).get( );
+
+	return started > 0 && System.currentTimeMillis( ) - started > writeTimeoutMillis
+			&& subscriber.getWriteStarted( ).compareAndSet( started, STALLED );
+    }
+
+    private boolean drop( Subscriber subscriber )
+    {
+	if( !subscriber.getDropped( ).compareAndSet( false, true ) )
+	    return false;
+
+	subscribers.remove( subscriber );
+	dropped.increment( );
+
+	return true;
+    }
+
+    private void resizeSenders( int delta )
+    {
+	synchronized( sendersLock )
+	{
+	    // The core size never goes past the maximum
+	    int size = senders.getMaxPoolSize( ) + delta;
+	    if( delta > 0 )
+	    {
+		senders.setMaxPoolSize( size );
+		senders.setCorePoolSize( size );
+	    }
+	    else
+	    {
+		senders.setCorePoolSize( size );
+		senders.setMaxPoolSize( size );
+	    }
+	}
+    }
+
+    private void schedule( Subscriber subscriber )
+    {
+	if( subscriber.getScheduled( ).compareAndSet( false, true ) )
+	    senders.execute( ( ) -> send( subscriber ) );
+    }
+
+    /**
+     * Runs on the senders, one at a time per subscriber: completing the stream of a dropped subscriber may have to wait
+     * for a write in progress, which must not happen on the publishing thread.
+     */
+    private void send( Subscriber subscriber )
+    {
+	try
+	{
+	    Delivery delivery;
+	    while( !subscriber.getDropped( ).get( ) && ( delivery = subscriber.getBuffer( ).poll( ) ) != null )
+		write( subscriber, delivery );
+	}
+	catch( IOException | IllegalStateException e )
+	{
+	    // Gone (or completed) meanwhile
+	    subscriber.getDropped( ).set( true );
+	    subscribers.remove( subscriber );
+	}
+	finally
+	{
+	    subscriber.getScheduled( ).set( false );
+	}
+
+	if( subscriber.getDropped( ).get( ) )
+	{
+	    subscriber.getBuffer( ).clear( );
+	    subscriber.getSink( ).close( );
+	}
+	else if( !subscriber.getBuffer( ).isEmpty( ) )
+	    // Offered after the last poll, while still scheduled
+	    schedule( subscriber );
+    }
+
+    private void write( Subscriber subscriber, Delivery delivery ) throws IOException
+    {
+	long started = System.currentTimeMillis( );
+	subscriber.getWriteStarted( ).set( started );
+	try
+	{
+	    subscriber.getSink( ).send( delivery.getId( ), delivery.getSlotEvent( ) );
+	}
+	finally
+	{
+	    // Stalled meanwhile: the sender added for this one is no longer needed
+	    if( !subscriber.getWriteStarted( ).compareAndSet( started, 0L ) )
+		resizeSenders( -1 );
+	}
+    }
+
+    interface SlotEventSink
+    {
+	void send( long id, SlotEvent slotEvent ) throws IOException;
+
+	void close( );
+    }
+
+    @RequiredArgsConstructor
+    private static class EmitterSink implements SlotEventSink
+    {
+	private final SseEmitter emitter;
+
+	@Override
+	public void send( long id, SlotEvent slotEvent ) throws IOException
+	{
+	    emitter.send( SseEmitter.event( )
+			    .id( Long.toString( id ) )
+			    .name( slotEvent.getType( ).name( ) )
+			    .data( slotEvent, MediaType.APPLICATION_JSON ) );
+	}
+
+	@Override
+	public void close( )
+	{
+	    emitter.complete( );
+	}
+    }
+
+    @RequiredArgsConstructor
+    static class SlotEventFilter
+    {
+	private final Collection<Long> tennisCourtIds;
+
+	private final LocalDateTime startDateTime;
+
+	private final LocalDateTime endDateTime;
+
+	boolean matches( SlotEvent slotEvent )
+	{
+	    return ( tennisCourtIds == null || tennisCourtIds.isEmpty( )
+			    || tennisCourtIds.contains( slotEvent.getTennisCourtId( ) ) )
+			    && ( startDateTime == null || slotEvent.getEndDateTime( ).isAfter( startDateTime ) )
+			    && ( endDateTime == null || slotEvent.getStartDateTime( ).isBefore( endDateTime ) );
+	}
+    }
+
+    @Getter
+    @RequiredArgsConstructor
+    static class Subscriber
+    {
+	private final SlotEventFilter filter;
+
+	private final SlotEventSink sink;
+
+	private final BlockingQueue<Delivery> buffer;
+
+	private final AtomicBoolean scheduled = new AtomicBoolean( );
+
+	private final AtomicBoolean dropped = new AtomicBoolean( );
+
+	/**
+	 * When the write in progress started, 0 between writes.
+	 */
+	private final AtomicLong writeStarted = new AtomicLong( );
+    }
+
+    @Getter
+    @RequiredArgsConstructor
+    private static class Delivery
+    {
+	private final long id;
+
+	private final SlotEvent slotEvent;
+    }
+}
@@ -0,0 +1,8 @@
+package com.tenniscourts.schedules;
+
+public enum SlotEventType {
+  CREATED,
+  BOOKED,
+  CANCELLED,
+  RESCHEDULED
+}
@@ -1,15 +1,24 @@
 package com.tenniscourts.tenniscourts;
 
 import com.tenniscourts.config.persistence.BaseEntity;
+import com.tenniscourts.schedules.Schedule;
 import lombok.AllArgsConstructor;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
 import lombok.NoArgsConstructor;
+import lombok.ToString;
 
+import javax.persistence.Column;
 import javax.persistence.Entity;
+import javax.persistence.OneToMany;
+import javax.persistence.OrderBy;
 import javax.persistence.Table;
 import javax.validation.constraints.NotNull;
+import java.util.List;
 
 @Data
+@EqualsAndHashCode( callSuper = false, exclude = "schedules" )
+@ToString( exclude = "schedules" )
 @Entity
 @Table
 @NoArgsConstructor
@@ -18,4 +27,15 @@ public class TennisCourt extends BaseEntity<Long>
 {
     @NotNull
     private String name;
+
+    /**
+     * Bumped with the last modification date whenever the court or its schedule changes, only by
+     * {@link TennisCourtRepository#incrementScheduleVersions}: the entity never writes it back.
+     */
+    @Column( nullable = false, updatable = false )
+    private long scheduleVersion;
+
+    @OneToMany( mappedBy = "tennisCourt" )
+    @OrderBy( "startDateTime" )
+    private List<Schedule> schedules;
 }
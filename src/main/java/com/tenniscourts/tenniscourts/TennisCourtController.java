@@ -1,61 +1,96 @@
 package com.tenniscourts.tenniscourts;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.tenniscourts.config.BaseRestController;
+import com.tenniscourts.config.async.Bulkheads;
+import com.tenniscourts.config.http.ConditionalResponses;
+import com.tenniscourts.config.streaming.NdjsonStreams;
 import io.swagger.annotations.ApiOperation;
 import lombok.AllArgsConstructor;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 @AllArgsConstructor
 @RestController
 @RequestMapping( "tennisCourts" )
 public class TennisCourtController extends BaseRestController
 {
+    // Polled for new slots: always revalidated, which costs a single version lookup
+    private static final CacheControl SCHEDULES_CACHE_CONTROL = CacheControl.noCache( );
 
     private final TennisCourtService tennisCourtService;
+    private final ObjectMapper       objectMapper;
+    private final Bulkheads          bulkheads;
 
     @GetMapping
     @ApiOperation( value = "List all Tennis Courts" )
-    public ResponseEntity<List<TennisCourtDTO>> listAll( )
+    public CompletableFuture<ResponseEntity<List<TennisCourtDTO>>> listAll( )
     {
-	return ResponseEntity.ok( tennisCourtService.listAll( ) );
+	return bulkheads.read( ( ) -> ResponseEntity.ok( tennisCourtService.listAll( ) ) );
+    }
+
+    @GetMapping( "/page" )
+    @ApiOperation( value = "List a page of Tennis Courts ordered by id, starting after the given id" )
+    public CompletableFuture<ResponseEntity<TennisCourtPageDTO>> listPage(
+		    @RequestParam( value = "afterId", required = false ) Long afterId,
+		    @RequestParam( value = "size", defaultValue = "100" ) int size )
+    {
+	return bulkheads.read( ( ) -> ResponseEntity.ok( tennisCourtService.listPage( afterId, size ) ) );
+    }
+
+    @GetMapping( value = "/stream", produces = NdjsonStreams.APPLICATION_NDJSON_VALUE )
+    @ApiOperation( value = "Stream all Tennis Courts ordered by id as newline delimited JSON" )
+    public ResponseEntity<StreamingResponseBody> streamAll( )
+    {
+	return ResponseEntity.ok( ).contentType( NdjsonStreams.APPLICATION_NDJSON )
+			.body( NdjsonStreams.of( objectMapper, tennisCourtService::streamAll ) );
     }
 
     @GetMapping( "/{tennisCourtId}" )
     @ApiOperation( value = "Find Tennis Court by id" )
-    public ResponseEntity<TennisCourtDTO> listById( @PathVariable Long tennisCourtId )
+    public CompletableFuture<ResponseEntity<TennisCourtDTO>> listById( @PathVariable Long tennisCourtId )
     {
-	return ResponseEntity.ok( tennisCourtService.listById( tennisCourtId ) );
+	return bulkheads.read( ( ) -> ResponseEntity.ok( tennisCourtService.listById( tennisCourtId ) ) );
     }
 
     @PostMapping
     @ApiOperation( value = "Add a Tennis Court" )
-    public ResponseEntity<Void> add( @RequestBody TennisCourtDTO tennisCourtDTO )
+    public CompletableFuture<ResponseEntity<Void>> add( @RequestBody TennisCourtDTO tennisCourtDTO )
     {
-	return ResponseEntity.created( locationByEntity( tennisCourtService.add( tennisCourtDTO ).getId( ) ) ).build( );
+	return bulkheads.write( ( ) -> ResponseEntity.created(
+			locationByEntity( tennisCourtService.add( tennisCourtDTO ).getId( ) ) ).build( ) );
     }
 
     @PutMapping
     @ApiOperation( value = "Update a Tennis Court" )
-    public ResponseEntity<TennisCourtDTO> update( @RequestBody TennisCourtDTO tennisCourtDTO )
+    public CompletableFuture<ResponseEntity<TennisCourtDTO>> update( @RequestBody TennisCourtDTO tennisCourtDTO )
     {
-	return ResponseEntity.ok( tennisCourtService.update( tennisCourtDTO ) );
+	return bulkheads.write( ( ) -> ResponseEntity.ok( tennisCourtService.update( tennisCourtDTO ) ) );
     }
 
     @DeleteMapping( "/{tennisCourtId}" )
     @ApiOperation( value = "Delete a Tennis Court" )
-    public ResponseEntity<Void> delete( @PathVariable Long tennisCourtId )
+    public CompletableFuture<ResponseEntity<Void>> delete( @PathVariable Long tennisCourtId )
     {
-	tennisCourtService.delete( tennisCourtId );
-	return ResponseEntity.ok( ).build( );
+	return bulkheads.write( ( ) -> {
+	    tennisCourtService.delete( tennisCourtId );
+	    return ResponseEntity.ok( ).build( );
+	} );
     }
 
     @GetMapping( "/{tennisCourtId}/schedules" )
     @ApiOperation( value = "Find Tennis Court with schedules" )
-    public ResponseEntity<TennisCourtDTO> findByIdWithSchedules( @PathVariable Long tennisCourtId )
+    public CompletableFuture<ResponseEntity<TennisCourtDTO>> findByIdWithSchedules( @PathVariable Long tennisCourtId,
+		    @RequestHeader HttpHeaders requestHeaders )
     {
-	return ResponseEntity.ok( tennisCourtService.findByIdWithSchedules( tennisCourtId ) );
+	return bulkheads.read( ( ) -> ConditionalResponses.of( requestHeaders,
+			tennisCourtService.findSchedulesVersion( tennisCourtId ), SCHEDULES_CACHE_CONTROL,
+			( ) -> tennisCourtService.findByIdWithSchedules( tennisCourtId ) ) );
     }
 }
\ No newline at end of file
@@ -0,0 +1,29 @@
+package com.tenniscourts.tenniscourts;
+
+import com.tenniscourts.config.persistence.JdbcStreams;
+import lombok.AllArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.util.function.Consumer;
+
+/**
+ * Forward-only reads of the tennis court table, for listings too large to be loaded as entities.
+ */
+@Repository
+@AllArgsConstructor
+public class TennisCourtJdbcRepository
+{
+    private static final String STREAM_ALL_SQL = "select id, name from tennis_court order by id";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Hands every tennis court to the consumer, in id order, as it comes off a forward-only cursor.
+     */
+    public void streamAll( Consumer<TennisCourtDTO> consumer )
+    {
+	JdbcStreams.query( jdbcTemplate, STREAM_ALL_SQL, resultSet -> consumer.accept(
+			TennisCourtDTO.builder( ).id( resultSet.getLong( 1 ) ).name( resultSet.getString( 2 ) ).build( ) ) );
+    }
+}
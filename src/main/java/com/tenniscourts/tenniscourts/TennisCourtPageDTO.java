@@ -0,0 +1,22 @@
+package com.tenniscourts.tenniscourts;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.util.List;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class TennisCourtPageDTO
+{
+    private List<TennisCourtDTO> content;
+
+    /**
+     * Keyset cursor of the next page, absent on the last page.
+     */
+    private Long nextId;
+}
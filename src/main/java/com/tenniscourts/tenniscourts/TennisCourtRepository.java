@@ -1,7 +1,35 @@
 package com.tenniscourts.tenniscourts;
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import javax.persistence.LockModeType;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
 
 public interface TennisCourtRepository extends JpaRepository<TennisCourt, Long>
 {
+    List<TennisCourt> findByIdGreaterThanOrderById( Long afterId, Pageable pageable );
+
+    Optional<TennisCourtVersion> findVersionById( Long id );
+
+    @Modifying
+    @Query( "update TennisCourt t set t.scheduleVersion = t.scheduleVersion + 1, t.dateUpdate = current_timestamp "
+		    + "where t.id in :ids" )
+    int incrementScheduleVersions( @Param( "ids" ) Collection<Long> ids );
+
+    /**
+     * Locks the courts until the end of the transaction, in id order: serializes the slots added to them across nodes.
+     */
+    @Lock( LockModeType.PESSIMISTIC_WRITE )
+    @Query( "select t.id from TennisCourt t where t.id in :ids order by t.id" )
+    List<Long> findLockedIdsByIdIn( @Param( "ids" ) Collection<Long> ids );
+
+    @Query( "select distinct t from TennisCourt t left join fetch t.schedules where t.id = :id" )
+    Optional<TennisCourt> findWithSchedulesById( @Param( "id" ) Long id );
 }
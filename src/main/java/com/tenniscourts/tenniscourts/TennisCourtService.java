@@ -1,28 +1,66 @@
 package com.tenniscourts.tenniscourts;
 
+import com.tenniscourts.config.http.ResourceVersion;
+import com.tenniscourts.config.persistence.Pages;
 import com.tenniscourts.exceptions.EntityNotFoundException;
-import com.tenniscourts.schedules.ScheduleService;
+import com.tenniscourts.schedules.CourtSlotViewRepository;
+import com.tenniscourts.schedules.ScheduleMapper;
 import lombok.AllArgsConstructor;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collections;
 import java.util.List;
+import java.util.Optional;
+import java.util.function.Consumer;
 
 @Service
 @AllArgsConstructor
 public class TennisCourtService
 {
+    public static final String CACHE_NAME = "tennisCourts";
 
     private final TennisCourtRepository tennisCourtRepository;
 
-    private final ScheduleService scheduleService;
+    private final TennisCourtJdbcRepository tennisCourtJdbcRepository;
+
+    private final ScheduleMapper scheduleMapper;
 
     private final TennisCourtMapper tennisCourtMapper;
 
+    private final CourtSlotViewRepository courtSlotViewRepository;
+
     public List<TennisCourtDTO> listAll( )
     {
 	return tennisCourtMapper.map( tennisCourtRepository.findAll( ) );
     }
 
+    public TennisCourtPageDTO listPage( Long afterId, int size )
+    {
+	Pages.checkSize( size );
+
+	// Without a cursor the seek starts right at the beginning
+	List<TennisCourt> tennisCourts = tennisCourtRepository.findByIdGreaterThanOrderById(
+			Optional.ofNullable( afterId ).orElse( 0L ), PageRequest.of( 0, size ) );
+
+	return new TennisCourtPageDTO( tennisCourtMapper.map( tennisCourts ),
+			tennisCourts.size( ) == size ? tennisCourts.get( size - 1 ).getId( ) : null );
+    }
+
+    public void streamAll( Consumer<TennisCourtDTO> consumer )
+    {
+	tennisCourtJdbcRepository.streamAll( consumer );
+    }
+
+    /**
+     * Cached as a {@link TennisCourtDTO}, never as the entity, evicted by {@link #update(TennisCourtDTO)} and
+     * {@link #delete(Long)}. Callers share the cached instance and must not modify it. The cache is local to each node:
+     * an update made through another node is only seen once the entry expires.
+     */
+    @Cacheable( cacheNames = CACHE_NAME )
     public TennisCourtDTO listById( Long id )
     {
 	return tennisCourtRepository.findById( id ).map( tennisCourtMapper::map ).orElseThrow( ( ) -> {
@@ -35,24 +73,44 @@ public class TennisCourtService
 	return tennisCourtMapper.map( tennisCourtRepository.saveAndFlush( tennisCourtMapper.map( tennisCourt ) ) );
     }
 
+    @Transactional
+    @CacheEvict( cacheNames = CACHE_NAME, key = "#tennisCourtDTO.id" )
     public TennisCourtDTO update( TennisCourtDTO tennisCourtDTO )
     {
 	listById( tennisCourtDTO.getId( ) );
 	TennisCourt tennisCourt = tennisCourtRepository.save( tennisCourtMapper.map( tennisCourtDTO ) );
+	// The court name is part of its schedule payload, and copied into the slot view
+	tennisCourtRepository.incrementScheduleVersions( Collections.singletonList( tennisCourt.getId( ) ) );
+	courtSlotViewRepository.renameTennisCourt( tennisCourt.getId( ), tennisCourt.getName( ) );
 
 	return tennisCourtMapper.map( tennisCourt );
     }
 
+    @CacheEvict( cacheNames = CACHE_NAME, key = "#tennisCourtId" )
     public void delete( Long tennisCourtId )
     {
 	listById( tennisCourtId );
 	tennisCourtRepository.deleteById( tennisCourtId );
     }
 
+    public ResourceVersion findSchedulesVersion( Long tennisCourtId )
+    {
+	return tennisCourtRepository.findVersionById( tennisCourtId ).map( version -> ResourceVersion
+			.of( version.getDateUpdate( ), "tennis-court-schedules", tennisCourtId, version.getScheduleVersion( ) ) )
+			.orElseThrow( ( ) -> {
+			    throw new EntityNotFoundException( "Tennis Court not found." );
+			} );
+    }
+
     public TennisCourtDTO findByIdWithSchedules( Long tennisCourtId )
     {
-	TennisCourtDTO tennisCourtDTO = listById( tennisCourtId );
-	tennisCourtDTO.setTennisCourtSchedules( scheduleService.listByTennisCourtId( tennisCourtId ) );
+	TennisCourt tennisCourt = tennisCourtRepository.findWithSchedulesById( tennisCourtId )
+			.orElseThrow( ( ) -> {
+			    throw new EntityNotFoundException( "Tennis Court not found." );
+			} );
+
+	TennisCourtDTO tennisCourtDTO = tennisCourtMapper.map( tennisCourt );
+	tennisCourtDTO.setTennisCourtSchedules( scheduleMapper.map( tennisCourt.getSchedules( ) ) );
 
 	return tennisCourtDTO;
     }
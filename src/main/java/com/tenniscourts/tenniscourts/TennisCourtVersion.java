@@ -0,0 +1,13 @@
+package com.tenniscourts.tenniscourts;
+
+import java.time.LocalDateTime;
+
+/**
+ * Version columns of a tennis court, read without loading it.
+ */
+public interface TennisCourtVersion
+{
+    long getScheduleVersion( );
+
+    LocalDateTime getDateUpdate( );
+}
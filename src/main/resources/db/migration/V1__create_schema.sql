@@ -0,0 +1,101 @@
+-- Schema as mapped by the entities in 0.0.1, plus the indexes of the hot queries.
+-- Every later change goes in a new V<n>__<description>.sql: an applied migration is never edited.
+
+create table guest
+(
+    id               bigint generated by default as identity primary key,
+    date_create      timestamp,
+    date_update      timestamp,
+    ip_number_create varchar(255),
+    ip_number_update varchar(255),
+    user_create      bigint,
+    user_update      bigint,
+    name             varchar(255) not null
+);
+
+-- Exact name lookups and the prefix scans of the guest search
+create index idx_guest_name on guest (name);
+
+create table tennis_court
+(
+    id               bigint generated by default as identity primary key,
+    date_create      timestamp,
+    date_update      timestamp,
+    ip_number_create varchar(255),
+    ip_number_update varchar(255),
+    user_create      bigint,
+    user_update      bigint,
+    name             varchar(255) not null,
+    schedule_version bigint       not null default 0
+);
+
+create table schedule
+(
+    id               bigint generated by default as identity primary key,
+    date_create      timestamp,
+    date_update      timestamp,
+    ip_number_create varchar(255),
+    ip_number_update varchar(255),
+    user_create      bigint,
+    user_update      bigint,
+    tennis_court_id  bigint    not null,
+    start_date_time  timestamp not null,
+    end_date_time    timestamp not null
+);
+
+-- Slots of a court by start: duplicate checks, range scans and the court's ordered schedule
+create index idx_schedule_court_start on schedule (tennis_court_id, start_date_time);
+
+create table reservation
+(
+    id                 bigint generated by default as identity primary key,
+    date_create        timestamp,
+    date_update        timestamp,
+    ip_number_create   varchar(255),
+    ip_number_update   varchar(255),
+    user_create        bigint,
+    user_update        bigint,
+    guest_id           bigint         not null,
+    schedule_id        bigint         not null,
+    value              decimal(19, 2) not null,
+    refund_value       decimal(19, 2),
+    reservation_status integer        not null,
+    active_schedule_id bigint,
+    constraint uk_reservation_active_schedule unique (active_schedule_id)
+);
+
+-- Reservations of a slot, optionally by status
+create index idx_reservation_schedule_status on reservation (schedule_id, reservation_status);
+create index idx_reservation_guest on reservation (guest_id);
+
+create table court_slot_view
+(
+    schedule_id           bigint primary key,
+    tennis_court_id       bigint         not null,
+    tennis_court_name     varchar(255)   not null,
+    start_date_time       timestamp      not null,
+    end_date_time         timestamp      not null,
+    status                varchar(255)   not null,
+    active_reservation_id bigint,
+    price                 decimal(19, 2) not null
+);
+
+create index idx_court_slot_view_start on court_slot_view (start_date_time, schedule_id);
+create index idx_court_slot_view_court_start on court_slot_view (tennis_court_id, start_date_time);
+
+create table audit_record
+(
+    id          bigint generated by default as identity primary key,
+    entity_name varchar(255) not null,
+    entity_id   varchar(255) not null,
+    action      varchar(255) not null,
+    user_id     bigint,
+    ip_number   varchar(255),
+    node        varchar(255),
+    date_time   timestamp    not null
+);
+
+-- Added after the indexes, which back them: declared first, each would get an index of its own on the lone column
+alter table schedule add constraint fk_schedule_tennis_court foreign key (tennis_court_id) references tennis_court (id);
+alter table reservation add constraint fk_reservation_guest foreign key (guest_id) references guest (id);
+alter table reservation add constraint fk_reservation_schedule foreign key (schedule_id) references schedule (id);
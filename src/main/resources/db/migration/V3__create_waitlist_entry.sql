@@ -0,0 +1,26 @@
+-- Guests queued for a taken slot, promoted in order of arrival when it is cancelled or rescheduled.
+
+create table waitlist_entry
+(
+    id                  bigint generated by default as identity primary key,
+    date_create         timestamp,
+    date_update         timestamp,
+    ip_number_create    varchar(255),
+    ip_number_update    varchar(255),
+    user_create         bigint,
+    user_update         bigint,
+    guest_id            bigint  not null,
+    schedule_id         bigint  not null,
+    waitlist_status     integer not null,
+    reservation_id      bigint,
+    waiting_schedule_id bigint,
+    constraint uk_waitlist_entry_waiting_guest unique (guest_id, waiting_schedule_id)
+);
+
+-- Head of the queue of a slot and the places in it. The unique constraint leads with the guest so that the queue
+-- reads pick this index, and it backs the guest foreign key.
+create index idx_waitlist_entry_waiting on waitlist_entry (waiting_schedule_id, id);
+
+alter table waitlist_entry add constraint fk_waitlist_entry_guest foreign key (guest_id) references guest (id);
+alter table waitlist_entry add constraint fk_waitlist_entry_schedule foreign key (schedule_id) references schedule (id);
+alter table waitlist_entry add constraint fk_waitlist_entry_reservation foreign key (reservation_id) references reservation (id);
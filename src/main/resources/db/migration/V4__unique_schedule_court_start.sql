@@ -0,0 +1,9 @@
+-- At most one slot of a court per start, whichever node or path adds it. The unique index takes over from
+-- idx_schedule_court_start for the court's range scans and ordered schedule, and backs the court foreign key once it
+-- is added back: a foreign key keeps the index it was created on.
+
+create unique index uk_schedule_court_start on schedule (tennis_court_id, start_date_time);
+
+alter table schedule drop constraint fk_schedule_tennis_court;
+drop index idx_schedule_court_start;
+alter table schedule add constraint fk_schedule_tennis_court foreign key (tennis_court_id) references tennis_court (id);
@@ -0,0 +1,26 @@
+-- Demo data, only applied where db/seed is one of the Flyway locations. Repeatable: applied after the versioned
+-- migrations and again whenever this file changes, so every row is only inserted when missing.
+
+insert into guest(id, name)
+    select null, 'Roger Federer' from dual
+    where not exists (select 1 from guest where name = 'Roger Federer');
+insert into guest(id, name)
+    select null, 'Rafael Nadal' from dual
+    where not exists (select 1 from guest where name = 'Rafael Nadal');
+
+insert into tennis_court(id, name, schedule_version)
+    select null, 'Roland Garros - Court Philippe-Chatrier', 0 from dual
+    where not exists (select 1 from tennis_court where name = 'Roland Garros - Court Philippe-Chatrier');
+
+insert
+    into
+        schedule
+        (id, start_date_time, end_date_time, tennis_court_id)
+    select
+        null, '2020-12-20T20:00:00.0', '2020-12-20T21:00:00.0', t.id
+    from
+        tennis_court t
+    where
+        t.name = 'Roland Garros - Court Philippe-Chatrier'
+        and not exists (select 1 from schedule s where s.tennis_court_id = t.id
+            and s.start_date_time = '2020-12-20T20:00:00.0');
@@ -0,0 +1,90 @@
+package com.tenniscourts;
+
+import com.tenniscourts.guests.Guest;
+import com.tenniscourts.guests.GuestRepository;
+import com.tenniscourts.reservations.CreateReservationRequestDTO;
+import com.tenniscourts.reservations.ReservationDTO;
+import com.tenniscourts.reservations.ReservationService;
+import com.tenniscourts.schedules.ScheduleDTO;
+import com.tenniscourts.schedules.ScheduleService;
+import com.tenniscourts.schedules.ScheduleSlotDTO;
+import com.tenniscourts.tenniscourts.TennisCourt;
+import com.tenniscourts.tenniscourts.TennisCourtRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.TestComponent;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Courts, slots, guests and reservations for the tests running against the whole application. Slots go through
+ * {@link ScheduleService}, so the slot view and the in-memory indexes see them as they would in production.
+ * <p>
+ * Every fixture gets its own day, far from the seeded slots and from the days of the other fixtures, so range queries
+ * only see the slots created for it.
+ */
+@TestComponent
+public class BookingFixtures
+{
+    private static final AtomicInteger DAYS = new AtomicInteger( );
+
+    @Autowired
+    TennisCourtRepository tennisCourtRepository;
+
+    @Autowired
+    GuestRepository guestRepository;
+
+    @Autowired
+    ScheduleService scheduleService;
+
+    @Autowired
+    ReservationService reservationService;
+
+    public LocalDateTime newDay( )
+    {
+	return LocalDateTime.now( ).plusYears( 1 ).plusDays( DAYS.incrementAndGet( ) ).truncatedTo( ChronoUnit.DAYS );
+    }
+
+    public TennisCourt newTennisCourt( String name )
+    {
+	TennisCourt tennisCourt = new TennisCourt( );
+	tennisCourt.setName( name );
+
+	return tennisCourtRepository.save( tennisCourt );
+    }
+
+    public ScheduleDTO newSchedule( Long tennisCourtId, LocalDateTime startDateTime )
+    {
+	return newSchedule( tennisCourtId, startDateTime, null );
+    }
+
+    public ScheduleDTO newSchedule( Long tennisCourtId, LocalDateTime startDateTime, Integer durationMinutes )
+    {
+	ScheduleSlotDTO scheduleSlotDTO = new ScheduleSlotDTO( );
+	scheduleSlotDTO.setTennisCourtId( tennisCourtId );
+	scheduleSlotDTO.setStartDateTime( startDateTime );
+	scheduleSlotDTO.setDurationMinutes( durationMinutes );
+
+	return scheduleService.add( tennisCourtId, scheduleSlotDTO );
+    }
+
+    public Guest newGuest( String name )
+    {
+	return guestRepository.save( Guest.builder( ).name( name ).build( ) );
+    }
+
+    /**
+     * A booking request of the slot by a new guest.
+     */
+    public CreateReservationRequestDTO request( String name, Long scheduleId )
+    {
+	return CreateReservationRequestDTO.builder( ).guestId( newGuest( name ).getId( ) ).scheduleId( scheduleId )
+			.build( );
+    }
+
+    public ReservationDTO book( String name, Long scheduleId )
+    {
+	return reservationService.bookReservation( request( name, scheduleId ) );
+    }
+}
@@ -0,0 +1,118 @@
+package com.tenniscourts;
+
+import com.tenniscourts.exceptions.EntityNotFoundException;
+import com.tenniscourts.guests.GuestDTO;
+import com.tenniscourts.guests.GuestService;
+import com.tenniscourts.tenniscourts.TennisCourtDTO;
+import com.tenniscourts.tenniscourts.TennisCourtService;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.test.context.junit4.SpringRunner;
+
+@SpringBootTest
+@RunWith( SpringRunner.class )
+public class LookupCacheTest
+{
+    @Autowired
+    GuestService guestService;
+
+    @Autowired
+    TennisCourtService tennisCourtService;
+
+    @Autowired
+    CacheManager cacheManager;
+
+    @Test
+    public void guestsAreCachedAsDTOsUntilUpdated( )
+    {
+	GuestDTO guestDTO = guestService.add( GuestDTO.builder( ).name( "Cached guest" ).build( ) );
+
+	Assert.assertSame( guestService.findById( guestDTO.getId( ) ), cached( GuestService.CACHE_NAME, guestDTO.getId( ) ) );
+
+	guestService.update( GuestDTO.builder( ).id( guestDTO.getId( ) ).name( "Renamed guest" ).build( ) );
+	Assert.assertNull( cached( GuestService.CACHE_NAME, guestDTO.getId( ) ) );
+	Assert.assertEquals( "Renamed guest", guestService.findById( guestDTO.getId( ) ).getName( ) );
+    }
+
+    @Test
+    public void conditionalReadsSkipTheCache( )
+    {
+	GuestDTO guestDTO = guestService.add( GuestDTO.builder( ).name( "Current guest" ).build( ) );
+	// As left by an update made through another node
+	cacheManager.getCache( GuestService.CACHE_NAME ).put( guestDTO.getId( ),
+			GuestDTO.builder( ).id( guestDTO.getId( ) ).name( "Stale guest" ).build( ) );
+
+	Assert.assertEquals( "Current guest", guestService.findCurrentById( guestDTO.getId( ) ).getName( ) );
+	Assert.assertEquals( "Stale guest", guestService.findById( guestDTO.getId( ) ).getName( ) );
+    }
+
+    @Test
+    public void deletedGuestsAreEvicted( )
+    {
+	GuestDTO guestDTO = guestService.add( GuestDTO.builder( ).name( "Leaving guest" ).build( ) );
+	guestService.findById( guestDTO.getId( ) );
+
+	guestService.delete( guestDTO.getId( ) );
+
+	Assert.assertNull( cached( GuestService.CACHE_NAME, guestDTO.getId( ) ) );
+	assertNotFound( ( ) -> guestService.findById( guestDTO.getId( ) ) );
+    }
+
+    @Test
+    public void tennisCourtsAreCachedAsDTOsUntilUpdated( )
+    {
+	TennisCourtDTO tennisCourtDTO = tennisCourtService.add( TennisCourtDTO.builder( ).name( "Cached court" ).build( ) );
+
+	Assert.assertSame( tennisCourtService.listById( tennisCourtDTO.getId( ) ),
+			cached( TennisCourtService.CACHE_NAME, tennisCourtDTO.getId( ) ) );
+
+	tennisCourtService.update( TennisCourtDTO.builder( ).id( tennisCourtDTO.getId( ) ).name( "Renamed court" ).build( ) );
+	Assert.assertNull( cached( TennisCourtService.CACHE_NAME, tennisCourtDTO.getId( ) ) );
+	Assert.assertEquals( "Renamed court", tennisCourtService.listById( tennisCourtDTO.getId( ) ).getName( ) );
+    }
+
+    @Test
+    public void deletedTennisCourtsAreEvicted( )
+    {
+	TennisCourtDTO tennisCourtDTO = tennisCourtService.add( TennisCourtDTO.builder( ).name( "Closing court" ).build( ) );
+	tennisCourtService.listById( tennisCourtDTO.getId( ) );
+
+	tennisCourtService.delete( tennisCourtDTO.getId( ) );
+
+	Assert.assertNull( cached( TennisCourtService.CACHE_NAME, tennisCourtDTO.getId( ) ) );
+	assertNotFound( ( ) -> tennisCourtService.listById( tennisCourtDTO.getId( ) ) );
+    }
+
+    @Test
+    public void missesAreNotCached( )
+    {
+	assertNotFound( ( ) -> guestService.findById( Long.MAX_VALUE ) );
+
+	Assert.assertNull( cached( GuestService.CACHE_NAME, Long.MAX_VALUE ) );
+    }
+
+    private Object cached( String cacheName, Long id )
+    {
+	Cache.ValueWrapper valueWrapper = cacheManager.getCache( cacheName ).get( id );
+
+	return valueWrapper == null ? null : valueWrapper.get( );
+    }
+
+    private static void assertNotFound( Runnable lookup )
+    {
+	try
+	{
+	    lookup.run( );
+	    Assert.fail( "The entry should be gone" );
+	}
+	catch( EntityNotFoundException e )
+	{
+	    // Expected
+	}
+    }
+}
@@ -0,0 +1,178 @@
+package com.tenniscourts;
+
+import com.tenniscourts.guests.GuestPageDTO;
+import com.tenniscourts.guests.GuestService;
+import com.tenniscourts.reservations.CreateReservationRequestDTO;
+import com.tenniscourts.reservations.ReservationService;
+import com.tenniscourts.schedules.ScheduleDTO;
+import com.tenniscourts.schedules.ScheduleFiltersDTO;
+import com.tenniscourts.schedules.ScheduleService;
+import com.tenniscourts.tenniscourts.TennisCourtPageDTO;
+import com.tenniscourts.tenniscourts.TennisCourtService;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import javax.persistence.EntityManagerFactory;
+import java.time.LocalDateTime;
+
+/**
+ * Each read endpoint must load its whole graph with a single SQL statement.
+ */
+@SpringBootTest
+@RunWith( SpringRunner.class )
+@Import( BookingFixtures.class )
+public class ReadQueryStatementCountTest
+{
+    @Autowired
+    BookingFixtures bookingFixtures;
+
+    @Autowired
+    ReservationService reservationService;
+
+    @Autowired
+    ScheduleService scheduleService;
+
+    @Autowired
+    TennisCourtService tennisCourtService;
+
+    @Autowired
+    GuestService guestService;
+
+    @Autowired
+    EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+
+    private Long tennisCourtId;
+
+    private Long reservationId;
+
+    private Long guestId;
+
+    private LocalDateTime firstSlot;
+
+    @Before
+    public void setUp( )
+    {
+	// Off by default, counted for these tests only
+	statistics = entityManagerFactory.unwrap( SessionFactory.class ).getStatistics( );
+	statistics.setStatisticsEnabled( true );
+	firstSlot = bookingFixtures.newDay( );
+
+	ScheduleDTO firstSchedule = null;
+	for( int court = 0; court < 3; court++ )
+	{
+	    tennisCourtId = bookingFixtures.newTennisCourt( "Statement count court " + court ).getId( );
+
+	    for( int hour = 0; hour < 4; hour++ )
+	    {
+		ScheduleDTO schedule = bookingFixtures.newSchedule( tennisCourtId, firstSlot.plusHours( hour ) );
+		firstSchedule = firstSchedule == null ? schedule : firstSchedule;
+	    }
+	}
+
+	guestId = bookingFixtures.newGuest( "Statement counter" ).getId( );
+	reservationId = reservationService.bookReservation( CreateReservationRequestDTO.builder( )
+			.guestId( guestId ).scheduleId( firstSchedule.getId( ) ).build( ) ).getId( );
+
+	statistics.clear( );
+    }
+
+    @After
+    public void tearDown( )
+    {
+	statistics.setStatisticsEnabled( false );
+    }
+
+    @Test
+    public void findReservationRunsOneStatement( )
+    {
+	Assert.assertNotNull( reservationService.findReservation( reservationId ).getSchedule( ).getTennisCourt( ) );
+	Assert.assertEquals( 1, statistics.getPrepareStatementCount( ) );
+    }
+
+    @Test
+    public void findTennisCourtWithSchedulesRunsOneStatement( )
+    {
+	Assert.assertEquals( 4, tennisCourtService.findByIdWithSchedules( tennisCourtId ).getTennisCourtSchedules( ).size( ) );
+	Assert.assertEquals( 1, statistics.getPrepareStatementCount( ) );
+    }
+
+    @Test
+    public void findSchedulesByDatesRunsOneStatement( )
+    {
+	Assert.assertEquals( 12, scheduleService.listByFilter( firstSlot, firstSlot.plusHours( 4 ) ).size( ) );
+	Assert.assertEquals( 1, statistics.getPrepareStatementCount( ) );
+    }
+
+    @Test
+    public void findSchedulePageByDatesRunsOneStatement( )
+    {
+	ScheduleFiltersDTO scheduleFiltersDTO = new ScheduleFiltersDTO( );
+	scheduleFiltersDTO.setStartDateTime( firstSlot );
+	scheduleFiltersDTO.setEndDateTime( firstSlot.plusHours( 4 ) );
+
+	Assert.assertEquals( 5, scheduleService.listPageByFilter( scheduleFiltersDTO, 5 ).getContent( ).size( ) );
+	Assert.assertEquals( 1, statistics.getPrepareStatementCount( ) );
+    }
+
+    @Test
+    public void findScheduleByIdRunsOneStatement( )
+    {
+	Long scheduleId = scheduleService.listByTennisCourtId( tennisCourtId ).get( 0 ).getId( );
+	statistics.clear( );
+
+	Assert.assertNotNull( scheduleService.listById( scheduleId ).getTennisCourt( ) );
+	Assert.assertEquals( 1, statistics.getPrepareStatementCount( ) );
+    }
+
+    @Test
+    public void findSchedulesByTennisCourtRunsOneStatement( )
+    {
+	Assert.assertEquals( 4, scheduleService.listByTennisCourtId( tennisCourtId ).size( ) );
+	Assert.assertEquals( 1, statistics.getPrepareStatementCount( ) );
+    }
+
+    @Test
+    public void listTennisCourtPageRunsOneStatement( )
+    {
+	TennisCourtPageDTO tennisCourtPageDTO = tennisCourtService.listPage( tennisCourtId - 2, 1 );
+
+	Assert.assertEquals( tennisCourtId - 1, ( long ) tennisCourtPageDTO.getContent( ).get( 0 ).getId( ) );
+	Assert.assertEquals( tennisCourtId - 1, ( long ) tennisCourtPageDTO.getNextId( ) );
+	Assert.assertEquals( 1, statistics.getPrepareStatementCount( ) );
+
+	// The last page has no cursor
+	Assert.assertNull( tennisCourtService.listPage( tennisCourtId - 1, 1_000 ).getNextId( ) );
+    }
+
+    @Test
+    public void listGuestPageRunsOneStatement( )
+    {
+	GuestPageDTO guestPageDTO = guestService.findPage( guestId - 1, 1 );
+
+	Assert.assertEquals( guestId, guestPageDTO.getContent( ).get( 0 ).getId( ) );
+	Assert.assertEquals( guestId, guestPageDTO.getNextId( ) );
+	Assert.assertEquals( 1, statistics.getPrepareStatementCount( ) );
+    }
+
+    @Test
+    public void tennisCourtSchedulesVersionRunsOneStatementAndFollowsNewSlots( )
+    {
+	String eTag = tennisCourtService.findSchedulesVersion( tennisCourtId ).getETag( );
+	Assert.assertEquals( 1, statistics.getPrepareStatementCount( ) );
+
+	bookingFixtures.newSchedule( tennisCourtId, firstSlot.plusHours( 4 ) );
+
+	Assert.assertNotEquals( eTag, tennisCourtService.findSchedulesVersion( tennisCourtId ).getETag( ) );
+    }
+}
@@ -0,0 +1,198 @@
+package com.tenniscourts;
+
+import com.tenniscourts.guests.GuestRepository;
+import com.tenniscourts.reservations.ReservationRepository;
+import com.tenniscourts.reservations.ReservationStatus;
+import com.tenniscourts.reservations.WaitlistEntryRepository;
+import com.tenniscourts.schedules.CourtSlotViewRepository;
+import com.tenniscourts.schedules.ScheduleRepository;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.regex.Pattern;
+
+/**
+ * Each hot repository query must be answered through an index of the migrated schema: its SQL, as generated by
+ * Hibernate, is run through H2's EXPLAIN and the plan must name the index and scan no table.
+ */
+@SpringBootTest( properties = "spring.jpa.properties.hibernate.session_factory.statement_inspector="
+		+ "com.tenniscourts.SchemaIndexUsageTest$CapturedStatements" )
+@RunWith( SpringRunner.class )
+public class SchemaIndexUsageTest
+{
+    private static final LocalDateTime START = LocalDateTime.of( 2020, 12, 20, 0, 0 );
+
+    private static final LocalDateTime END = START.plusDays( 1L );
+
+    @Autowired
+    ScheduleRepository scheduleRepository;
+
+    @Autowired
+    ReservationRepository reservationRepository;
+
+    @Autowired
+    GuestRepository guestRepository;
+
+    @Autowired
+    CourtSlotViewRepository courtSlotViewRepository;
+
+    @Autowired
+    WaitlistEntryRepository waitlistEntryRepository;
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    TransactionTemplate transactionTemplate;
+
+    @Before
+    public void setUp( )
+    {
+	CapturedStatements.STATEMENTS.clear( );
+    }
+
+    @Test
+    public void schedulesOfACourtBetweenTwoStartsLookUpTheCourt( )
+    {
+	scheduleRepository.findByTennisCourt_IdAndStartDateTimeBetweenOrderByStartDateTime( 1L, START, END );
+	assertLooksUp( "TENNIS_COURT_ID" );
+    }
+
+    @Test
+    public void overlappingIntervalsOfACourtLookUpTheCourt( )
+    {
+	scheduleRepository.findOverlappingIntervals( 1L, START, START, END );
+	assertLooksUp( "TENNIS_COURT_ID" );
+    }
+
+    @Test
+    public void orderedSchedulesOfACourtUseTheCourtStartIndex( )
+    {
+	scheduleRepository.findByTennisCourt_IdOrderByStartDateTime( 1L );
+	assertUsesIndex( "UK_SCHEDULE_COURT_START" );
+    }
+
+    @Test
+    public void reservationsOfAScheduleUseTheScheduleStatusIndex( )
+    {
+	reservationRepository.findBySchedule_Id( 1L );
+	assertUsesIndex( "IDX_RESERVATION_SCHEDULE_STATUS" );
+    }
+
+    @Test
+    public void reservationsOfACourtBetweenTwoDatesLookUpTheCourtThenItsSlots( )
+    {
+	reservationRepository.findByStatusAndCourtBetween( ReservationStatus.READY_TO_PLAY, 1L, START, END );
+	assertLooksUp( "TENNIS_COURT_ID" );
+	assertUsesIndex( "IDX_RESERVATION_SCHEDULE_STATUS" );
+    }
+
+    @Test
+    public void activeReservationOfAScheduleUsesTheUniqueConstraint( )
+    {
+	reservationRepository.findIdByActiveScheduleId( 1L );
+	// The index is named after the constraint by H2
+	assertLooksUp( "ACTIVE_SCHEDULE_ID" );
+    }
+
+    @Test
+    public void headOfAWaitlistUsesTheWaitingIndex( )
+    {
+	// Locked, so it needs a transaction
+	transactionTemplate.execute( status -> waitlistEntryRepository.findFirstLockedByWaitingScheduleIdOrderById( 1L ) );
+	assertUsesIndex( "IDX_WAITLIST_ENTRY_WAITING" );
+    }
+
+    @Test
+    public void guestByNameUsesTheNameIndex( )
+    {
+	guestRepository.findByName( "Roger Federer" );
+	assertUsesIndex( "IDX_GUEST_NAME" );
+    }
+
+    @Test
+    public void slotsBetweenTwoDatesUseTheViewStartIndex( )
+    {
+	courtSlotViewRepository.findByStartDateTimeGreaterThanEqualAndEndDateTimeLessThanEqualOrderByStartDateTimeAscScheduleIdAsc(
+			START, END );
+	assertUsesIndex( "IDX_COURT_SLOT_VIEW_START" );
+    }
+
+    @Test
+    public void pageOfSlotsBetweenTwoDatesUsesTheViewStartIndex( )
+    {
+	courtSlotViewRepository.findPageByDates( START, END, START, 0L, PageRequest.of( 0, 10 ) );
+	assertUsesIndex( "IDX_COURT_SLOT_VIEW_START" );
+    }
+
+    private void assertUsesIndex( String index )
+    {
+	String plan = plan( );
+	Assert.assertTrue( index + " not used by:\n" + plan, plan.contains( "/* PUBLIC." + index + ":" ) );
+    }
+
+    /**
+     * For the slots of a court between two dates H2 keeps an index of its own on every foreign key column and, as the
+     * range on the second column of {@code uk_schedule_court_start} does not lower its cost, settles the tie on the
+     * smaller one. Either way the slots of the court are looked up rather than scanned.
+     */
+    private void assertLooksUp( String column )
+    {
+	String plan = plan( );
+	Assert.assertTrue( "No index lookup on " + column + " in:\n" + plan,
+			Pattern.compile( "/\\* PUBLIC\\.\\w+: " + column + " = " ).matcher( plan ).find( ) );
+    }
+
+    private String plan( )
+    {
+	Assert.assertEquals( "One statement per query", 1, CapturedStatements.STATEMENTS.size( ) );
+	String plan = explain( CapturedStatements.STATEMENTS.get( 0 ) ).toUpperCase( );
+	Assert.assertFalse( "Table scan in:\n" + plan, plan.contains( "TABLESCAN" ) );
+
+	return plan;
+    }
+
+    /**
+     * Plans the statement with all of its parameters set to null: H2 picks the index from the shape of the
+     * conditions, not from their values.
+     */
+    private String explain( String sql )
+    {
+	return jdbcTemplate.query( connection -> {
+	    PreparedStatement statement = connection.prepareStatement( "explain " + sql );
+	    for( int parameter = 1; parameter <= statement.getParameterMetaData( ).getParameterCount( ); parameter++ )
+		statement.setNull( parameter, Types.NULL );
+	    return statement;
+	}, ( ResultSet resultSet ) -> {
+	    resultSet.next( );
+	    return resultSet.getString( 1 );
+	} );
+    }
+
+    public static class CapturedStatements implements StatementInspector
+    {
+	static final List<String> STATEMENTS = new CopyOnWriteArrayList<>( );
+
+	@Override
+	public String inspect( String sql )
+	{
+	    STATEMENTS.add( sql );
+	    return sql;
+	}
+    }
+}
@@ -0,0 +1,140 @@
+package com.tenniscourts.audit;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentMatchers;
+import org.mockito.Mockito;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Stubber;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ParameterizedPreparedStatementSetter;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+public class AuditTrailWriterTest
+{
+    private JdbcTemplate jdbcTemplate;
+
+    private MeterRegistry meterRegistry;
+
+    private AuditTrailWriter auditTrailWriter;
+
+    private final List<Integer> batchSizes = Collections.synchronizedList( new ArrayList<>( ) );
+
+    @Before
+    public void setUp( )
+    {
+	jdbcTemplate = Mockito.mock( JdbcTemplate.class );
+	meterRegistry = new SimpleMeterRegistry( );
+	auditTrailWriter = new AuditTrailWriter( jdbcTemplate, meterRegistry );
+
+	onBatchUpdate( Mockito.doAnswer( this::recordBatchSize ) );
+    }
+
+    @After
+    public void tearDown( )
+    {
+	if( TransactionSynchronizationManager.isSynchronizationActive( ) )
+	    TransactionSynchronizationManager.clearSynchronization( );
+    }
+
+    @Test
+    public void queuedRecordsAreWrittenInBatches( ) throws Exception
+    {
+	for( int i = 0; i < 1_200; i++ )
+	    auditTrailWriter.record( auditRecord( i ) );
+
+	auditTrailWriter.start( );
+	auditTrailWriter.stop( );
+
+	Assert.assertEquals( Arrays.asList( 500, 500, 200 ), batchSizes );
+    }
+
+    @Test
+    public void recordsWaitForTheirTransactionToCommit( ) throws Exception
+    {
+	TransactionSynchronizationManager.initSynchronization( );
+	auditTrailWriter.record( auditRecord( 1 ) );
+	auditTrailWriter.record( auditRecord( 2 ) );
+	List<TransactionSynchronization> committed = TransactionSynchronizationManager.getSynchronizations( );
+	TransactionSynchronizationManager.clearSynchronization( );
+
+	TransactionSynchronizationManager.initSynchronization( );
+	auditTrailWriter.record( auditRecord( 3 ) );
+	List<TransactionSynchronization> rolledBack = TransactionSynchronizationManager.getSynchronizations( );
+	TransactionSynchronizationManager.clearSynchronization( );
+
+	auditTrailWriter.start( );
+	committed.forEach( TransactionSynchronization::afterCommit );
+	rolledBack.forEach( synchronization -> synchronization.afterCompletion(
+			TransactionSynchronization.STATUS_ROLLED_BACK ) );
+	auditTrailWriter.stop( );
+
+	Assert.assertEquals( 2, batchSizes.stream( ).mapToInt( Integer::intValue ).sum( ) );
+    }
+
+    @Test
+    public void aFullQueueDropsAndCountsInsteadOfBlocking( ) throws Exception
+    {
+	// Not started: nothing drains the queue
+	for( int i = 0; i < 10_005; i++ )
+	    auditTrailWriter.record( auditRecord( i ) );
+
+	Assert.assertEquals( 5.0, meterRegistry.counter( "tenniscourts.audit.dropped" ).count( ), 0.0 );
+    }
+
+    @Test
+    public void aFailedBatchDoesNotStopTheWriter( ) throws Exception
+    {
+	CountDownLatch failed = new CountDownLatch( 1 );
+	onBatchUpdate( Mockito.doAnswer( invocation -> {
+	    failed.countDown( );
+	    throw new IllegalStateException( "Database down" );
+	} ).doAnswer( this::recordBatchSize ) );
+
+	auditTrailWriter.start( );
+	auditTrailWriter.record( auditRecord( 1 ) );
+	Assert.assertTrue( failed.await( 5, TimeUnit.SECONDS ) );
+	auditTrailWriter.record( auditRecord( 2 ) );
+	auditTrailWriter.stop( );
+
+	Assert.assertEquals( Collections.singletonList( 1 ), batchSizes );
+    }
+
+    private void onBatchUpdate( Stubber stubber )
+    {
+	stubber.when( jdbcTemplate ).batchUpdate( ArgumentMatchers.anyString( ),
+			ArgumentMatchers.<Collection<AuditRecord>>any( ), ArgumentMatchers.anyInt( ),
+			ArgumentMatchers.<ParameterizedPreparedStatementSetter<AuditRecord>>any( ) );
+    }
+
+    /**
+     * The writer reuses its batch list, so its size is taken while it is written.
+     */
+    private int[][] recordBatchSize( InvocationOnMock invocation )
+    {
+	batchSizes.add( invocation.<Collection<?>>getArgument( 1 ).size( ) );
+
+	return new int[ 0 ][];
+    }
+
+    private static AuditRecord auditRecord( int id )
+    {
+	return AuditRecord.builder( ).entityName( "Reservation" ).entityId( String.valueOf( id ) )
+			.action( AuditAction.UPDATE ).userId( CustomAuditEntityListener.USER_SYSTEM_ID ).ipNumber( "192.0.2.1" )
+			.node( "192.0.2.2" ).dateTime( LocalDateTime.now( ) ).build( );
+    }
+}
@@ -0,0 +1,89 @@
+package com.tenniscourts.audit;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+public class ClientAddressFilterTest
+{
+    @Test
+    public void theClientAddressIsSeenWhileServingTheRequestOnly( ) throws Exception
+    {
+	AtomicReference<String> served = new AtomicReference<>( );
+
+	serve( "203.0.113.7", ( ) -> served.set( ClientAddressFilter.currentClientAddress( ) ) );
+
+	Assert.assertEquals( "203.0.113.7", served.get( ) );
+	Assert.assertNull( ClientAddressFilter.currentClientAddress( ) );
+    }
+
+    @Test
+    public void theClientAddressFollowsTheWorkToAnotherThread( ) throws Exception
+    {
+	ExecutorService executor = Executors.newSingleThreadExecutor( );
+	AtomicReference<String> propagated = new AtomicReference<>( );
+	AtomicReference<String> left = new AtomicReference<>( );
+
+	serve( "198.51.100.20", ( ) -> {
+	    try
+	    {
+		executor.submit( ClientAddressFilter.propagate(
+				( ) -> propagated.set( ClientAddressFilter.currentClientAddress( ) ) ) ).get( 5, TimeUnit.SECONDS );
+		executor.submit( ( ) -> left.set( ClientAddressFilter.currentClientAddress( ) ) ).get( 5, TimeUnit.SECONDS );
+	    }
+	    catch( Exception e )
+	    {
+		throw new IllegalStateException( e );
+	    }
+	} );
+	executor.shutdown( );
+
+	Assert.assertEquals( "198.51.100.20", propagated.get( ) );
+	Assert.assertNull( "The worker thread must not keep the address", left.get( ) );
+    }
+
+    @Test
+    public void aPropagatedRunnableRestoresTheAddressItRanUnder( ) throws Exception
+    {
+	AtomicReference<String> inner = new AtomicReference<>( );
+	AtomicReference<String> after = new AtomicReference<>( );
+
+	Runnable propagated = ClientAddressFilter.propagate( ( ) -> inner.set( ClientAddressFilter.currentClientAddress( ) ) );
+	serve( "192.0.2.1", ( ) -> {
+	    propagated.run( );
+	    after.set( ClientAddressFilter.currentClientAddress( ) );
+	} );
+
+	// Captured outside any request, so it runs without an address
+	Assert.assertNull( inner.get( ) );
+	Assert.assertEquals( "192.0.2.1", after.get( ) );
+    }
+
+    /**
+     * Runs the handler as the servlet of a request from the given address.
+     */
+    static void serve( String remoteAddress, Runnable handler ) throws Exception
+    {
+	MockHttpServletRequest request = new MockHttpServletRequest( );
+	request.setRemoteAddr( remoteAddress );
+
+	new ClientAddressFilter( ).doFilter( request, new MockHttpServletResponse( ), new MockFilterChain( new HttpServlet( )
+	{
+	    @Override
+	    protected void service( HttpServletRequest request, HttpServletResponse response )
+	    {
+		handler.run( );
+	    }
+	} ) );
+    }
+}
@@ -0,0 +1,28 @@
+package com.tenniscourts.audit;
+
+import com.tenniscourts.guests.Guest;
+import org.junit.Assert;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+import java.time.LocalDateTime;
+
+public class CustomAuditEntityListenerTest
+{
+    private final CustomAuditEntityListener customAuditEntityListener = new CustomAuditEntityListener(
+		    new NodeIdentity( ), Mockito.mock( AuditTrailWriter.class ) );
+
+    @Test
+    public void everyUpdateIsStampedWithTheAddressMakingIt( ) throws Exception
+    {
+	Guest guest = Guest.builder( ).name( "Stamped" ).build( );
+	ClientAddressFilterTest.serve( "203.0.113.1", ( ) -> customAuditEntityListener.prePersist( guest ) );
+	LocalDateTime created = guest.getDateUpdate( );
+
+	ClientAddressFilterTest.serve( "203.0.113.2", ( ) -> customAuditEntityListener.preUpdate( guest ) );
+
+	Assert.assertEquals( "203.0.113.1", guest.getIpNumberCreate( ) );
+	Assert.assertEquals( "203.0.113.2", guest.getIpNumberUpdate( ) );
+	Assert.assertFalse( guest.getDateUpdate( ).isBefore( created ) );
+    }
+}
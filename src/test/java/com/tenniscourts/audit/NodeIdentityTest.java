@@ -0,0 +1,35 @@
+package com.tenniscourts.audit;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.net.InetAddress;
+import java.util.concurrent.atomic.AtomicReference;
+
+public class NodeIdentityTest
+{
+    private final NodeIdentity nodeIdentity = new NodeIdentity( );
+
+    @Test
+    public void theHostAddressIsAnAddressOfThisNode( ) throws Exception
+    {
+	Assert.assertNotNull( nodeIdentity.getHostAddress( ) );
+	Assert.assertNotNull( InetAddress.getByName( nodeIdentity.getHostAddress( ) ) );
+    }
+
+    @Test
+    public void outsideOfARequestTheNodeIsTheAddress( )
+    {
+	Assert.assertEquals( nodeIdentity.getHostAddress( ), nodeIdentity.ipNumber( ) );
+    }
+
+    @Test
+    public void inARequestTheClientIsTheAddress( ) throws Exception
+    {
+	AtomicReference<String> ipNumber = new AtomicReference<>( );
+
+	ClientAddressFilterTest.serve( "203.0.113.9", ( ) -> ipNumber.set( nodeIdentity.ipNumber( ) ) );
+
+	Assert.assertEquals( "203.0.113.9", ipNumber.get( ) );
+    }
+}
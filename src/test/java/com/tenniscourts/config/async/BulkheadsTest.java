@@ -0,0 +1,112 @@
+package com.tenniscourts.config.async;
+
+import com.tenniscourts.audit.ClientAddressFilter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+public class BulkheadsTest
+{
+    private MeterRegistry meterRegistry;
+
+    private Bulkheads bulkheads;
+
+    private final CountDownLatch release = new CountDownLatch( 1 );
+
+    @Before
+    public void setUp( )
+    {
+	meterRegistry = new SimpleMeterRegistry( );
+	bulkheads = new Bulkheads( 5, 1, 1, 1, 1, 1, 1, meterRegistry );
+    }
+
+    @After
+    public void tearDown( )
+    {
+	release.countDown( );
+	bulkheads.shutdown( );
+    }
+
+    @Test
+    public void fullWriteBulkheadRejectsRightAwayWhileReadsGoOn( ) throws Exception
+    {
+	// One write running and one queued fill the write bulkhead
+	bulkheads.write( this::blocked );
+	bulkheads.write( this::blocked );
+
+	try
+	{
+	    bulkheads.write( this::blocked );
+	    Assert.fail( "The write bulkhead should be full" );
+	}
+	catch( TaskRejectedException e )
+	{
+	    Assert.assertEquals( 1, meterRegistry.counter( Bulkheads.REJECTED, "bulkhead", "write" ).count( ), 0 );
+	}
+
+	Assert.assertEquals( "read", bulkheads.read( ( ) -> "read" ).get( 5, TimeUnit.SECONDS ) );
+    }
+
+    @Test
+    public void slowStreamsDoNotHoldBackReads( ) throws Exception
+    {
+	bulkheads.getStreamExecutor( ).execute( this::blocked );
+	bulkheads.getStreamExecutor( ).execute( this::blocked );
+
+	try
+	{
+	    bulkheads.getStreamExecutor( ).execute( this::blocked );
+	    Assert.fail( "The stream bulkhead should be full" );
+	}
+	catch( TaskRejectedException e )
+	{
+	    Assert.assertEquals( 1, meterRegistry.counter( Bulkheads.REJECTED, "bulkhead", "stream" ).count( ), 0 );
+	}
+
+	Assert.assertEquals( "read", bulkheads.read( ( ) -> "read" ).get( 5, TimeUnit.SECONDS ) );
+    }
+
+    @Test( expected = IllegalStateException.class )
+    public void bulkheadsMustLeaveAConnectionFree( )
+    {
+	new Bulkheads( 4, 2, 1, 1, 1, 1, 1, meterRegistry );
+    }
+
+    @Test
+    public void clientAddressFollowsTheWorkToTheBulkhead( ) throws Exception
+    {
+	MockHttpServletRequest request = new MockHttpServletRequest( );
+	request.setRemoteAddr( "10.1.2.3" );
+	AtomicReference<CompletableFuture<String>> clientAddress = new AtomicReference<>( );
+
+	new ClientAddressFilter( ).doFilter( request, new MockHttpServletResponse( ),
+			( servletRequest, servletResponse ) -> clientAddress
+					.set( bulkheads.write( ClientAddressFilter::currentClientAddress ) ) );
+
+	Assert.assertEquals( "10.1.2.3", clientAddress.get( ).get( 5, TimeUnit.SECONDS ) );
+    }
+
+    private String blocked( )
+    {
+	try
+	{
+	    release.await( );
+	}
+	catch( InterruptedException e )
+	{
+	    Thread.currentThread( ).interrupt( );
+	}
+	return "written";
+    }
+}
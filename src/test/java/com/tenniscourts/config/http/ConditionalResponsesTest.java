@@ -0,0 +1,91 @@
+package com.tenniscourts.config.http;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class ConditionalResponsesTest
+{
+    private static final LocalDateTime UPDATED = LocalDateTime.of( 2030, 3, 4, 10, 15, 30, 250_000_000 );
+
+    private final ResourceVersion version = ResourceVersion.of( UPDATED, "guest", 7L );
+
+    private final AtomicInteger loads = new AtomicInteger( );
+
+    @Test
+    public void matchingTagIsNotModifiedWithoutLoadingTheBody( )
+    {
+	HttpHeaders requestHeaders = new HttpHeaders( );
+	requestHeaders.setIfNoneMatch( "\"other\", " + version.getETag( ) );
+
+	ResponseEntity<String> response = respond( requestHeaders );
+
+	Assert.assertEquals( HttpStatus.NOT_MODIFIED, response.getStatusCode( ) );
+	Assert.assertEquals( version.getETag( ), response.getHeaders( ).getETag( ) );
+	Assert.assertEquals( "no-cache", response.getHeaders( ).getCacheControl( ) );
+	Assert.assertNull( response.getBody( ) );
+	Assert.assertEquals( 0, loads.get( ) );
+    }
+
+    @Test
+    public void tagsAreComparedWeakly( )
+    {
+	HttpHeaders requestHeaders = new HttpHeaders( );
+	requestHeaders.setIfNoneMatch( version.getETag( ).substring( 2 ) );
+
+	Assert.assertEquals( HttpStatus.NOT_MODIFIED, respond( requestHeaders ).getStatusCode( ) );
+    }
+
+    @Test
+    public void staleTagWinsOverAFreshDate( )
+    {
+	HttpHeaders requestHeaders = new HttpHeaders( );
+	requestHeaders.setIfNoneMatch( ResourceVersion.of( UPDATED.minusDays( 1 ), "guest", 7L ).getETag( ) );
+	requestHeaders.setIfModifiedSince( UPDATED.plusDays( 1 ).atZone( ZoneId.systemDefault( ) ) );
+
+	ResponseEntity<String> response = respond( requestHeaders );
+
+	Assert.assertEquals( HttpStatus.OK, response.getStatusCode( ) );
+	Assert.assertEquals( "body", response.getBody( ) );
+	Assert.assertEquals( 1, loads.get( ) );
+    }
+
+    @Test
+    public void modifiedSinceComparesWholeSeconds( )
+    {
+	HttpHeaders requestHeaders = new HttpHeaders( );
+	requestHeaders.setIfModifiedSince( UPDATED.withNano( 0 ).atZone( ZoneId.systemDefault( ) ) );
+	Assert.assertEquals( HttpStatus.NOT_MODIFIED, respond( requestHeaders ).getStatusCode( ) );
+
+	requestHeaders.setIfModifiedSince( UPDATED.minusSeconds( 1 ).atZone( ZoneId.systemDefault( ) ) );
+	ResponseEntity<String> response = respond( requestHeaders );
+	Assert.assertEquals( HttpStatus.OK, response.getStatusCode( ) );
+	Assert.assertEquals( UPDATED.withNano( 0 ).atZone( ZoneId.systemDefault( ) ).toInstant( ).toEpochMilli( ),
+			response.getHeaders( ).getLastModified( ) );
+    }
+
+    @Test
+    public void rowsWithoutAuditDatesOnlyHaveATag( )
+    {
+	ResponseEntity<String> response = ConditionalResponses.of( new HttpHeaders( ),
+			ResourceVersion.of( null, "guest", 1L ), CacheControl.noCache( ), ( ) -> "body" );
+
+	Assert.assertEquals( "W/\"guest-1-0\"", response.getHeaders( ).getETag( ) );
+	Assert.assertEquals( -1, response.getHeaders( ).getLastModified( ) );
+    }
+
+    private ResponseEntity<String> respond( HttpHeaders requestHeaders )
+    {
+	return ConditionalResponses.of( requestHeaders, version, CacheControl.noCache( ), ( ) -> {
+	    loads.incrementAndGet( );
+	    return "body";
+	} );
+    }
+}
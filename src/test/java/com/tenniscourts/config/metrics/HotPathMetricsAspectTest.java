@@ -0,0 +1,96 @@
+package com.tenniscourts.config.metrics;
+
+import com.tenniscourts.guests.GuestDTO;
+import com.tenniscourts.guests.GuestJdbcRepository;
+import com.tenniscourts.guests.GuestRepository;
+import com.tenniscourts.guests.GuestService;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit4.SpringRunner;
+
+@SpringBootTest
+@RunWith( SpringRunner.class )
+public class HotPathMetricsAspectTest
+{
+    @Autowired
+    GuestService guestService;
+
+    @Autowired
+    GuestRepository guestRepository;
+
+    @Autowired
+    GuestJdbcRepository guestJdbcRepository;
+
+    @Autowired
+    MeterRegistry meterRegistry;
+
+    @Test
+    public void serviceCallsAreTimedByOutcome( )
+    {
+	long found    = count( HotPathMetricsAspect.SERVICE_TIMER, "GuestService", "search", "none" );
+	long rejected = count( HotPathMetricsAspect.SERVICE_TIMER, "GuestService", "search", "IllegalArgumentException" );
+
+	guestService.search( "fed", 0, 10 );
+	guestService.search( "fed", 0, 10 );
+	try
+	{
+	    guestService.search( "fed", 0, 0 );
+	    Assert.fail( "An empty page should be rejected" );
+	}
+	catch( IllegalArgumentException e )
+	{
+	    // Expected
+	}
+
+	Assert.assertEquals( found + 2, count( HotPathMetricsAspect.SERVICE_TIMER, "GuestService", "search", "none" ) );
+	Assert.assertEquals( rejected + 1,
+			count( HotPathMetricsAspect.SERVICE_TIMER, "GuestService", "search", "IllegalArgumentException" ) );
+    }
+
+    @Test
+    public void springDataRepositoriesAreTimedUnderTheirInterface( )
+    {
+	long before = count( HotPathMetricsAspect.REPOSITORY_TIMER, "GuestRepository", "findByName", "none" );
+
+	guestRepository.findByName( "Roger Federer" );
+
+	Assert.assertEquals( before + 1,
+			count( HotPathMetricsAspect.REPOSITORY_TIMER, "GuestRepository", "findByName", "none" ) );
+    }
+
+    @Test
+    public void jdbcRepositoriesAreTimed( )
+    {
+	long before = count( HotPathMetricsAspect.REPOSITORY_TIMER, "GuestJdbcRepository", "streamAll", "none" );
+
+	guestJdbcRepository.streamAll( guestDTO -> {
+	} );
+
+	Assert.assertEquals( before + 1,
+			count( HotPathMetricsAspect.REPOSITORY_TIMER, "GuestJdbcRepository", "streamAll", "none" ) );
+    }
+
+    @Test
+    public void aCallWithinTheServiceIsPartOfItsCaller( )
+    {
+	GuestDTO guestDTO = guestService.add( GuestDTO.builder( ).name( "Timed guest" ).build( ) );
+	long lookups = count( HotPathMetricsAspect.SERVICE_TIMER, "GuestService", "findById", "none" );
+
+	guestService.update( GuestDTO.builder( ).id( guestDTO.getId( ) ).name( "Timed guest, renamed" ).build( ) );
+
+	Assert.assertEquals( lookups, count( HotPathMetricsAspect.SERVICE_TIMER, "GuestService", "findById", "none" ) );
+    }
+
+    private long count( String name, String type, String method, String exception )
+    {
+	Timer timer = meterRegistry.find( name ).tag( "class", type ).tag( "method", method )
+			.tag( "exception", exception ).timer( );
+
+	return timer == null ? 0L : timer.count( );
+    }
+}
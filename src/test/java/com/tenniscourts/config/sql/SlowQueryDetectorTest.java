@@ -0,0 +1,152 @@
+package com.tenniscourts.config.sql;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.read.ListAppender;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.h2.jdbc.JdbcConnection;
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.slf4j.LoggerFactory;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+public class SlowQueryDetectorTest
+{
+    private MeterRegistry meterRegistry;
+
+    private SlowQueryDetector slowQueryDetector;
+
+    @Before
+    public void setUp( )
+    {
+	meterRegistry = new SimpleMeterRegistry( );
+	slowQueryDetector = new SlowQueryDetector( 0L, meterRegistry );
+    }
+
+    @Test
+    public void shapesIgnoreLiteralsListsAndLayout( )
+    {
+	Assert.assertEquals( "select * from guest g1_ where g1_.id in (?) and g1_.name = ? and g1_.score > ?",
+			SqlShapes.normalize( "SELECT *\n  FROM guest g1_ WHERE g1_.id IN (?, ?,?) AND g1_.name = 'O''Brien'"
+					+ " and g1_.score > -1.5" ) );
+    }
+
+    @Test
+    public void slowestShapesComeFirst( )
+    {
+	slowQueryDetector.record( "select 1 from fast", TimeUnit.MILLISECONDS.toNanos( 1L ), null );
+	slowQueryDetector.record( "select 1 from slow", TimeUnit.MILLISECONDS.toNanos( 50L ), null );
+	slowQueryDetector.record( "select 2 from slow", TimeUnit.MILLISECONDS.toNanos( 30L ), null );
+
+	List<SqlShapeStatsDTO> slowest = slowQueryDetector.slowest( 10 );
+
+	Assert.assertEquals( 2, slowest.size( ) );
+	Assert.assertEquals( "select ? from slow", slowest.get( 0 ).getSql( ) );
+	Assert.assertEquals( 2L, slowest.get( 0 ).getCount( ) );
+	Assert.assertEquals( 80.0, slowest.get( 0 ).getTotalMillis( ), 0.001 );
+	Assert.assertEquals( "select ? from fast", slowest.get( 1 ).getSql( ) );
+	Assert.assertEquals( 1, slowQueryDetector.slowest( 1 ).size( ) );
+	Assert.assertEquals( 2, meterRegistry.find( SlowQueryDetector.TIMER ).timers( ).size( ) );
+    }
+
+    @Test
+    public void shapesPastTheCapAreNotTimed( )
+    {
+	for( int table = 0; table <= SlowQueryDetector.MAX_SHAPES; table++ )
+	    slowQueryDetector.record( "select id from table_" + table, 1L, null );
+
+	Assert.assertEquals( SlowQueryDetector.MAX_SHAPES, meterRegistry.find( SlowQueryDetector.TIMER ).timers( ).size( ) );
+	for( Timer timer : meterRegistry.find( SlowQueryDetector.TIMER ).timers( ) )
+	    Assert.assertEquals( 0, timer.takeSnapshot( ).histogramCounts( ).length );
+    }
+
+    @Test
+    public void bindsAreOnlyLoggedAtDebugLevel( )
+    {
+	Logger logger = ( Logger ) LoggerFactory.getLogger( SlowQueryDetector.class );
+	Level level = logger.getLevel( );
+	ListAppender<ILoggingEvent> appender = new ListAppender<>( );
+	appender.start( );
+	logger.addAppender( appender );
+	try
+	{
+	    logger.setLevel( Level.WARN );
+	    slowQueryDetector.record( "select id from guest where name = ?", 1L, Collections.singletonList( "Roger" ) );
+	    logger.setLevel( Level.DEBUG );
+	    slowQueryDetector.record( "select id from guest where name = ?", 1L, Collections.singletonList( "Rafael" ) );
+	}
+	finally
+	{
+	    logger.detachAppender( appender );
+	    logger.setLevel( level );
+	}
+
+	Assert.assertEquals( 3, appender.list.size( ) );
+	for( ILoggingEvent event : appender.list )
+	{
+	    Assert.assertFalse( event.getFormattedMessage( ).contains( "Roger" ) );
+	    Assert.assertEquals( event.getFormattedMessage( ).contains( "Rafael" ), Level.DEBUG.equals( event.getLevel( ) ) );
+	}
+    }
+
+    @Test
+    public void proxiesTimePreparedPlainAndBatchedStatements( ) throws SQLException
+    {
+	JdbcDataSource h2 = new JdbcDataSource( );
+	h2.setURL( "jdbc:h2:mem:slow-query-detector;DB_CLOSE_DELAY=-1" );
+	DataSource dataSource = SqlTimingProxies.dataSource( h2, ( ) -> slowQueryDetector );
+
+	try( Connection connection = dataSource.getConnection( ) )
+	{
+	    try( Statement statement = connection.createStatement( ) )
+	    {
+		statement.execute( "create table court (id int primary key, name varchar(50))" );
+	    }
+
+	    try( PreparedStatement statement = connection.prepareStatement( "insert into court values (?, ?)" ) )
+	    {
+		for( int id = 1; id <= 3; id++ )
+		{
+		    statement.setInt( 1, id );
+		    statement.setString( 2, "Court " + id );
+		    statement.addBatch( );
+		}
+		Assert.assertArrayEquals( new int[] { 1, 1, 1 }, statement.executeBatch( ) );
+	    }
+
+	    for( List<Integer> ids : Arrays.asList( Collections.singletonList( 1 ), Arrays.asList( 2, 3 ) ) )
+	    {
+		String placeholders = String.join( ", ", Collections.nCopies( ids.size( ), "?" ) );
+		try( PreparedStatement statement = connection
+				.prepareStatement( "select name from court where id in (" + placeholders + ")" ) )
+		{
+		    for( int parameter = 0; parameter < ids.size( ); parameter++ )
+			statement.setInt( parameter + 1, ids.get( parameter ) );
+		    statement.executeQuery( ).close( );
+		}
+	    }
+
+	    Assert.assertTrue( connection.isWrapperFor( JdbcConnection.class ) );
+	}
+
+	List<SqlShapeStatsDTO> slowest = slowQueryDetector.slowest( 10 );
+	Assert.assertEquals( 3, slowest.size( ) );
+	Assert.assertEquals( 2L, slowest.stream( )
+			.filter( shape -> shape.getSql( ).equals( "select name from court where id in (?)" ) )
+			.findFirst( ).get( ).getCount( ) );
+    }
+}
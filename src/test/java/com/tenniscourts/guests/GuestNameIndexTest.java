@@ -0,0 +1,83 @@
+package com.tenniscourts.guests;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+public class GuestNameIndexTest
+{
+    private final GuestNameIndex guestNameIndex = new GuestNameIndex( null );
+
+    @Before
+    public void setUp( )
+    {
+	guestNameIndex.put( 1L, "Roger Federer" );
+	guestNameIndex.put( 2L, "Rafael Nadal" );
+	guestNameIndex.put( 3L, "Fed" );
+	guestNameIndex.put( 4L, "Federica Pellegrini" );
+	guestNameIndex.put( 5L, "Novak Đoković" );
+	guestNameIndex.put( 6L, "Félix Auger-Aliassime" );
+    }
+
+    @Test
+    public void wordPrefixesMatchRankedByHowCloseTheNameIs( )
+    {
+	Assert.assertEquals( Arrays.asList( 3L, 4L, 1L ), ids( "fed" ) );
+	Assert.assertEquals( Collections.singletonList( 1L ), ids( "ro fed" ) );
+	Assert.assertEquals( Arrays.asList( 2L, 1L ), ids( "r" ) );
+    }
+
+    @Test
+    public void accentsCaseAndPunctuationAreIgnored( )
+    {
+	Assert.assertEquals( Collections.singletonList( 6L ), ids( "FELIX auger" ) );
+	Assert.assertEquals( Collections.singletonList( 6L ), ids( "aliassime" ) );
+	Assert.assertEquals( Collections.singletonList( 5L ), ids( "novak đokovic" ) );
+    }
+
+    @Test
+    public void typosStillFindLongerQueries( )
+    {
+	Assert.assertEquals( Arrays.asList( 1L, 4L ), ids( "federr" ) );
+	Assert.assertEquals( Collections.singletonList( 2L ), ids( "rafael nadla" ) );
+	Assert.assertTrue( ids( "fex" ).isEmpty( ) );
+    }
+
+    @Test
+    public void updatesAndDeletesAreSearchable( )
+    {
+	guestNameIndex.put( 1L, "Pete Sampras" );
+	guestNameIndex.remove( 4L );
+
+	Assert.assertEquals( Collections.singletonList( 3L ), ids( "fed" ) );
+	Assert.assertEquals( Collections.singletonList( 1L ), ids( "samp" ) );
+    }
+
+    @Test
+    public void pagesSplitTheRankedMatches( )
+    {
+	GuestSearchPageDTO second = guestNameIndex.search( "fed", 1, 2 );
+
+	Assert.assertEquals( 3, second.getTotalMatches( ) );
+	Assert.assertEquals( Collections.singletonList( 1L ),
+			second.getContent( ).stream( ).map( GuestDTO::getId ).collect( Collectors.toList( ) ) );
+	Assert.assertTrue( guestNameIndex.search( "fed", 2, 2 ).getContent( ).isEmpty( ) );
+    }
+
+    @Test( expected = IllegalArgumentException.class )
+    public void searchNeedsLettersOrDigits( )
+    {
+	guestNameIndex.search( " - ", 0, 10 );
+    }
+
+    private List<Long> ids( String query )
+    {
+	return guestNameIndex.search( query, 0, 10 ).getContent( ).stream( ).map( GuestDTO::getId )
+			.collect( Collectors.toList( ) );
+    }
+}
@@ -0,0 +1,118 @@
+package com.tenniscourts.journal;
+
+import com.tenniscourts.guests.Guest;
+import com.tenniscourts.reservations.Reservation;
+import com.tenniscourts.reservations.ReservationStatus;
+import com.tenniscourts.schedules.Schedule;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+public class ReservationJournalTest
+{
+    private static final int SEGMENT_RECORDS = 16;
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder( );
+
+    @Test
+    public void replayRebuildsTheLatestStateAcrossSegmentsAndRestarts( ) throws Exception
+    {
+	String directory = temporaryFolder.getRoot( ).getPath( );
+
+	ReservationJournal journal = open( directory );
+	for( long id = 1; id <= 20; id++ )
+	    journal.append( reservation( id, id, ReservationStatus.READY_TO_PLAY, "10", null ) );
+	journal.append( reservation( 3L, 3L, ReservationStatus.CANCELLED, "2.50", "7.50" ) );
+	journal.close( );
+
+	// Reopening resumes after the last record, in the second segment
+	journal = open( directory );
+	journal.append( reservation( 4L, 4L, ReservationStatus.RESCHEDULED, "5", "5" ) );
+	journal.append( reservation( 21L, 40L, ReservationStatus.READY_TO_PLAY, "10", null ) );
+	journal.close( );
+
+	ReservationJournalReplay replay = ReservationJournalReplay.replay( temporaryFolder.getRoot( ).toPath( ) );
+
+	Assert.assertEquals( 2, JournalSegments.list( temporaryFolder.getRoot( ).toPath( ) ).size( ) );
+	Assert.assertEquals( 23, replay.getRecords( ) );
+	Assert.assertEquals( 23, replay.getLastSequence( ) );
+	Assert.assertEquals( 21, replay.getReservations( ).size( ) );
+	Assert.assertEquals( ReservationStatus.CANCELLED, replay.getReservations( ).get( 3L ).getStatus( ) );
+	Assert.assertEquals( 250, replay.getReservations( ).get( 3L ).getValueCents( ) );
+	Assert.assertEquals( 750, replay.getReservations( ).get( 3L ).getRefundCents( ) );
+	Assert.assertEquals( 19, replay.getActiveReservationBySchedule( ).size( ) );
+	Assert.assertFalse( replay.getActiveReservationBySchedule( ).containsKey( 3L ) );
+	Assert.assertEquals( Long.valueOf( 21L ), replay.getActiveReservationBySchedule( ).get( 40L ) );
+    }
+
+    @Test
+    public void concurrentAppendsGetDistinctContiguousSequences( ) throws Exception
+    {
+	ReservationJournal journal = open( temporaryFolder.getRoot( ).getPath( ) );
+	ExecutorService    executor = Executors.newFixedThreadPool( 8 );
+	List<Future<?>>    appends  = new ArrayList<>( );
+
+	for( long id = 1; id <= 400; id++ )
+	{
+	    long reservationId = id;
+	    appends.add( executor.submit( ( ) -> journal.append(
+			    reservation( reservationId, reservationId, ReservationStatus.READY_TO_PLAY, "10", null ) ) ) );
+	}
+	for( Future<?> append : appends )
+	    append.get( 30, TimeUnit.SECONDS );
+	executor.shutdown( );
+	journal.close( );
+
+	ReservationJournalReplay replay = ReservationJournalReplay.replay( temporaryFolder.getRoot( ).toPath( ) );
+
+	Assert.assertEquals( 400, replay.getRecords( ) );
+	Assert.assertEquals( 400, replay.getLastSequence( ) );
+	Assert.assertEquals( 400, replay.getActiveReservationBySchedule( ).size( ) );
+    }
+
+    @Test( expected = IllegalStateException.class )
+    public void aSecondWriterIsRejected( ) throws Exception
+    {
+	open( temporaryFolder.getRoot( ).getPath( ) );
+	open( temporaryFolder.getRoot( ).getPath( ) );
+    }
+
+    private static ReservationJournal open( String directory ) throws Exception
+    {
+	ReservationJournal journal = new ReservationJournal( directory, SEGMENT_RECORDS, true );
+	journal.open( );
+
+	return journal;
+    }
+
+    private static Reservation reservation( Long id, Long scheduleId, ReservationStatus status, String value,
+		    String refundValue )
+    {
+	Schedule schedule = new Schedule( );
+	schedule.setId( scheduleId );
+
+	Guest guest = Guest.builder( ).name( "Guest" ).build( );
+	guest.setId( 1L );
+
+	Reservation reservation = Reservation.builder( )
+			.schedule( schedule )
+			.guest( guest )
+			.reservationStatus( status )
+			.value( new BigDecimal( value ) )
+			.refundValue( refundValue == null ? null : new BigDecimal( refundValue ) )
+			.build( );
+	reservation.setId( id );
+
+	return reservation;
+    }
+}
@@ -0,0 +1,140 @@
+package com.tenniscourts.reservations;
+
+import com.tenniscourts.BookingFixtures;
+import com.tenniscourts.schedules.ScheduleDTO;
+import com.tenniscourts.tenniscourts.TennisCourt;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+
+@SpringBootTest
+@RunWith( SpringRunner.class )
+@Import( BookingFixtures.class )
+public class ReservationBatchBookingTest
+{
+    private static final Long UNKNOWN_SCHEDULE_ID = Long.MAX_VALUE;
+
+    @Autowired
+    BookingFixtures bookingFixtures;
+
+    @Autowired
+    ReservationService reservationService;
+
+    @Autowired
+    ReservationRepository reservationRepository;
+
+    private TennisCourt tennisCourt;
+
+    private LocalDateTime firstSlot;
+
+    private ScheduleDTO free;
+
+    private ScheduleDTO taken;
+
+    @Before
+    public void setUp( )
+    {
+	tennisCourt = bookingFixtures.newTennisCourt( "Batch court" );
+	firstSlot = bookingFixtures.newDay( );
+	free = bookingFixtures.newSchedule( tennisCourt.getId( ), firstSlot );
+	taken = bookingFixtures.newSchedule( tennisCourt.getId( ), firstSlot.plusHours( 1 ) );
+	bookingFixtures.book( "Early bird", taken.getId( ) );
+    }
+
+    @Test
+    public void allOrNothingBooksNoneWhenOneIsRejected( )
+    {
+	ReservationBatchResultDTO result = bookReservations( ReservationBatchMode.ALL_OR_NOTHING );
+
+	Assert.assertFalse( result.isCompleted( ) );
+	Map<Long, ReservationBatchItemDTO> items = byScheduleId( result );
+	Assert.assertEquals( ReservationBatchItemStatus.NOT_BOOKED, items.get( free.getId( ) ).getStatus( ) );
+	Assert.assertNull( items.get( free.getId( ) ).getReservationId( ) );
+	assertRejected( items.get( taken.getId( ) ), "Reservation already exists." );
+	assertRejected( items.get( UNKNOWN_SCHEDULE_ID ), "Schedule (#" + UNKNOWN_SCHEDULE_ID + ") was not found" );
+
+	Assert.assertFalse( reservationRepository.findIdByActiveScheduleId( free.getId( ) ).isPresent( ) );
+    }
+
+    @Test
+    public void bestEffortBooksTheSlotsThatAreFree( )
+    {
+	ReservationBatchResultDTO result = bookReservations( ReservationBatchMode.BEST_EFFORT );
+
+	Assert.assertFalse( result.isCompleted( ) );
+	Map<Long, ReservationBatchItemDTO> items = byScheduleId( result );
+	Assert.assertEquals( ReservationBatchItemStatus.BOOKED, items.get( free.getId( ) ).getStatus( ) );
+	assertRejected( items.get( taken.getId( ) ), "Reservation already exists." );
+	assertRejected( items.get( UNKNOWN_SCHEDULE_ID ), "Schedule (#" + UNKNOWN_SCHEDULE_ID + ") was not found" );
+
+	Assert.assertEquals( Optional.of( items.get( free.getId( ) ).getReservationId( ) ),
+			reservationRepository.findIdByActiveScheduleId( free.getId( ) ) );
+    }
+
+    @Test
+    public void aSlotListedTwiceIsBookedOnce( )
+    {
+	ReservationBatchResultDTO result = reservationService.bookReservations( CreateReservationBatchRequestDTO
+			.builder( ).guestId( bookingFixtures.newGuest( "Repeater" ).getId( ) )
+			.scheduleIds( Arrays.asList( free.getId( ), free.getId( ) ) ).build( ) );
+
+	Assert.assertTrue( result.isCompleted( ) );
+	Assert.assertEquals( 1, result.getItems( ).size( ) );
+    }
+
+    @Test
+    public void aBatchPastTheCapIsRejectedBeforeAnyLookup( )
+    {
+	List<Long> scheduleIds = LongStream.rangeClosed( 1, ReservationService.MAX_BATCH_ITEMS + 1 ).boxed( )
+			.collect( Collectors.toList( ) );
+
+	try
+	{
+	    // An unknown guest would be a 404: the cap is checked first
+	    reservationService.bookReservations( CreateReservationBatchRequestDTO.builder( ).guestId( Long.MAX_VALUE )
+			    .scheduleIds( scheduleIds ).build( ) );
+	    Assert.fail( "Booked " + scheduleIds.size( ) + " slots at once" );
+	}
+	catch( IllegalArgumentException e )
+	{
+	    Assert.assertEquals( "It's forbidden book more than " + ReservationService.MAX_BATCH_ITEMS
+			    + " slots at once", e.getMessage( ) );
+	}
+    }
+
+    private ReservationBatchResultDTO bookReservations( ReservationBatchMode mode )
+    {
+	return reservationService.bookReservations( CreateReservationBatchRequestDTO.builder( )
+			.guestId( bookingFixtures.newGuest( "Batcher" ).getId( ) )
+			.scheduleIds( Arrays.asList( free.getId( ), taken.getId( ), UNKNOWN_SCHEDULE_ID ) ).mode( mode )
+			.build( ) );
+    }
+
+    private static Map<Long, ReservationBatchItemDTO> byScheduleId( ReservationBatchResultDTO result )
+    {
+	Map<Long, ReservationBatchItemDTO> items = new HashMap<>( );
+	result.getItems( ).forEach( item -> items.put( item.getScheduleId( ), item ) );
+
+	return items;
+    }
+
+    private static void assertRejected( ReservationBatchItemDTO item, String message )
+    {
+	Assert.assertEquals( ReservationBatchItemStatus.REJECTED, item.getStatus( ) );
+	Assert.assertEquals( message, item.getMessage( ) );
+    }
+}
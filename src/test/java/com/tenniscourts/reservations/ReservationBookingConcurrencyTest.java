@@ -0,0 +1,118 @@
+package com.tenniscourts.reservations;
+
+import com.tenniscourts.exceptions.AlreadyExistsEntityException;
+import com.tenniscourts.guests.Guest;
+import com.tenniscourts.guests.GuestRepository;
+import com.tenniscourts.schedules.Schedule;
+import com.tenniscourts.schedules.ScheduleRepository;
+import com.tenniscourts.tenniscourts.TennisCourt;
+import com.tenniscourts.tenniscourts.TennisCourtRepository;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+@SpringBootTest
+@RunWith( SpringRunner.class )
+public class ReservationBookingConcurrencyTest
+{
+    private static final int CONTENDERS = 32;
+
+    @Autowired
+    ReservationService reservationService;
+
+    @Autowired
+    ReservationOccupancyIndex reservationOccupancyIndex;
+
+    @Autowired
+    ReservationRepository reservationRepository;
+
+    @Autowired
+    ScheduleRepository scheduleRepository;
+
+    @Autowired
+    TennisCourtRepository tennisCourtRepository;
+
+    @Autowired
+    GuestRepository guestRepository;
+
+    @Test
+    public void exactlyOneContenderBooksTheSlot( ) throws Exception
+    {
+	Schedule schedule = newSchedule( );
+	List<Guest> guests = new ArrayList<>( );
+	for( int i = 0; i < CONTENDERS; i++ )
+	    guests.add( guestRepository.save( Guest.builder( ).name( "Contender " + i ).build( ) ) );
+
+	ExecutorService executor = Executors.newFixedThreadPool( CONTENDERS );
+	CountDownLatch start = new CountDownLatch( 1 );
+	List<Future<Boolean>> attempts = new ArrayList<>( );
+	for( Guest guest : guests )
+	{
+	    attempts.add( executor.submit( ( ) -> {
+		start.await( );
+		try
+		{
+		    reservationService.bookReservation( CreateReservationRequestDTO.builder( )
+				    .guestId( guest.getId( ) ).scheduleId( schedule.getId( ) ).build( ) );
+		    return true;
+		}
+		catch( AlreadyExistsEntityException e )
+		{
+		    return false;
+		}
+	    } ) );
+	}
+	start.countDown( );
+
+	int winners = 0;
+	for( Future<Boolean> attempt : attempts )
+	    winners += attempt.get( 30, TimeUnit.SECONDS ) ? 1 : 0;
+	executor.shutdown( );
+
+	Assert.assertEquals( 1, winners );
+	Assert.assertEquals( 1, reservationRepository.findBySchedule_Id( schedule.getId( ) ).stream( )
+			.filter( reservation -> ReservationStatus.READY_TO_PLAY.equals( reservation.getReservationStatus( ) ) )
+			.count( ) );
+    }
+
+    @Test( expected = AlreadyExistsEntityException.class )
+    public void databaseRejectsBookingUnseenByTheOccupancyIndex( )
+    {
+	Schedule schedule = newSchedule( );
+	Guest first = guestRepository.save( Guest.builder( ).name( "First" ).build( ) );
+	Guest second = guestRepository.save( Guest.builder( ).name( "Second" ).build( ) );
+
+	ReservationDTO booked = reservationService.bookReservation( CreateReservationRequestDTO.builder( )
+			.guestId( first.getId( ) ).scheduleId( schedule.getId( ) ).build( ) );
+
+	// Simulates a node whose index has not seen the booking yet
+	reservationOccupancyIndex.release( schedule.getId( ), booked.getId( ) );
+
+	reservationService.bookReservation( CreateReservationRequestDTO.builder( )
+			.guestId( second.getId( ) ).scheduleId( schedule.getId( ) ).build( ) );
+    }
+
+    private Schedule newSchedule( )
+    {
+	TennisCourt tennisCourt = new TennisCourt( );
+	tennisCourt.setName( "Contended court" );
+	tennisCourt = tennisCourtRepository.save( tennisCourt );
+
+	LocalDateTime startDateTime = LocalDateTime.now( ).plusDays( 10 ).withNano( 0 );
+
+	return scheduleRepository.save( Schedule.builder( ).tennisCourt( tennisCourt ).startDateTime( startDateTime )
+			.endDateTime( startDateTime.plusHours( 1L ) ).build( ) );
+    }
+}
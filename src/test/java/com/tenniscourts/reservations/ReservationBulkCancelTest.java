@@ -0,0 +1,157 @@
+package com.tenniscourts.reservations;
+
+import com.tenniscourts.BookingFixtures;
+import com.tenniscourts.audit.CustomAuditEntityListener;
+import com.tenniscourts.tenniscourts.TennisCourt;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+@SpringBootTest
+@RunWith( SpringRunner.class )
+@Import( BookingFixtures.class )
+public class ReservationBulkCancelTest
+{
+    private static final int RESERVATIONS = 20;
+
+    private static final int CANCELLERS = 4;
+
+    @Autowired
+    BookingFixtures bookingFixtures;
+
+    @Autowired
+    ReservationService reservationService;
+
+    @Autowired
+    ReservationOccupancyIndex reservationOccupancyIndex;
+
+    @Autowired
+    ReservationRepository reservationRepository;
+
+    @Autowired
+    WaitlistEntryRepository waitlistEntryRepository;
+
+    private TennisCourt tennisCourt;
+
+    private LocalDateTime day;
+
+    private List<ReservationDTO> reservations;
+
+    @Before
+    public void setUp( )
+    {
+	tennisCourt = bookingFixtures.newTennisCourt( "Bulk cancel court" );
+	day = bookingFixtures.newDay( );
+
+	reservations = new ArrayList<>( );
+	for( int hour = 0; hour < RESERVATIONS; hour++ )
+	    reservations.add( bookingFixtures.book( "Rained out " + hour,
+			    bookingFixtures.newSchedule( tennisCourt.getId( ), day.withHour( hour ) ).getId( ) ) );
+    }
+
+    @Test
+    public void everyReservationOfTheRangeIsCancelledAndStamped( )
+    {
+	LocalDateTime before = LocalDateTime.now( );
+
+	CancelReservationsResultDTO result = reservationService.cancelReservations( request( ) );
+
+	Assert.assertEquals( RESERVATIONS, result.getCancelled( ) );
+	BigDecimal refundValue = BigDecimal.ZERO;
+	for( ReservationDTO reservationDTO : reservations )
+	{
+	    Reservation reservation = reservationRepository.findById( reservationDTO.getId( ) ).get( );
+	    Assert.assertEquals( ReservationStatus.CANCELLED, reservation.getReservationStatus( ) );
+	    Assert.assertFalse( reservation.getDateUpdate( ).isBefore( before ) );
+	    Assert.assertEquals( CustomAuditEntityListener.USER_SYSTEM_ID, reservation.getUserUpdate( ) );
+	    Assert.assertNotNull( reservation.getIpNumberUpdate( ) );
+	    Assert.assertFalse( reservationOccupancyIndex.isOccupied( reservation.getSchedule( ).getId( ) ) );
+
+	    refundValue = refundValue.add( reservation.getRefundValue( ) );
+	}
+	Assert.assertEquals( 0, refundValue.compareTo( result.getRefundValue( ) ) );
+    }
+
+    @Test
+    public void guestsWaitingForTheCancelledSlotsAreNotPromoted( )
+    {
+	Long scheduleId = reservationRepository.findById( reservations.get( 0 ).getId( ) ).get( ).getSchedule( ).getId( );
+	WaitlistEntryDTO waiting = reservationService.joinWaitlist( bookingFixtures.request( "Waiting", scheduleId ) );
+
+	reservationService.cancelReservations( request( ) );
+
+	WaitlistEntry waitlistEntry = waitlistEntryRepository.findById( waiting.getId( ) ).get( );
+	Assert.assertEquals( WaitlistStatus.EXPIRED, waitlistEntry.getWaitlistStatus( ) );
+	Assert.assertNull( waitlistEntry.getWaitingScheduleId( ) );
+	Assert.assertFalse( reservationOccupancyIndex.isOccupied( scheduleId ) );
+    }
+
+    @Test
+    public void reservationsCancelledMeanwhileAreLeftToTheirCanceller( ) throws Exception
+    {
+	ExecutorService executor = Executors.newFixedThreadPool( CANCELLERS + 1 );
+	CountDownLatch start = new CountDownLatch( 1 );
+
+	Future<CancelReservationsResultDTO> bulk = executor.submit( ( ) -> {
+	    start.await( );
+	    return reservationService.cancelReservations( request( ) );
+	} );
+	List<Future<BigDecimal>> singles = new ArrayList<>( );
+	for( ReservationDTO reservation : reservations )
+	    singles.add( executor.submit( ( ) -> {
+		start.await( );
+		try
+		{
+		    return reservationService.cancelReservation( reservation.getId( ) ).getRefundValue( );
+		}
+		catch( RuntimeException e )
+		{
+		    // Already cancelled by the bulk
+		    return null;
+		}
+	    } ) );
+	start.countDown( );
+
+	CancelReservationsResultDTO result = bulk.get( 30, TimeUnit.SECONDS );
+	int cancelledOneByOne = 0;
+	BigDecimal refundValue = result.getRefundValue( );
+	for( Future<BigDecimal> single : singles )
+	{
+	    BigDecimal refund = single.get( 30, TimeUnit.SECONDS );
+	    if( refund != null )
+	    {
+		cancelledOneByOne++;
+		refundValue = refundValue.add( refund );
+	    }
+	}
+	executor.shutdown( );
+
+	// Each reservation is counted and refunded by whichever cancellation won it, never by both
+	Assert.assertEquals( RESERVATIONS, result.getCancelled( ) + cancelledOneByOne );
+	BigDecimal refunded = BigDecimal.ZERO;
+	for( ReservationDTO reservation : reservations )
+	    refunded = refunded.add( reservationRepository.findById( reservation.getId( ) ).get( ).getRefundValue( ) );
+	Assert.assertEquals( 0, refunded.compareTo( refundValue ) );
+    }
+
+    private CancelReservationsRequestDTO request( )
+    {
+	return CancelReservationsRequestDTO.builder( ).tennisCourtId( tennisCourt.getId( ) ).startDateTime( day )
+			.endDateTime( day.plusDays( 1 ) ).build( );
+    }
+}
@@ -0,0 +1,57 @@
+package com.tenniscourts.reservations;
+
+import com.tenniscourts.BookingFixtures;
+import com.tenniscourts.config.metrics.BookingMetrics;
+import com.tenniscourts.journal.ReservationJournal;
+import com.tenniscourts.schedules.ScheduleDTO;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentMatchers;
+import org.mockito.Mockito;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.junit4.SpringRunner;
+
+@SpringBootTest
+@RunWith( SpringRunner.class )
+@Import( BookingFixtures.class )
+public class ReservationJournalFailureTest
+{
+    @MockBean
+    ReservationJournal reservationJournal;
+
+    @Autowired
+    BookingFixtures bookingFixtures;
+
+    @Autowired
+    ReservationService reservationService;
+
+    @Autowired
+    ReservationOccupancyIndex reservationOccupancyIndex;
+
+    @Autowired
+    MeterRegistry meterRegistry;
+
+    @Test
+    public void aJournalFailureDoesNotFailTheCommittedTransition( )
+    {
+	Mockito.doThrow( new IllegalStateException( "Journal unavailable" ) ).when( reservationJournal )
+			.append( ArgumentMatchers.<Reservation>any( ) );
+	double failures = meterRegistry.counter( BookingMetrics.JOURNAL_FAILURES ).count( );
+
+	ScheduleDTO schedule = bookingFixtures.newSchedule( bookingFixtures.newTennisCourt( "Journal court" ).getId( ),
+			bookingFixtures.newDay( ).withHour( 10 ) );
+	ReservationDTO reservation = bookingFixtures.book( "Journaled", schedule.getId( ) );
+
+	Assert.assertTrue( reservationOccupancyIndex.isOccupied( schedule.getId( ) ) );
+
+	reservationService.cancelReservation( reservation.getId( ) );
+
+	Assert.assertFalse( reservationOccupancyIndex.isOccupied( schedule.getId( ) ) );
+	Assert.assertEquals( failures + 2, meterRegistry.counter( BookingMetrics.JOURNAL_FAILURES ).count( ), 0 );
+    }
+}
@@ -0,0 +1,82 @@
+package com.tenniscourts.reservations;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.junit.MockitoJUnitRunner;
+
+import java.util.Arrays;
+import java.util.Optional;
+
+@RunWith( MockitoJUnitRunner.class )
+public class ReservationOccupancyIndexTest
+{
+    @Mock
+    ReservationRepository reservationRepository;
+
+    @InjectMocks
+    ReservationOccupancyIndex reservationOccupancyIndex;
+
+    @Test
+    public void warmUpIndexesTheReservationsReadyToPlay( )
+    {
+	Mockito.when( reservationRepository.findScheduleIdAndIdByReservationStatus( ReservationStatus.READY_TO_PLAY ) )
+			.thenReturn( Arrays.asList( new Object[] { 1L, 10L }, new Object[] { 2L, 20L } ) );
+	Mockito.when( reservationRepository.findIdByActiveScheduleId( 1L ) ).thenReturn( Optional.of( 10L ) );
+
+	reservationOccupancyIndex.warmUp( );
+
+	Assert.assertTrue( reservationOccupancyIndex.isOccupied( 1L ) );
+	Assert.assertFalse( reservationOccupancyIndex.isOccupied( 3L ) );
+    }
+
+    @Test
+    public void aMissNeverReadsTheDatabase( )
+    {
+	Assert.assertFalse( reservationOccupancyIndex.isOccupied( 1L ) );
+
+	Mockito.verifyZeroInteractions( reservationRepository );
+    }
+
+    @Test
+    public void releaseOnlyForgetsTheReservationItWasGiven( )
+    {
+	Mockito.when( reservationRepository.findIdByActiveScheduleId( 1L ) ).thenReturn( Optional.of( 10L ) );
+	reservationOccupancyIndex.occupy( 1L, 10L );
+
+	// A late release of an older reservation of the slot
+	reservationOccupancyIndex.release( 1L, 9L );
+	Assert.assertTrue( reservationOccupancyIndex.isOccupied( 1L ) );
+
+	reservationOccupancyIndex.release( 1L, 10L );
+	Assert.assertFalse( reservationOccupancyIndex.isOccupied( 1L ) );
+    }
+
+    @Test
+    public void aHitReleasedOnAnotherNodeIsCleared( )
+    {
+	Mockito.when( reservationRepository.findIdByActiveScheduleId( 1L ) ).thenReturn( Optional.empty( ) );
+	reservationOccupancyIndex.occupy( 1L, 10L );
+
+	Assert.assertFalse( reservationOccupancyIndex.isOccupied( 1L ) );
+	Assert.assertFalse( reservationOccupancyIndex.isOccupied( 1L ) );
+
+	// Confirmed once, then a plain miss
+	Mockito.verify( reservationRepository, Mockito.times( 1 ) ).findIdByActiveScheduleId( 1L );
+    }
+
+    @Test
+    public void refreshClearsAStaleEntryAndPicksUpANewOne( )
+    {
+	reservationOccupancyIndex.occupy( 1L, 10L );
+	Mockito.when( reservationRepository.findIdByActiveScheduleId( 1L ) ).thenReturn( Optional.empty( ) );
+	Assert.assertFalse( reservationOccupancyIndex.refresh( 1L ) );
+
+	Mockito.when( reservationRepository.findIdByActiveScheduleId( 2L ) ).thenReturn( Optional.of( 20L ) );
+	Assert.assertTrue( reservationOccupancyIndex.refresh( 2L ) );
+	Assert.assertTrue( reservationOccupancyIndex.isOccupied( 2L ) );
+    }
+}
@@ -0,0 +1,194 @@
+package com.tenniscourts.reservations;
+
+import com.tenniscourts.BookingFixtures;
+import com.tenniscourts.exceptions.AlreadyExistsEntityException;
+import com.tenniscourts.schedules.ScheduleDTO;
+import com.tenniscourts.tenniscourts.TennisCourt;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import javax.persistence.EntityManagerFactory;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+@SpringBootTest
+@RunWith( SpringRunner.class )
+@Import( BookingFixtures.class )
+public class ReservationRescheduleConcurrencyTest
+{
+    private static final int CONTENDERS = 16;
+
+    @Autowired
+    BookingFixtures bookingFixtures;
+
+    @Autowired
+    ReservationService reservationService;
+
+    @Autowired
+    ReservationOccupancyIndex reservationOccupancyIndex;
+
+    @Autowired
+    ReservationRepository reservationRepository;
+
+    @Autowired
+    EntityManagerFactory entityManagerFactory;
+
+    private TennisCourt tennisCourt;
+
+    private LocalDateTime firstSlot;
+
+    @Before
+    public void setUp( )
+    {
+	tennisCourt = bookingFixtures.newTennisCourt( "Reschedule court" );
+	firstSlot = bookingFixtures.newDay( );
+    }
+
+    @Test
+    public void exactlyOneRescheduleClaimsTheTargetSlot( ) throws Exception
+    {
+	ScheduleDTO target = newSchedule( 0 );
+	List<ReservationDTO> reservations = new ArrayList<>( );
+	for( int i = 1; i <= CONTENDERS; i++ )
+	    reservations.add( bookingFixtures.book( "Contender " + i, newSchedule( i ).getId( ) ) );
+
+	List<Callable<Boolean>> attempts = new ArrayList<>( );
+	for( ReservationDTO reservation : reservations )
+	    attempts.add( ( ) -> {
+		try
+		{
+		    reservationService.rescheduleReservation( reservation.getId( ), target.getId( ) );
+		    return true;
+		}
+		catch( AlreadyExistsEntityException e )
+		{
+		    return false;
+		}
+	    } );
+
+	Assert.assertEquals( 1, race( attempts ) );
+	Assert.assertEquals( 1, activeReservations( target ) );
+
+	// The losers keep their original slot untouched
+	int moved = 0;
+	for( ReservationDTO reservation : reservations )
+	{
+	    Reservation previous = reservationRepository.findById( reservation.getId( ) ).get( );
+	    if( ReservationStatus.RESCHEDULED.equals( previous.getReservationStatus( ) ) )
+	    {
+		moved++;
+		Assert.assertFalse( reservationOccupancyIndex.isOccupied( previous.getSchedule( ).getId( ) ) );
+	    }
+	    else
+	    {
+		Assert.assertEquals( ReservationStatus.READY_TO_PLAY, previous.getReservationStatus( ) );
+		Assert.assertEquals( 0, reservation.getValue( ).compareTo( previous.getValue( ) ) );
+		Assert.assertNull( previous.getRefundValue( ) );
+		Assert.assertTrue( reservationOccupancyIndex.isOccupied( previous.getSchedule( ).getId( ) ) );
+	    }
+	}
+	Assert.assertEquals( 1, moved );
+    }
+
+    @Test
+    public void concurrentReschedulesMoveTheReservationOnce( ) throws Exception
+    {
+	ReservationDTO reservation = bookingFixtures.book( "Indecisive", newSchedule( 0 ).getId( ) );
+	List<ScheduleDTO> targets = new ArrayList<>( );
+	for( int i = 1; i <= CONTENDERS; i++ )
+	    targets.add( newSchedule( i ) );
+
+	List<Callable<Boolean>> attempts = new ArrayList<>( );
+	for( ScheduleDTO target : targets )
+	    attempts.add( ( ) -> {
+		try
+		{
+		    reservationService.rescheduleReservation( reservation.getId( ), target.getId( ) );
+		    return true;
+		}
+		catch( IllegalArgumentException e )
+		{
+		    return false;
+		}
+	    } );
+
+	Assert.assertEquals( 1, race( attempts ) );
+	Assert.assertEquals( 1, targets.stream( ).mapToLong( this::activeReservations ).sum( ) );
+	Assert.assertEquals( 1, targets.stream( ).filter( target -> reservationOccupancyIndex.isOccupied( target.getId( ) ) )
+			.count( ) );
+    }
+
+    @Test
+    public void rescheduleRunsSevenStatements( )
+    {
+	ReservationDTO reservation = bookingFixtures.book( "Counted", newSchedule( 0 ).getId( ) );
+	ScheduleDTO target = newSchedule( 1 );
+	Statistics statistics = entityManagerFactory.unwrap( SessionFactory.class ).getStatistics( );
+
+	statistics.clear( );
+	statistics.setStatisticsEnabled( true );
+	ReservationDTO rescheduled;
+	try
+	{
+	    rescheduled = reservationService.rescheduleReservation( reservation.getId( ), target.getId( ) );
+	}
+	finally
+	{
+	    statistics.setStatisticsEnabled( false );
+	}
+
+	// Load the previous reservation and the target slot, insert the new one, update the previous one, one update of
+	// the slot view for each slot, and look for a guest waiting for the previous slot
+	Assert.assertEquals( 7, statistics.getPrepareStatementCount( ) );
+	Assert.assertEquals( target.getId( ), rescheduled.getSchedule( ).getId( ) );
+	Assert.assertEquals( ReservationStatus.RESCHEDULED.name( ),
+			rescheduled.getPreviousReservation( ).getReservationStatus( ) );
+    }
+
+    private int race( List<Callable<Boolean>> attempts ) throws Exception
+    {
+	ExecutorService executor = Executors.newFixedThreadPool( attempts.size( ) );
+	CountDownLatch start = new CountDownLatch( 1 );
+	List<Future<Boolean>> results = new ArrayList<>( );
+	for( Callable<Boolean> attempt : attempts )
+	    results.add( executor.submit( ( ) -> {
+		start.await( );
+		return attempt.call( );
+	    } ) );
+	start.countDown( );
+
+	int winners = 0;
+	for( Future<Boolean> result : results )
+	    winners += result.get( 30, TimeUnit.SECONDS ) ? 1 : 0;
+	executor.shutdown( );
+
+	return winners;
+    }
+
+    private long activeReservations( ScheduleDTO schedule )
+    {
+	return reservationRepository.findBySchedule_Id( schedule.getId( ) ).stream( )
+			.filter( reservation -> ReservationStatus.READY_TO_PLAY.equals( reservation.getReservationStatus( ) ) )
+			.count( );
+    }
+
+    private ScheduleDTO newSchedule( int hour )
+    {
+	return bookingFixtures.newSchedule( tennisCourt.getId( ), firstSlot.plusHours( hour ) );
+    }
+}
@@ -2,17 +2,22 @@ package com.tenniscourts.reservations;
 
 import com.tenniscourts.schedules.Schedule;
 import org.junit.Assert;
+import org.junit.Before;
 import org.junit.FixMethodOrder;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.junit.runners.MethodSorters;
 import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Mockito;
 import org.mockito.junit.MockitoJUnitRunner;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.test.context.ContextConfiguration;
 
 import java.math.BigDecimal;
+import java.time.Clock;
 import java.time.LocalDateTime;
+import java.time.ZoneOffset;
 
 @FixMethodOrder( MethodSorters.NAME_ASCENDING )
 @SpringBootTest
@@ -21,15 +26,27 @@ import java.time.LocalDateTime;
 public class ReservationServiceTest
 {
 
+    private static final LocalDateTime NOW = LocalDateTime.of( 2030, 6, 1, 10, 0 );
+
+    @Mock
+    Clock clock;
+
     @InjectMocks
     ReservationService reservationService;
 
+    @Before
+    public void setUp( )
+    {
+	Mockito.when( clock.instant( ) ).thenReturn( NOW.toInstant( ZoneOffset.UTC ) );
+	Mockito.when( clock.getZone( ) ).thenReturn( ZoneOffset.UTC );
+    }
+
     @Test
     public void getRefundValueFullRefund( )
     {
 	Schedule schedule = new Schedule( );
 
-	LocalDateTime startDateTime = LocalDateTime.now( ).plusDays( 2 );
+	LocalDateTime startDateTime = NOW.plusDays( 2 );
 
 	schedule.setStartDateTime( startDateTime );
 
@@ -37,4 +54,24 @@ public class ReservationServiceTest
 					Reservation.builder( ).schedule( schedule ).value( new BigDecimal( 10L ) ).build( ) ),
 			new BigDecimal( 10 ) );
     }
-}
\ No newline at end of file
+
+    @Test
+    public void getRefundValueFollowsTheTierOfTheWholeHoursAhead( )
+    {
+	assertRefundValue( "7.5", NOW.plusHours( 23 ).plusMinutes( 59 ) );
+	assertRefundValue( "5", NOW.plusHours( 2 ) );
+	assertRefundValue( "2.5", NOW.plusMinutes( 119 ) );
+	assertRefundValue( "0", NOW.minusHours( 1 ) );
+    }
+
+    private void assertRefundValue( String expected, LocalDateTime startDateTime )
+    {
+	Schedule schedule = new Schedule( );
+	schedule.setStartDateTime( startDateTime );
+
+	BigDecimal refundValue = reservationService.getRefundValue(
+			Reservation.builder( ).schedule( schedule ).value( new BigDecimal( 10L ) ).build( ) );
+
+	Assert.assertEquals( startDateTime.toString( ), 0, new BigDecimal( expected ).compareTo( refundValue ) );
+    }
+}
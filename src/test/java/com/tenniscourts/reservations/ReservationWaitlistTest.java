@@ -0,0 +1,258 @@
+package com.tenniscourts.reservations;
+
+import com.tenniscourts.BookingFixtures;
+import com.tenniscourts.exceptions.AlreadyExistsEntityException;
+import com.tenniscourts.schedules.Schedule;
+import com.tenniscourts.schedules.ScheduleDTO;
+import com.tenniscourts.schedules.ScheduleRepository;
+import com.tenniscourts.tenniscourts.TennisCourt;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+@SpringBootTest
+@RunWith( SpringRunner.class )
+@Import( BookingFixtures.class )
+public class ReservationWaitlistTest
+{
+    private static final int ROUNDS = 20;
+
+    @Autowired
+    BookingFixtures bookingFixtures;
+
+    @Autowired
+    ReservationService reservationService;
+
+    @Autowired
+    ReservationOccupancyIndex reservationOccupancyIndex;
+
+    @Autowired
+    ReservationRepository reservationRepository;
+
+    @Autowired
+    ScheduleRepository scheduleRepository;
+
+    private TennisCourt tennisCourt;
+
+    private LocalDateTime firstSlot;
+
+    @Before
+    public void setUp( )
+    {
+	tennisCourt = bookingFixtures.newTennisCourt( "Waitlist court" );
+	firstSlot = bookingFixtures.newDay( );
+    }
+
+    @Test
+    public void cancellationPromotesTheGuestWaitingLongest( )
+    {
+	ScheduleDTO schedule = newSchedule( 0 );
+	ReservationDTO reservation = bookingFixtures.book( "Holder", schedule.getId( ) );
+	WaitlistEntryDTO first = reservationService.joinWaitlist( bookingFixtures.request( "First", schedule.getId( ) ) );
+	WaitlistEntryDTO second = reservationService.joinWaitlist( bookingFixtures.request( "Second", schedule.getId( ) ) );
+
+	Assert.assertEquals( Long.valueOf( 1L ), first.getPosition( ) );
+	Assert.assertEquals( Long.valueOf( 2L ), second.getPosition( ) );
+
+	reservationService.cancelReservation( reservation.getId( ) );
+
+	Reservation promoted = assertPromoted( first );
+	Assert.assertEquals( first.getGuestId( ), promoted.getGuest( ).getId( ) );
+	Assert.assertEquals( Long.valueOf( 1L ), reservationService.findWaitlistEntry( second.getId( ) ).getPosition( ) );
+    }
+
+    @Test
+    public void rescheduleFreesThePreviousSlotForTheWaitlist( )
+    {
+	ScheduleDTO schedule = newSchedule( 0 );
+	ReservationDTO reservation = bookingFixtures.book( "Mover", schedule.getId( ) );
+	WaitlistEntryDTO waiting = reservationService.joinWaitlist( bookingFixtures.request( "Patient", schedule.getId( ) ) );
+
+	reservationService.rescheduleReservation( reservation.getId( ), newSchedule( 1 ).getId( ) );
+
+	Assert.assertEquals( schedule.getId( ), assertPromoted( waiting ).getSchedule( ).getId( ) );
+    }
+
+    @Test
+    public void joiningTheWaitlistOfAFreeSlotBooksIt( )
+    {
+	assertPromoted( reservationService.joinWaitlist( bookingFixtures.request( "Early", newSchedule( 0 ).getId( ) ) ) );
+    }
+
+    @Test
+    public void leftGuestsAreSkipped( )
+    {
+	ScheduleDTO schedule = newSchedule( 0 );
+	ReservationDTO reservation = bookingFixtures.book( "Holder", schedule.getId( ) );
+	WaitlistEntryDTO left = reservationService.joinWaitlist( bookingFixtures.request( "Impatient", schedule.getId( ) ) );
+	WaitlistEntryDTO waiting = reservationService.joinWaitlist( bookingFixtures.request( "Patient", schedule.getId( ) ) );
+
+	Assert.assertEquals( WaitlistStatus.LEFT.name( ),
+			reservationService.leaveWaitlist( left.getId( ) ).getWaitlistStatus( ) );
+	reservationService.cancelReservation( reservation.getId( ) );
+
+	assertPromoted( waiting );
+	Assert.assertNull( reservationService.findWaitlistEntry( left.getId( ) ).getReservationId( ) );
+    }
+
+    @Test
+    public void aGuestWaitsOnceAndNeverForItsOwnSlot( )
+    {
+	ScheduleDTO schedule = newSchedule( 0 );
+	CreateReservationRequestDTO holder = bookingFixtures.request( "Holder", schedule.getId( ) );
+	reservationService.bookReservation( holder );
+	CreateReservationRequestDTO waiting = bookingFixtures.request( "Eager", schedule.getId( ) );
+	reservationService.joinWaitlist( waiting );
+
+	try
+	{
+	    reservationService.joinWaitlist( waiting );
+	    Assert.fail( "Joined twice" );
+	}
+	catch( AlreadyExistsEntityException e )
+	{
+	    // Expected
+	}
+
+	try
+	{
+	    reservationService.joinWaitlist( holder );
+	    Assert.fail( "Waiting for its own slot" );
+	}
+	catch( IllegalArgumentException e )
+	{
+	    // Expected
+	}
+    }
+
+    @Test
+    public void aGuestJoiningDuringACancellationIsPromoted( ) throws Exception
+    {
+	ExecutorService executor = Executors.newFixedThreadPool( 2 );
+	for( int round = 0; round < ROUNDS; round++ )
+	{
+	    ScheduleDTO schedule = newSchedule( round );
+	    ReservationDTO reservation = bookingFixtures.book( "Holder", schedule.getId( ) );
+	    CreateReservationRequestDTO waiting = bookingFixtures.request( "Racer", schedule.getId( ) );
+
+	    CountDownLatch start = new CountDownLatch( 1 );
+	    Future<?> cancellation = executor.submit( ( ) -> {
+		start.await( );
+		return reservationService.cancelReservation( reservation.getId( ) );
+	    } );
+	    Future<WaitlistEntryDTO> join = executor.submit( ( ) -> {
+		start.await( );
+		return reservationService.joinWaitlist( waiting );
+	    } );
+	    start.countDown( );
+	    cancellation.get( 30, TimeUnit.SECONDS );
+
+	    // Either the cancellation found the guest queued, or the guest found the slot free
+	    assertPromoted( join.get( 30, TimeUnit.SECONDS ) );
+	}
+	executor.shutdown( );
+    }
+
+    @Test
+    public void aGuestLeavingDuringACancellationIsEitherPromotedOrSkipped( ) throws Exception
+    {
+	ExecutorService executor = Executors.newFixedThreadPool( 2 );
+	for( int round = 0; round < ROUNDS; round++ )
+	{
+	    ScheduleDTO schedule = newSchedule( round );
+	    ReservationDTO reservation = bookingFixtures.book( "Holder", schedule.getId( ) );
+	    WaitlistEntryDTO leaving = reservationService.joinWaitlist( bookingFixtures.request( "Leaver", schedule.getId( ) ) );
+	    WaitlistEntryDTO staying = reservationService.joinWaitlist( bookingFixtures.request( "Stayer", schedule.getId( ) ) );
+
+	    CountDownLatch start = new CountDownLatch( 1 );
+	    Future<?> cancellation = executor.submit( ( ) -> {
+		start.await( );
+		return reservationService.cancelReservation( reservation.getId( ) );
+	    } );
+	    Future<Boolean> leave = executor.submit( ( ) -> {
+		start.await( );
+		try
+		{
+		    reservationService.leaveWaitlist( leaving.getId( ) );
+		    return true;
+		}
+		catch( IllegalArgumentException e )
+		{
+		    // Promoted first
+		    return false;
+		}
+	    } );
+	    start.countDown( );
+	    cancellation.get( 30, TimeUnit.SECONDS );
+
+	    if( leave.get( 30, TimeUnit.SECONDS ) )
+	    {
+		Assert.assertEquals( WaitlistStatus.LEFT.name( ),
+				reservationService.findWaitlistEntry( leaving.getId( ) ).getWaitlistStatus( ) );
+		assertPromoted( staying );
+	    }
+	    else
+	    {
+		assertPromoted( leaving );
+		Assert.assertEquals( WaitlistStatus.WAITING.name( ),
+				reservationService.findWaitlistEntry( staying.getId( ) ).getWaitlistStatus( ) );
+	    }
+	}
+	executor.shutdown( );
+    }
+
+    @Test
+    public void guestsStillWaitingWhenTheSlotStartsExpire( )
+    {
+	ScheduleDTO started = newSchedule( 0 );
+	ScheduleDTO later = newSchedule( 1 );
+	bookingFixtures.book( "Holder", started.getId( ) );
+	bookingFixtures.book( "Holder", later.getId( ) );
+	WaitlistEntryDTO late = reservationService.joinWaitlist( bookingFixtures.request( "Late", started.getId( ) ) );
+	WaitlistEntryDTO early = reservationService.joinWaitlist( bookingFixtures.request( "Early", later.getId( ) ) );
+
+	Schedule schedule = scheduleRepository.findById( started.getId( ) ).get( );
+	schedule.setStartDateTime( LocalDateTime.now( ).minusHours( 1L ) );
+	schedule.setEndDateTime( LocalDateTime.now( ) );
+	scheduleRepository.save( schedule );
+
+	Assert.assertTrue( reservationService.expireWaitlists( ) >= 1 );
+
+	WaitlistEntryDTO expired = reservationService.findWaitlistEntry( late.getId( ) );
+	Assert.assertEquals( WaitlistStatus.EXPIRED.name( ), expired.getWaitlistStatus( ) );
+	Assert.assertNull( expired.getPosition( ) );
+	Assert.assertEquals( WaitlistStatus.WAITING.name( ),
+			reservationService.findWaitlistEntry( early.getId( ) ).getWaitlistStatus( ) );
+    }
+
+    private Reservation assertPromoted( WaitlistEntryDTO waitlistEntry )
+    {
+	WaitlistEntryDTO promoted = reservationService.findWaitlistEntry( waitlistEntry.getId( ) );
+	Assert.assertEquals( WaitlistStatus.PROMOTED.name( ), promoted.getWaitlistStatus( ) );
+	Assert.assertNull( promoted.getPosition( ) );
+
+	Reservation reservation = reservationRepository.findById( promoted.getReservationId( ) ).get( );
+	Assert.assertEquals( ReservationStatus.READY_TO_PLAY, reservation.getReservationStatus( ) );
+	Assert.assertEquals( waitlistEntry.getScheduleId( ), reservation.getSchedule( ).getId( ) );
+	Assert.assertTrue( reservationOccupancyIndex.isOccupied( waitlistEntry.getScheduleId( ) ) );
+
+	return reservation;
+    }
+
+    private ScheduleDTO newSchedule( int hour )
+    {
+	return bookingFixtures.newSchedule( tennisCourt.getId( ), firstSlot.plusHours( hour ) );
+    }
+}
@@ -0,0 +1,111 @@
+package com.tenniscourts.schedules;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.BiConsumer;
+import java.util.stream.Collectors;
+
+public class AvailabilityEngineTest
+{
+    private static final LocalDateTime DAY = LocalDateTime.of( 2030, 3, 4, 0, 0 );
+
+    private final ScheduleJdbcRepository scheduleJdbcRepository = Mockito.mock( ScheduleJdbcRepository.class );
+
+    private final AvailabilityEngine availabilityEngine = new AvailabilityEngine( scheduleJdbcRepository );
+
+    @Test
+    public void bookedSlotsAreNotFree( )
+    {
+	createSlot( 1L, 1L, DAY.withHour( 9 ) );
+	createSlot( 2L, 1L, DAY.withHour( 10 ) );
+	createSlot( 3L, 1L, DAY.withHour( 11 ) );
+	availabilityEngine.onSlotEvent( event( SlotEventType.BOOKED, 2L, 1L, DAY.withHour( 10 ) ) );
+
+	Assert.assertEquals( Arrays.asList( 1L, 3L ), freeIds( Collections.singletonList( 1L ), DAY, DAY.plusDays( 1 ) ) );
+
+	availabilityEngine.onSlotEvent( event( SlotEventType.CANCELLED, 2L, 1L, DAY.withHour( 10 ) ) );
+
+	Assert.assertEquals( Arrays.asList( 1L, 2L, 3L ), freeIds( Collections.singletonList( 1L ), DAY, DAY.plusDays( 1 ) ) );
+    }
+
+    @Test
+    public void onlySlotsInsideTheRangeOfTheRequestedCourtsAreFree( )
+    {
+	createSlot( 10L, 7L, DAY.withHour( 8 ) );
+	createSlot( 11L, 7L, DAY.withHour( 12 ).withMinute( 45 ) );
+	createSlot( 12L, 7L, DAY.plusDays( 1 ).withHour( 23 ) );
+	createSlot( 13L, 7L, DAY.plusDays( 2 ).withHour( 6 ) );
+	createSlot( 14L, 8L, DAY.plusDays( 1 ).withHour( 9 ) );
+	createSlot( 15L, 9L, DAY.plusDays( 1 ).withHour( 9 ) );
+
+	Assert.assertEquals( Arrays.asList( 11L, 12L, 14L ),
+			freeIds( Arrays.asList( 8L, 7L ), DAY.withHour( 8 ).withMinute( 10 ), DAY.plusDays( 2 ) ) );
+    }
+
+    @Test
+    public void slotsAfterTheFirstWordOfTheDayKeepTheirIds( )
+    {
+	for( int hour = 23; hour >= 0; hour-- )
+	    createSlot( 100L + hour, 3L, DAY.withHour( hour ).withMinute( 15 ) );
+
+	List<ScheduleDTO> free = availabilityEngine.findFree( Collections.singletonList( 3L ), DAY, DAY.plusDays( 2 ) );
+
+	Assert.assertEquals( 24, free.size( ) );
+	for( ScheduleDTO scheduleDTO : free )
+	    Assert.assertEquals( 100L + scheduleDTO.getStartDateTime( ).getHour( ), scheduleDTO.getId( ).longValue( ) );
+    }
+
+    @Test
+    public void aRefreshReadsTheDatabaseAndKeepsTheEventsCommittedMeanwhile( )
+    {
+	// Known to this node only, and gone from the database
+	createSlot( 20L, 5L, DAY.withHour( 8 ) );
+	Mockito.doAnswer( invocation -> {
+	    BiConsumer<ScheduleDTO, Long> consumer = invocation.getArgument( 0 );
+	    consumer.accept( schedule( 21L, 5L, DAY.withHour( 9 ) ), null );
+	    consumer.accept( schedule( 22L, 5L, DAY.withHour( 10 ) ), 200L );
+	    consumer.accept( schedule( 23L, 5L, DAY.withHour( 11 ) ), null );
+	    // Committed while the rebuild reads
+	    availabilityEngine.onSlotEvent( event( SlotEventType.BOOKED, 23L, 5L, DAY.withHour( 11 ) ) );
+	    return null;
+	} ).when( scheduleJdbcRepository ).streamWithActiveReservation( Mockito.any( ) );
+
+	availabilityEngine.refresh( );
+
+	Assert.assertEquals( Collections.singletonList( 21L ),
+			freeIds( Collections.singletonList( 5L ), DAY, DAY.plusDays( 1 ) ) );
+    }
+
+    private void createSlot( Long scheduleId, Long tennisCourtId, LocalDateTime startDateTime )
+    {
+	availabilityEngine.onSlotEvent( event( SlotEventType.CREATED, scheduleId, tennisCourtId, startDateTime ) );
+    }
+
+    private SlotEvent event( SlotEventType type, Long scheduleId, Long tennisCourtId, LocalDateTime startDateTime )
+    {
+	return new SlotEvent( type, scheduleId, tennisCourtId, startDateTime, startDateTime.plusHours( 1L ), null );
+    }
+
+    private ScheduleDTO schedule( Long scheduleId, Long tennisCourtId, LocalDateTime startDateTime )
+    {
+	ScheduleDTO scheduleDTO = new ScheduleDTO( );
+	scheduleDTO.setId( scheduleId );
+	scheduleDTO.setTennisCourtId( tennisCourtId );
+	scheduleDTO.setStartDateTime( startDateTime );
+	scheduleDTO.setEndDateTime( startDateTime.plusHours( 1L ) );
+
+	return scheduleDTO;
+    }
+
+    private List<Long> freeIds( List<Long> tennisCourtIds, LocalDateTime startDateTime, LocalDateTime endDateTime )
+    {
+	return availabilityEngine.findFree( tennisCourtIds, startDateTime, endDateTime ).stream( ).map( ScheduleDTO::getId )
+			.collect( Collectors.toList( ) );
+    }
+}
@@ -0,0 +1,223 @@
+package com.tenniscourts.schedules;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.tenniscourts.BookingFixtures;
+import com.tenniscourts.exceptions.AlreadyExistsEntityException;
+import com.tenniscourts.reservations.ReservationDTO;
+import com.tenniscourts.reservations.ReservationService;
+import com.tenniscourts.tenniscourts.TennisCourt;
+import com.tenniscourts.tenniscourts.TennisCourtDTO;
+import com.tenniscourts.tenniscourts.TennisCourtService;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+import org.springframework.test.web.servlet.result.MockMvcResultMatchers;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@RunWith( SpringRunner.class )
+@Import( BookingFixtures.class )
+public class CourtSlotViewTest
+{
+    @Autowired
+    BookingFixtures bookingFixtures;
+
+    @Autowired
+    ScheduleService scheduleService;
+
+    @Autowired
+    ReservationService reservationService;
+
+    @Autowired
+    CourtSlotViewService courtSlotViewService;
+
+    @Autowired
+    CourtSlotViewRepository courtSlotViewRepository;
+
+    @Autowired
+    TennisCourtService tennisCourtService;
+
+    @Autowired
+    MockMvc mockMvc;
+
+    @Autowired
+    ObjectMapper objectMapper;
+
+    private TennisCourt tennisCourt;
+
+    private LocalDateTime firstSlot;
+
+    @Before
+    public void setUp( )
+    {
+	tennisCourt = bookingFixtures.newTennisCourt( "View court" );
+	firstSlot = bookingFixtures.newDay( );
+    }
+
+    @Test
+    public void slotFollowsItsReservationThroughBookingAndCancellation( )
+    {
+	ScheduleDTO schedule = newSchedule( 0 );
+	CourtSlotView added = slot( schedule );
+	Assert.assertEquals( CourtSlotStatus.FREE, added.getStatus( ) );
+	Assert.assertEquals( "View court", added.getTennisCourtName( ) );
+	Assert.assertEquals( 0, CourtSlotView.PRICE.compareTo( added.getPrice( ) ) );
+
+	ReservationDTO reservation = bookingFixtures.book( "Viewer", schedule.getId( ) );
+	CourtSlotView booked = slot( schedule );
+	Assert.assertEquals( CourtSlotStatus.BOOKED, booked.getStatus( ) );
+	Assert.assertEquals( reservation.getId( ), booked.getActiveReservationId( ) );
+
+	reservationService.cancelReservation( reservation.getId( ) );
+	CourtSlotView cancelled = slot( schedule );
+	Assert.assertEquals( CourtSlotStatus.FREE, cancelled.getStatus( ) );
+	Assert.assertNull( cancelled.getActiveReservationId( ) );
+    }
+
+    @Test
+    public void rescheduleMovesTheBookingAcrossSlots( )
+    {
+	ScheduleDTO previous = newSchedule( 0 );
+	ScheduleDTO target = newSchedule( 1 );
+	ReservationDTO reservation = bookingFixtures.book( "Mover", previous.getId( ) );
+
+	ReservationDTO rescheduled = reservationService.rescheduleReservation( reservation.getId( ), target.getId( ) );
+
+	Assert.assertEquals( CourtSlotStatus.FREE, slot( previous ).getStatus( ) );
+	Assert.assertEquals( CourtSlotStatus.BOOKED, slot( target ).getStatus( ) );
+	Assert.assertEquals( rescheduled.getId( ), slot( target ).getActiveReservationId( ) );
+    }
+
+    @Test
+    public void rejectedBookingLeavesTheSlotUntouched( )
+    {
+	ScheduleDTO schedule = newSchedule( 0 );
+	ReservationDTO reservation = bookingFixtures.book( "First", schedule.getId( ) );
+
+	try
+	{
+	    bookingFixtures.book( "Second", schedule.getId( ) );
+	    Assert.fail( "The slot should already be booked" );
+	}
+	catch( AlreadyExistsEntityException e )
+	{
+	    Assert.assertEquals( reservation.getId( ), slot( schedule ).getActiveReservationId( ) );
+	}
+    }
+
+    @Test
+    public void searchesReadTheView( )
+    {
+	ScheduleDTO first = newSchedule( 0 );
+	ScheduleDTO second = newSchedule( 1 );
+
+	List<ScheduleDTO> found = scheduleService.listByFilter( firstSlot, firstSlot.plusHours( 2L ) );
+
+	Assert.assertEquals( 2, found.size( ) );
+	Assert.assertEquals( first.getId( ), found.get( 0 ).getId( ) );
+	Assert.assertEquals( second.getId( ), found.get( 1 ).getId( ) );
+	Assert.assertEquals( tennisCourt.getId( ), found.get( 0 ).getTennisCourt( ).getId( ) );
+	Assert.assertEquals( "View court", found.get( 0 ).getTennisCourt( ).getName( ) );
+    }
+
+    @Test
+    public void rebuildRecoversACorruptedView( )
+    {
+	ScheduleDTO free = newSchedule( 0 );
+	ScheduleDTO booked = newSchedule( 1 );
+	ReservationDTO reservation = bookingFixtures.book( "Recovered", booked.getId( ) );
+
+	// Lose one slot and flip the other one behind the services' back
+	courtSlotViewRepository.deleteById( booked.getId( ) );
+	CourtSlotView corrupted = slot( free );
+	corrupted.setStatus( CourtSlotStatus.BOOKED );
+	courtSlotViewRepository.save( corrupted );
+
+	int slots = courtSlotViewService.rebuild( );
+
+	Assert.assertEquals( courtSlotViewRepository.count( ), slots );
+	Assert.assertEquals( CourtSlotStatus.FREE, slot( free ).getStatus( ) );
+	Assert.assertEquals( CourtSlotStatus.BOOKED, slot( booked ).getStatus( ) );
+	Assert.assertEquals( reservation.getId( ), slot( booked ).getActiveReservationId( ) );
+    }
+
+    @Test
+    public void theStartupCheckRepairsAViewAsLargeAsTheSchedule( )
+    {
+	ScheduleDTO free = newSchedule( 0 );
+	ScheduleDTO booked = newSchedule( 1 );
+	ReservationDTO reservation = bookingFixtures.book( "Checked", booked.getId( ) );
+
+	// Same number of rows, different content
+	CourtSlotView flipped = slot( free );
+	flipped.setStatus( CourtSlotStatus.BOOKED );
+	courtSlotViewRepository.save( flipped );
+	CourtSlotView detached = slot( booked );
+	detached.setActiveReservationId( null );
+	courtSlotViewRepository.save( detached );
+
+	courtSlotViewService.rebuildIfStale( );
+
+	Assert.assertEquals( 0L, courtSlotViewRepository.countStaleSlots( ) );
+	Assert.assertEquals( CourtSlotStatus.FREE, slot( free ).getStatus( ) );
+	Assert.assertEquals( reservation.getId( ), slot( booked ).getActiveReservationId( ) );
+    }
+
+    @Test
+    public void theViewCanBeRebuiltOverHttp( ) throws Exception
+    {
+	ScheduleDTO schedule = newSchedule( 0 );
+	courtSlotViewRepository.deleteById( schedule.getId( ) );
+
+	MvcResult started = mockMvc.perform( MockMvcRequestBuilders.post( "/schedules/view/rebuild" ) )
+			.andExpect( MockMvcResultMatchers.request( ).asyncStarted( ) ).andReturn( );
+
+	mockMvc.perform( MockMvcRequestBuilders.asyncDispatch( started ) )
+			.andExpect( MockMvcResultMatchers.status( ).isOk( ) )
+			.andExpect( MockMvcResultMatchers.jsonPath( "$.slots" ).value( (int) courtSlotViewRepository.count( ) ) );
+	Assert.assertEquals( CourtSlotStatus.FREE, slot( schedule ).getStatus( ) );
+    }
+
+    @Test
+    public void renamingACourtRenamesItsSlots( ) throws Exception
+    {
+	newSchedule( 0 );
+	TennisCourtDTO renamed = tennisCourtService.listById( tennisCourt.getId( ) );
+	tennisCourtService.update( TennisCourtDTO.builder( ).id( renamed.getId( ) ).name( "Renamed court" ).build( ) );
+
+	ScheduleFiltersDTO scheduleFiltersDTO = new ScheduleFiltersDTO( );
+	scheduleFiltersDTO.setStartDateTime( firstSlot );
+	scheduleFiltersDTO.setEndDateTime( firstSlot.plusHours( 1L ) );
+	MvcResult started = mockMvc.perform( MockMvcRequestBuilders.post( "/schedules/filters" )
+			.contentType( MediaType.APPLICATION_JSON ).content( objectMapper.writeValueAsString( scheduleFiltersDTO ) ) )
+			.andExpect( MockMvcResultMatchers.request( ).asyncStarted( ) ).andReturn( );
+
+	mockMvc.perform( MockMvcRequestBuilders.asyncDispatch( started ) )
+			.andExpect( MockMvcResultMatchers.status( ).isOk( ) )
+			.andExpect( MockMvcResultMatchers.jsonPath( "$.length()" ).value( 1 ) )
+			.andExpect( MockMvcResultMatchers.jsonPath( "$[0].tennisCourt.name" ).value( "Renamed court" ) );
+    }
+
+    private CourtSlotView slot( ScheduleDTO schedule )
+    {
+	return courtSlotViewRepository.findById( schedule.getId( ) ).get( );
+    }
+
+    private ScheduleDTO newSchedule( int hour )
+    {
+	return bookingFixtures.newSchedule( tennisCourt.getId( ), firstSlot.plusHours( hour ) );
+    }
+}
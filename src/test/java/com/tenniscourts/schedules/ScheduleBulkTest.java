@@ -0,0 +1,148 @@
+package com.tenniscourts.schedules;
+
+import com.tenniscourts.BookingFixtures;
+import com.tenniscourts.tenniscourts.TennisCourt;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import java.time.DayOfWeek;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.HashSet;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+@SpringBootTest
+@RunWith( SpringRunner.class )
+@Import( BookingFixtures.class )
+public class ScheduleBulkTest
+{
+    @Autowired
+    BookingFixtures bookingFixtures;
+
+    @Autowired
+    ScheduleService scheduleService;
+
+    @Autowired
+    ScheduleRepository scheduleRepository;
+
+    private TennisCourt first;
+
+    private TennisCourt second;
+
+    private LocalDateTime day;
+
+    @Before
+    public void setUp( )
+    {
+	first = bookingFixtures.newTennisCourt( "Bulk court one" );
+	second = bookingFixtures.newTennisCourt( "Bulk court two" );
+	day = bookingFixtures.newDay( );
+    }
+
+    @Test
+    public void existingSlotsAreSkippedAndCountedPerCourt( )
+    {
+	bookingFixtures.newSchedule( first.getId( ), day.withHour( 9 ) );
+	bookingFixtures.newSchedule( first.getId( ), day.withHour( 11 ) );
+	bookingFixtures.newSchedule( second.getId( ), day.withHour( 10 ) );
+
+	BulkScheduleResultDTO result = scheduleService.addBulk( bulk( LocalTime.of( 9, 0 ), LocalTime.of( 10, 0 ),
+			LocalTime.of( 11, 0 ) ) );
+
+	// Three slots on two courts, three of them already there
+	Assert.assertEquals( 3, result.getCreated( ) );
+	Assert.assertEquals( 3, result.getSkipped( ) );
+	Assert.assertEquals( 3, starts( first ).size( ) );
+	Assert.assertEquals( 3, starts( second ).size( ) );
+    }
+
+    @Test
+    public void aSecondRunSkipsEverySlot( )
+    {
+	scheduleService.addBulk( bulk( LocalTime.of( 9, 0 ) ) );
+
+	BulkScheduleResultDTO result = scheduleService.addBulk( bulk( LocalTime.of( 9, 0 ) ) );
+
+	Assert.assertEquals( 0, result.getCreated( ) );
+	Assert.assertEquals( 2, result.getSkipped( ) );
+    }
+
+    @Test( expected = DataIntegrityViolationException.class )
+    public void aCourtHasOneSlotPerStart( )
+    {
+	scheduleRepository.saveAndFlush( slot( first, day.withHour( 9 ) ) );
+	scheduleRepository.saveAndFlush( slot( first, day.withHour( 9 ) ) );
+    }
+
+    @Test
+    public void aDuplicateTheCourtHasNotSeenIsSkipped( )
+    {
+	// The court is loaded, then another node adds one of the slots
+	bookingFixtures.newSchedule( first.getId( ), day.withHour( 8 ) );
+	scheduleRepository.save( slot( first, day.withHour( 9 ) ) );
+
+	BulkScheduleResultDTO result = scheduleService.addBulk( bulk( LocalTime.of( 9, 0 ), LocalTime.of( 10, 0 ) ) );
+
+	Assert.assertEquals( 3, result.getCreated( ) );
+	Assert.assertEquals( 1, result.getSkipped( ) );
+	Assert.assertEquals( Arrays.asList( day.withHour( 8 ), day.withHour( 9 ), day.withHour( 10 ) ), starts( first ) );
+	Assert.assertEquals( Arrays.asList( day.withHour( 9 ), day.withHour( 10 ) ), starts( second ) );
+    }
+
+    @Test
+    public void aRangePastTheCapIsRejectedBeforeItsSlotsAreBuilt( )
+    {
+	// Two courts, every half hour, for ten thousand years
+	CreateBulkScheduleRequestDTO createBulkScheduleRequestDTO = bulk( LocalTime.of( 0, 0 ) );
+	createBulkScheduleRequestDTO.setStartTimes( Stream.iterate( LocalTime.MIDNIGHT, time -> time.plusMinutes( 30L ) )
+			.limit( 48 ).collect( Collectors.toSet( ) ) );
+	createBulkScheduleRequestDTO.setDurationMinutes( 30 );
+	createBulkScheduleRequestDTO.setEndDate( day.toLocalDate( ).plusYears( 10_000L ) );
+
+	try
+	{
+	    scheduleService.addBulk( createBulkScheduleRequestDTO );
+	    Assert.fail( "The bulk should have been rejected" );
+	}
+	catch( IllegalArgumentException e )
+	{
+	    Assert.assertTrue( e.getMessage( ), e.getMessage( ).contains( "slots at once" ) );
+	}
+	Assert.assertTrue( starts( first ).isEmpty( ) );
+    }
+
+    private CreateBulkScheduleRequestDTO bulk( LocalTime... startTimes )
+    {
+	CreateBulkScheduleRequestDTO createBulkScheduleRequestDTO = new CreateBulkScheduleRequestDTO( );
+	createBulkScheduleRequestDTO.setTennisCourtIds( new HashSet<>( Arrays.asList( first.getId( ), second.getId( ) ) ) );
+	createBulkScheduleRequestDTO.setStartDate( day.toLocalDate( ) );
+	createBulkScheduleRequestDTO.setEndDate( day.toLocalDate( ) );
+	createBulkScheduleRequestDTO.setDaysOfWeek( EnumSet.allOf( DayOfWeek.class ) );
+	createBulkScheduleRequestDTO.setStartTimes( new HashSet<>( Arrays.asList( startTimes ) ) );
+
+	return createBulkScheduleRequestDTO;
+    }
+
+    private static Schedule slot( TennisCourt tennisCourt, LocalDateTime start )
+    {
+	return Schedule.builder( ).tennisCourt( tennisCourt ).startDateTime( start ).endDateTime( start.plusHours( 1 ) )
+			.build( );
+    }
+
+    private List<LocalDateTime> starts( TennisCourt tennisCourt )
+    {
+	return scheduleService.listByTennisCourtId( tennisCourt.getId( ) ).stream( ).map( ScheduleDTO::getStartDateTime )
+			.collect( Collectors.toList( ) );
+    }
+}
@@ -0,0 +1,156 @@
+package com.tenniscourts.schedules;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.tenniscourts.BookingFixtures;
+import com.tenniscourts.config.persistence.Pages;
+import com.tenniscourts.config.streaming.NdjsonStreams;
+import com.tenniscourts.tenniscourts.TennisCourt;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+import org.springframework.test.web.servlet.result.MockMvcResultMatchers;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@RunWith( SpringRunner.class )
+@Import( BookingFixtures.class )
+public class ScheduleListingTest
+{
+    @Autowired
+    BookingFixtures bookingFixtures;
+
+    @Autowired
+    ScheduleService scheduleService;
+
+    @Autowired
+    MockMvc mockMvc;
+
+    @Autowired
+    ObjectMapper objectMapper;
+
+    private LocalDateTime day;
+
+    private List<Long> scheduleIds;
+
+    @Before
+    public void setUp( )
+    {
+	day = bookingFixtures.newDay( );
+	TennisCourt first = bookingFixtures.newTennisCourt( "Listing court one" );
+	TennisCourt second = bookingFixtures.newTennisCourt( "Listing court two" );
+
+	// Pairs of slots starting together, so the pages also split on the id
+	scheduleIds = new ArrayList<>( );
+	for( int hour = 8; hour < 11; hour++ )
+	{
+	    scheduleIds.add( bookingFixtures.newSchedule( first.getId( ), day.withHour( hour ) ).getId( ) );
+	    scheduleIds.add( bookingFixtures.newSchedule( second.getId( ), day.withHour( hour ) ).getId( ) );
+	}
+    }
+
+    @Test
+    public void keysetPagesWalkEverySlotOnceInOrder( )
+    {
+	ScheduleFiltersDTO scheduleFiltersDTO = filters( );
+	List<Long> seen = new ArrayList<>( );
+	SchedulePageDTO schedulePageDTO;
+	do
+	{
+	    schedulePageDTO = scheduleService.listPageByFilter( scheduleFiltersDTO, 4 );
+	    schedulePageDTO.getContent( ).forEach( scheduleDTO -> seen.add( scheduleDTO.getId( ) ) );
+	    scheduleFiltersDTO.setAfterStartDateTime( schedulePageDTO.getNextStartDateTime( ) );
+	    scheduleFiltersDTO.setAfterId( schedulePageDTO.getNextId( ) );
+	}
+	while( schedulePageDTO.getNextId( ) != null );
+
+	Assert.assertEquals( scheduleIds, seen );
+    }
+
+    @Test
+    public void aFullLastPageLeadsToAnEmptyOne( )
+    {
+	ScheduleFiltersDTO scheduleFiltersDTO = filters( );
+	SchedulePageDTO schedulePageDTO = scheduleService.listPageByFilter( scheduleFiltersDTO, scheduleIds.size( ) );
+	Assert.assertEquals( scheduleIds.get( scheduleIds.size( ) - 1 ), schedulePageDTO.getNextId( ) );
+
+	scheduleFiltersDTO.setAfterStartDateTime( schedulePageDTO.getNextStartDateTime( ) );
+	scheduleFiltersDTO.setAfterId( schedulePageDTO.getNextId( ) );
+	schedulePageDTO = scheduleService.listPageByFilter( scheduleFiltersDTO, scheduleIds.size( ) );
+
+	Assert.assertTrue( schedulePageDTO.getContent( ).isEmpty( ) );
+	Assert.assertNull( schedulePageDTO.getNextStartDateTime( ) );
+	Assert.assertNull( schedulePageDTO.getNextId( ) );
+    }
+
+    @Test( expected = IllegalArgumentException.class )
+    public void oversizedPagesAreRejected( )
+    {
+	scheduleService.listPageByFilter( filters( ), Pages.MAX_SIZE + 1 );
+    }
+
+    @Test
+    public void theCursorKeepsItsSecondsBothWays( ) throws Exception
+    {
+	LocalDateTime cursor = day.withHour( 10 ).withSecond( 30 ).withNano( 250_000_000 );
+
+	String json = objectMapper.writeValueAsString( new SchedulePageDTO( Collections.emptyList( ), cursor, 1L ) );
+	String afterStartDateTime = objectMapper.readTree( json ).get( "nextStartDateTime" ).asText( );
+
+	ScheduleFiltersDTO scheduleFiltersDTO = objectMapper.readValue(
+			"{\"afterStartDateTime\":\"" + afterStartDateTime + "\"}", ScheduleFiltersDTO.class );
+	Assert.assertEquals( cursor, scheduleFiltersDTO.getAfterStartDateTime( ) );
+    }
+
+    @Test
+    public void theStreamHasOneSlotPerLineInOrder( ) throws Exception
+    {
+	MvcResult started = mockMvc.perform( MockMvcRequestBuilders.post( "/schedules/filters/stream" )
+			.contentType( MediaType.APPLICATION_JSON ).content( objectMapper.writeValueAsString( filters( ) ) ) )
+			.andExpect( MockMvcResultMatchers.request( ).asyncStarted( ) ).andReturn( );
+
+	String body = mockMvc.perform( MockMvcRequestBuilders.asyncDispatch( started ) )
+			.andExpect( MockMvcResultMatchers.status( ).isOk( ) )
+			.andExpect( MockMvcResultMatchers.content( ).contentType( NdjsonStreams.APPLICATION_NDJSON ) )
+			.andReturn( ).getResponse( ).getContentAsString( );
+
+	List<Long> streamed = new ArrayList<>( );
+	for( String line : body.split( "\n" ) )
+	    streamed.add( objectMapper.readValue( line, ScheduleDTO.class ).getId( ) );
+	Assert.assertEquals( scheduleIds, streamed );
+    }
+
+    @Test
+    public void theStreamMatchesTheList( )
+    {
+	List<ScheduleDTO> streamed = new ArrayList<>( );
+	scheduleService.streamByFilter( day, day.plusDays( 1 ), streamed::add );
+
+	Assert.assertEquals( scheduleIds, streamed.stream( ).map( ScheduleDTO::getId ).collect( Collectors.toList( ) ) );
+	Assert.assertEquals( "Listing court one", streamed.get( 0 ).getTennisCourt( ).getName( ) );
+    }
+
+    private ScheduleFiltersDTO filters( )
+    {
+	ScheduleFiltersDTO scheduleFiltersDTO = new ScheduleFiltersDTO( );
+	scheduleFiltersDTO.setStartDateTime( day );
+	scheduleFiltersDTO.setEndDateTime( day.plusDays( 1 ) );
+
+	return scheduleFiltersDTO;
+    }
+}
@@ -0,0 +1,235 @@
+package com.tenniscourts.schedules;
+
+import com.tenniscourts.BookingFixtures;
+import com.tenniscourts.exceptions.AlreadyExistsEntityException;
+import com.tenniscourts.tenniscourts.TennisCourt;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.DayOfWeek;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+@SpringBootTest
+@RunWith( SpringRunner.class )
+@Import( BookingFixtures.class )
+public class ScheduleOverlapTest
+{
+    private static final int CONTENDERS = 8;
+
+    @Autowired
+    BookingFixtures bookingFixtures;
+
+    @Autowired
+    ScheduleService scheduleService;
+
+    @Autowired
+    ScheduleRepository scheduleRepository;
+
+    @Autowired
+    TransactionTemplate transactionTemplate;
+
+    private TennisCourt tennisCourt;
+
+    private LocalDateTime day;
+
+    @Before
+    public void setUp( )
+    {
+	tennisCourt = bookingFixtures.newTennisCourt( "Overlap court" );
+	day = bookingFixtures.newDay( );
+    }
+
+    @Test
+    public void slotsLastTheirLengthAndAnHourByDefault( )
+    {
+	Assert.assertEquals( day.withHour( 8 ).withMinute( 30 ), add( 8, 0, 30 ).getEndDateTime( ) );
+	Assert.assertEquals( day.withHour( 10 ), add( 8, 30, 90 ).getEndDateTime( ) );
+	Assert.assertEquals( day.withHour( 11 ), add( 10, 0, null ).getEndDateTime( ) );
+    }
+
+    @Test( expected = IllegalArgumentException.class )
+    public void otherLengthsAreRejected( )
+    {
+	add( 10, 0, 45 );
+    }
+
+    @Test
+    public void aSlotOverlappingAnyOtherIsRejected( )
+    {
+	add( 10, 0, 90 );
+
+	// Starting inside it, around it and ending inside it
+	assertOverlaps( 10, 30, 30 );
+	assertOverlaps( 9, 30, 90 );
+	assertOverlaps( 9, 30, 60 );
+	assertOverlaps( 10, 0, 30 );
+
+	// Back to back on both sides
+	add( 9, 0, 60 );
+	add( 11, 30, 30 );
+    }
+
+    @Test
+    public void slotsAddedBehindTheServicesBackAreSeen( )
+    {
+	// Inserted behind the service's back, overlapping each other
+	scheduleRepository.save( Schedule.builder( ).tennisCourt( tennisCourt ).startDateTime( day.withHour( 10 ) )
+			.endDateTime( day.withHour( 12 ) ).build( ) );
+	scheduleRepository.save( Schedule.builder( ).tennisCourt( tennisCourt ).startDateTime( day.withHour( 10 )
+			.withMinute( 30 ) ).endDateTime( day.withHour( 11 ) ).build( ) );
+
+	// Only the longer, earlier slot overlaps it
+	assertOverlaps( 11, 0, 30 );
+	add( 12, 0, 30 );
+    }
+
+    @Test
+    public void slotsAddedByAnotherNodeAreCheckedInTheDatabase( )
+    {
+	// A slot added through this node, then one behind its back
+	add( 8, 0, 60 );
+	scheduleRepository.save( Schedule.builder( ).tennisCourt( tennisCourt ).startDateTime( day.withHour( 10 ) )
+			.endDateTime( day.withHour( 11 ) ).build( ) );
+
+	assertOverlaps( 10, 30, 30 );
+	BulkScheduleResultDTO result = scheduleService.addBulk( bulk( 60, LocalTime.of( 9, 30 ), LocalTime.of( 11, 0 ) ) );
+
+	Assert.assertEquals( 1, result.getCreated( ) );
+	Assert.assertEquals( 1, result.getSkipped( ) );
+	Assert.assertEquals( Arrays.asList( day.withHour( 8 ), day.withHour( 10 ), day.withHour( 11 ) ), starts( ) );
+
+	// The skipped slot leaves its time free
+	add( 9, 0, 60 );
+    }
+
+    @Test
+    public void bulkSkipsTheSlotsOverlappingExistingOnes( )
+    {
+	add( 10, 0, 90 );
+
+	BulkScheduleResultDTO result = scheduleService.addBulk( bulk( 60, LocalTime.of( 9, 30 ), LocalTime.of( 11, 0 ),
+			LocalTime.of( 12, 0 ), LocalTime.of( 13, 0 ) ) );
+
+	Assert.assertEquals( 2, result.getCreated( ) );
+	Assert.assertEquals( 2, result.getSkipped( ) );
+	Assert.assertEquals( Arrays.asList( day.withHour( 10 ), day.withHour( 12 ), day.withHour( 13 ) ), starts( ) );
+	Assert.assertEquals( day.withHour( 14 ),
+			scheduleService.listByTennisCourtId( tennisCourt.getId( ) ).get( 2 ).getEndDateTime( ) );
+    }
+
+    @Test( expected = IllegalArgumentException.class )
+    public void bulkStartTimesCloserThanTheLengthAreRejected( )
+    {
+	scheduleService.addBulk( bulk( 90, LocalTime.of( 9, 0 ), LocalTime.of( 10, 0 ) ) );
+    }
+
+    @Test
+    public void aRolledBackSlotIsReleased( )
+    {
+	transactionTemplate.execute( status -> {
+	    add( 10, 0, 60 );
+	    status.setRollbackOnly( );
+	    return null;
+	} );
+
+	add( 10, 30, 60 );
+	Assert.assertEquals( Collections.singletonList( day.withHour( 10 ).withMinute( 30 ) ), starts( ) );
+    }
+
+    @Test
+    public void concurrentOverlappingSlotsAreNeverBothAdded( ) throws Exception
+    {
+	ExecutorService executor = Executors.newFixedThreadPool( CONTENDERS );
+	CountDownLatch start = new CountDownLatch( 1 );
+	List<Future<Boolean>> attempts = new ArrayList<>( );
+	for( int i = 0; i < CONTENDERS; i++ )
+	{
+	    // Every slot overlaps the next one
+	    int minute = i * 15;
+	    attempts.add( executor.submit( ( ) -> {
+		start.await( );
+		try
+		{
+		    add( 10 + minute / 60, minute % 60, 60 );
+		    return true;
+		}
+		catch( AlreadyExistsEntityException e )
+		{
+		    return false;
+		}
+	    } ) );
+	}
+	start.countDown( );
+
+	int added = 0;
+	for( Future<Boolean> attempt : attempts )
+	    added += attempt.get( 30, TimeUnit.SECONDS ) ? 1 : 0;
+	executor.shutdown( );
+
+	List<ScheduleDTO> schedules = scheduleService.listByTennisCourtId( tennisCourt.getId( ) );
+	Assert.assertEquals( added, schedules.size( ) );
+	Assert.assertTrue( added > 0 );
+	for( int i = 1; i < schedules.size( ); i++ )
+	    Assert.assertFalse( schedules.get( i - 1 ).getEndDateTime( ).isAfter( schedules.get( i ).getStartDateTime( ) ) );
+    }
+
+    private ScheduleDTO add( int hour, int minute, Integer durationMinutes )
+    {
+	return bookingFixtures.newSchedule( tennisCourt.getId( ), day.withHour( hour ).withMinute( minute ),
+			durationMinutes );
+    }
+
+    private void assertOverlaps( int hour, int minute, Integer durationMinutes )
+    {
+	try
+	{
+	    add( hour, minute, durationMinutes );
+	    Assert.fail( "The slot should overlap an existing one" );
+	}
+	catch( AlreadyExistsEntityException e )
+	{
+	    // Expected
+	}
+    }
+
+    private CreateBulkScheduleRequestDTO bulk( Integer durationMinutes, LocalTime... startTimes )
+    {
+	CreateBulkScheduleRequestDTO createBulkScheduleRequestDTO = new CreateBulkScheduleRequestDTO( );
+	createBulkScheduleRequestDTO.setTennisCourtIds( Collections.singleton( tennisCourt.getId( ) ) );
+	createBulkScheduleRequestDTO.setStartDate( day.toLocalDate( ) );
+	createBulkScheduleRequestDTO.setEndDate( day.toLocalDate( ) );
+	createBulkScheduleRequestDTO.setDaysOfWeek( EnumSet.allOf( DayOfWeek.class ) );
+	createBulkScheduleRequestDTO.setStartTimes( new HashSet<>( Arrays.asList( startTimes ) ) );
+	createBulkScheduleRequestDTO.setDurationMinutes( durationMinutes );
+
+	return createBulkScheduleRequestDTO;
+    }
+
+    private List<LocalDateTime> starts( )
+    {
+	List<LocalDateTime> starts = new ArrayList<>( );
+	scheduleService.listByTennisCourtId( tennisCourt.getId( ) )
+			.forEach( scheduleDTO -> starts.add( scheduleDTO.getStartDateTime( ) ) );
+
+	return starts;
+    }
+}
@@ -0,0 +1,200 @@
+package com.tenniscourts.schedules;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+import org.springframework.core.task.TaskRejectedException;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+public class SlotEventFeedTest
+{
+    private static final LocalDateTime DAY = LocalDateTime.of( 2030, 3, 4, 0, 0 );
+
+    private static final int BUFFER = 4;
+
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry( );
+
+    private final SlotEventFeed slotEventFeed = new SlotEventFeed( BUFFER, 2, 60_000L, 2, 60_000L,
+		    meterRegistry );
+
+    private final CountDownLatch release = new CountDownLatch( 1 );
+
+    @After
+    public void tearDown( )
+    {
+	release.countDown( );
+	slotEventFeed.shutdown( );
+    }
+
+    @Test
+    public void onlyTheEventsOfTheCourtsAndTimeOfInterestAreSent( ) throws Exception
+    {
+	RecordingSink sink = new RecordingSink( );
+	slotEventFeed.subscribe( new SlotEventFeed.SlotEventFilter( Collections.singleton( 1L ), DAY.withHour( 9 ),
+			DAY.withHour( 12 ) ), sink );
+
+	slotEventFeed.onSlotEvent( event( 1L, 1L, DAY.withHour( 10 ) ) );
+	slotEventFeed.onSlotEvent( event( 2L, 2L, DAY.withHour( 10 ) ) );
+	slotEventFeed.onSlotEvent( event( 3L, 1L, DAY.withHour( 12 ) ) );
+	slotEventFeed.onSlotEvent( event( 4L, 1L, DAY.withHour( 8 ).withMinute( 30 ) ) );
+	slotEventFeed.onSlotEvent( event( 5L, 1L, DAY.withHour( 8 ) ) );
+	slotEventFeed.onSlotEvent( event( 6L, 1L, DAY.withHour( 11 ) ) );
+
+	// Slots overlapping the window, in the order they changed
+	Assert.assertEquals( Arrays.asList( 1L, 4L, 6L ), sink.take( 3 ) );
+	Assert.assertNull( sink.getScheduleIds( ).poll( 100, TimeUnit.MILLISECONDS ) );
+    }
+
+    @Test
+    public void aSlowSubscriberIsDroppedWithoutHoldingBackTheOthers( ) throws Exception
+    {
+	RecordingSink slow = new RecordingSink( release );
+	RecordingSink fast = new RecordingSink( );
+	SlotEventFeed.Subscriber slowSubscriber = slotEventFeed.subscribe( all( ), slow );
+	slotEventFeed.subscribe( all( ), fast );
+
+	// The fast one keeps up with every change; the slow one holds the first and fills its buffer with the next ones
+	for( long scheduleId = 1; scheduleId <= BUFFER * 4; scheduleId++ )
+	{
+	    slotEventFeed.onSlotEvent( event( scheduleId, 1L, DAY.plusHours( scheduleId ) ) );
+	    Assert.assertEquals( Collections.singletonList( scheduleId ), fast.take( 1 ) );
+	    if( scheduleId == 1 )
+		Assert.assertEquals( Collections.singletonList( 1L ), slow.take( 1 ) );
+	}
+
+	Assert.assertTrue( slowSubscriber.getDropped( ).get( ) );
+	Assert.assertEquals( 1, meterRegistry.counter( SlotEventFeed.DROPPED ).count( ), 0 );
+
+	// Closed once its write in progress is over, and never sent the rest
+	release.countDown( );
+	Assert.assertTrue( slow.getClosed( ).await( 5, TimeUnit.SECONDS ) );
+	Assert.assertTrue( slow.getScheduleIds( ).isEmpty( ) );
+    }
+
+    @Test
+    public void subscribersStuckInAWriteAreDroppedAndTheirSendersReplaced( ) throws Exception
+    {
+	SlotEventFeed feed = new SlotEventFeed( BUFFER, 3, 60_000L, 2, 100L, meterRegistry );
+	try
+	{
+	    RecordingSink first = new RecordingSink( release );
+	    RecordingSink second = new RecordingSink( release );
+	    RecordingSink fast = new RecordingSink( );
+	    feed.subscribe( all( ), first );
+	    feed.subscribe( all( ), second );
+	    feed.subscribe( all( ), fast );
+
+	    // Both senders block on the clients that stopped reading
+	    feed.onSlotEvent( event( 1L, 1L, DAY.withHour( 10 ) ) );
+	    Assert.assertEquals( Collections.singletonList( 1L ), first.take( 1 ) );
+	    Assert.assertEquals( Collections.singletonList( 1L ), second.take( 1 ) );
+
+	    Thread.sleep( 200L );
+	    feed.onSlotEvent( event( 2L, 1L, DAY.withHour( 11 ) ) );
+
+	    Assert.assertEquals( Arrays.asList( 1L, 2L ), fast.take( 2 ) );
+	    Assert.assertEquals( 2, meterRegistry.counter( SlotEventFeed.DROPPED ).count( ), 0 );
+
+	    release.countDown( );
+	    Assert.assertTrue( first.getClosed( ).await( 5, TimeUnit.SECONDS ) );
+	    Assert.assertTrue( second.getClosed( ).await( 5, TimeUnit.SECONDS ) );
+	    Assert.assertTrue( first.getScheduleIds( ).isEmpty( ) );
+	}
+	finally
+	{
+	    feed.shutdown( );
+	}
+    }
+
+    @Test( expected = TaskRejectedException.class )
+    public void subscribersPastTheLimitAreRejected( )
+    {
+	slotEventFeed.subscribe( all( ), new RecordingSink( ) );
+	slotEventFeed.subscribe( all( ), new RecordingSink( ) );
+	slotEventFeed.subscribe( all( ), new RecordingSink( ) );
+    }
+
+    private SlotEventFeed.SlotEventFilter all( )
+    {
+	return new SlotEventFeed.SlotEventFilter( null, null, null );
+    }
+
+    private SlotEvent event( Long scheduleId, Long tennisCourtId, LocalDateTime startDateTime )
+    {
+	return new SlotEvent( SlotEventType.BOOKED, scheduleId, tennisCourtId, startDateTime, startDateTime.plusHours( 1L ),
+			100L + scheduleId );
+    }
+
+    private static class RecordingSink implements SlotEventFeed.SlotEventSink
+    {
+	private final BlockingQueue<Long> scheduleIds = new LinkedBlockingQueue<>( );
+
+	private final CountDownLatch closed = new CountDownLatch( 1 );
+
+	private final CountDownLatch release;
+
+	RecordingSink( )
+	{
+	    this( new CountDownLatch( 0 ) );
+	}
+
+	RecordingSink( CountDownLatch release )
+	{
+	    this.release = release;
+	}
+
+	@Override
+	public void send( long id, SlotEvent slotEvent )
+	{
+	    scheduleIds.add( slotEvent.getScheduleId( ) );
+	    try
+	    {
+		release.await( );
+	    }
+	    catch( InterruptedException e )
+	    {
+		Thread.currentThread( ).interrupt( );
+	    }
+	}
+
+	@Override
+	public void close( )
+	{
+	    closed.countDown( );
+	}
+
+	BlockingQueue<Long> getScheduleIds( )
+	{
+	    return scheduleIds;
+	}
+
+	CountDownLatch getClosed( )
+	{
+	    return closed;
+	}
+
+	List<Long> take( int count ) throws InterruptedException
+	{
+	    List<Long> taken = new ArrayList<>( );
+	    for( int i = 0; i < count; i++ )
+	    {
+		Long scheduleId = scheduleIds.poll( 5, TimeUnit.SECONDS );
+		Assert.assertNotNull( "Only " + taken + " sent", scheduleId );
+		taken.add( scheduleId );
+	    }
+
+	    return taken;
+	}
+    }
+}